@@ -1,5 +1,8 @@
+import view.AssetPreloader;
 import view.HomeScreen;
 
+import javax.swing.SwingUtilities;
+
 /**
  * The Main class serves as the entry point for the Kwazam Chess application.
  *
@@ -7,7 +10,8 @@ import view.HomeScreen;
  * This class contains the main method, which is the starting point of the Java application.
  * It initializes the graphical user interface by creating an instance of the HomeScreen class
  * on the Event Dispatch Thread (EDT) using SwingUtilities.invokeLater. This ensures that all
- * UI components are created and updated in a thread-safe manner.
+ * UI components are created and updated in a thread-safe manner. Before that it starts the
+ * AssetPreloader, so piece images and fonts are ready by the time a game is opened.
  *
  * @author Tai Zhi Xuan
  */
@@ -24,8 +28,15 @@ public class Main {
      * @param args Command-line arguments passed to the application (not used).
      */
     public static void main(String[] args) {
+        // Decode images and load fonts in the background while the home screen is up
+        AssetPreloader.start();
+
         // Schedule the creation of the HomeScreen on the Event Dispatch Thread for thread safety
-        javax.swing.SwingUtilities.invokeLater(HomeScreen::new);
+        SwingUtilities.invokeLater(() -> {
+            new HomeScreen();
+            // Runs after the events that show and paint the home screen
+            SwingUtilities.invokeLater(() -> AssetPreloader.logMilestone("home screen interactive"));
+        });
     }
 }
 
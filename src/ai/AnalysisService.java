@@ -0,0 +1,277 @@
+package ai;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * AnalysisService keeps scoring every move of a position in the background until it is given
+ * another position or stopped.
+ *
+ * Description:
+ * The moves of the side to move are dealt round-robin to the workers of a fixed thread pool.
+ * Each worker deepens its moves one depth at a time and scores each exactly with a full-window
+ * search. After each score it also records the line of play that follows. The workers keep
+ * their SearchEngine in a ThreadLocal, and all engines share one transposition table, so a
+ * position found by one worker saves work for the others. Results go into the current
+ * Analysis object under its lock. getSnapshot copies them out only when something changed,
+ * so a view that polls it on a timer repaints at most once per tick however fast scores
+ * arrive. analyze and stop cancel the running analysis: they flag it and stop every engine
+ * working on it. Analysis ends by itself at MAX_DEPTH or once every move has a forced result.
+ *
+ * @author Tai Zhi Xuan
+ */
+public final class AnalysisService implements AutoCloseable {
+    /**
+     * The deepest an analysis goes.
+     */
+    public static final int MAX_DEPTH = 32;
+
+    /**
+     * The number of workers.
+     */
+    private final int threads;
+
+    /**
+     * The table shared by every worker's engine.
+     */
+    private final TranspositionTable table;
+
+    /**
+     * The worker threads.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The engine of each worker thread.
+     */
+    private final ThreadLocal<SearchEngine> engines;
+
+    /**
+     * The running analysis, or null.
+     */
+    private volatile Analysis current;
+
+    /**
+     * Constructs a new AnalysisService.
+     *
+     * @param threads The number of worker threads, at least 1.
+     * @param table   The transposition table the workers share.
+     * @throws IllegalArgumentException If threads is less than 1.
+     */
+    public AnalysisService(int threads, TranspositionTable table) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one analysis thread is needed: " + threads);
+        }
+        this.threads = threads;
+        this.table = table;
+        this.engines = ThreadLocal.withInitial(() -> new SearchEngine(table));
+        this.executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "kwazam-analysis");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY); // Analysis only uses spare time
+            return thread;
+        });
+    }
+
+    /**
+     * Starts analyzing a position, cancelling any running analysis.
+     *
+     * @param position The position; copied, so the caller may reuse it.
+     */
+    public synchronized void analyze(SearchBoard position) {
+        stop();
+        SearchBoard copy = new SearchBoard();
+        copy.set(position);
+        int[] moves = new int[128];
+        int count = copy.isGameOver() ? 0 : copy.generateMoves(moves, false);
+        int[] rootMoves = new int[count];
+        System.arraycopy(moves, 0, rootMoves, 0, count);
+        table.newGeneration();
+
+        Analysis analysis = new Analysis(copy, rootMoves);
+        current = analysis;
+        for (int worker = 0; worker < Math.min(threads, Math.max(count, 1)); worker++) {
+            int first = worker;
+            executor.execute(() -> analysis.run(engines.get(), first, threads));
+        }
+    }
+
+    /**
+     * Stops the running analysis. Its last snapshot stays available.
+     */
+    public synchronized void stop() {
+        Analysis analysis = current;
+        if (analysis != null) {
+            analysis.cancel();
+        }
+    }
+
+    /**
+     * Retrieves what the running or last analysis knows.
+     *
+     * @return The latest snapshot, or null before the first analysis.
+     */
+    public AnalysisSnapshot getSnapshot() {
+        Analysis analysis = current;
+        return analysis == null ? null : analysis.snapshot();
+    }
+
+    /**
+     * Stops the analysis and shuts the worker threads down.
+     */
+    @Override
+    public void close() {
+        stop();
+        executor.shutdownNow();
+    }
+
+    /**
+     * One analysis of one position.
+     */
+    private static final class Analysis {
+        /**
+         * The analyzed position.
+         */
+        private final SearchBoard position;
+
+        /**
+         * The moves of the side to move.
+         */
+        private final int[] moves;
+
+        /**
+         * The score of each move; guarded by this.
+         */
+        private final int[] scores;
+
+        /**
+         * The depth of each move's score, or 0; guarded by this.
+         */
+        private final int[] depths;
+
+        /**
+         * The line after each move; guarded by this.
+         */
+        private final int[][] lines;
+
+        /**
+         * The engines working on this analysis, stopped on cancel.
+         */
+        private final List<SearchEngine> workers = new CopyOnWriteArrayList<>();
+
+        /**
+         * Set when the analysis is cancelled.
+         */
+        private volatile boolean cancelled;
+
+        /**
+         * Incremented on every new score; guarded by this.
+         */
+        private long version;
+
+        /**
+         * The last snapshot and the version it was taken at; guarded by this.
+         */
+        private AnalysisSnapshot snapshot;
+
+        /**
+         * The version of snapshot; guarded by this.
+         */
+        private long snapshotVersion = -1;
+
+        /**
+         * Constructs a new Analysis.
+         *
+         * @param position The position.
+         * @param moves    The moves of the side to move.
+         */
+        private Analysis(SearchBoard position, int[] moves) {
+            this.position = position;
+            this.moves = moves;
+            this.scores = new int[moves.length];
+            this.depths = new int[moves.length];
+            this.lines = new int[moves.length][];
+        }
+
+        /**
+         * Deepens every threads-th move starting at first until cancelled or done.
+         *
+         * @param engine  The worker thread's engine.
+         * @param first   The index of the worker's first move.
+         * @param threads The number of workers.
+         */
+        private void run(SearchEngine engine, int first, int threads) {
+            engine.clearStop();
+            workers.add(engine);
+            try {
+                for (int depth = 1; depth <= MAX_DEPTH; depth++) {
+                    boolean open = false; // Whether any move's outcome is not yet forced
+                    for (int index = first; index < moves.length; index += threads) {
+                        if (cancelled) {
+                            return;
+                        }
+                        int score = engine.scoreMove(position, moves[index], depth);
+                        if (score == Integer.MIN_VALUE || cancelled) {
+                            return;
+                        }
+                        int[] line = engine.principalVariation(position, moves[index], depth);
+                        publish(index, depth, score, line);
+                        open |= Math.abs(score) <= SearchEngine.WIN_THRESHOLD;
+                    }
+                    if (!open) {
+                        return;
+                    }
+                }
+            } finally {
+                workers.remove(engine);
+            }
+        }
+
+        /**
+         * Records the score of a move.
+         *
+         * @param index The index of the move.
+         * @param depth The depth it was scored at.
+         * @param score The score.
+         * @param line  The line after the move.
+         */
+        private synchronized void publish(int index, int depth, int score, int[] line) {
+            scores[index] = score;
+            depths[index] = depth;
+            lines[index] = line;
+            version++;
+        }
+
+        /**
+         * Cancels the analysis and stops every engine working on it.
+         */
+        private void cancel() {
+            cancelled = true;
+            for (SearchEngine engine : workers) {
+                engine.stop();
+            }
+        }
+
+        /**
+         * Copies the scores into a snapshot, reusing the last one if nothing changed.
+         *
+         * @return The snapshot.
+         */
+        private synchronized AnalysisSnapshot snapshot() {
+            if (snapshotVersion != version) {
+                int best = -1;
+                for (int index = 0; index < moves.length; index++) {
+                    if (depths[index] > 0 && (best < 0 || scores[index] > scores[best])) {
+                        best = index;
+                    }
+                }
+                int[] bestLine = best >= 0 ? lines[best] : new int[0];
+                snapshot = new AnalysisSnapshot(position.getHash(), moves, scores.clone(), depths.clone(), best, bestLine);
+                snapshotVersion = version;
+            }
+            return snapshot;
+        }
+    }
+}
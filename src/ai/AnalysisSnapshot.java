@@ -0,0 +1,176 @@
+package ai;
+
+import model.Position;
+
+/**
+ * AnalysisSnapshot is what an analysis knows at one moment: a score for each move of the side
+ * to move, and the line of play the best of them leads to.
+ *
+ * Description:
+ * Moves are analyzed in parallel and each deepens at its own pace. Every move therefore
+ * carries its own depth, and a move with depth 0 has not been scored yet. Scores are exact at
+ * their depth, from the point of view of the side to move, in hundredths of a Ram. The best
+ * move is the highest-scoring scored move. Snapshots are immutable, so the Event Dispatch
+ * Thread can read one while the analysis goes on.
+ *
+ * @author Tai Zhi Xuan
+ */
+public final class AnalysisSnapshot {
+    /**
+     * The Zobrist hash of the analyzed position.
+     */
+    private final long positionHash;
+
+    /**
+     * The moves of the side to move.
+     */
+    private final int[] moves;
+
+    /**
+     * The score of each move.
+     */
+    private final int[] scores;
+
+    /**
+     * The depth each move was scored at, or 0.
+     */
+    private final int[] depths;
+
+    /**
+     * The index of the best scored move, or -1.
+     */
+    private final int best;
+
+    /**
+     * The expected line of play after the best move, starting with it.
+     */
+    private final int[] bestLine;
+
+    /**
+     * Constructs a new AnalysisSnapshot; the arrays are not copied.
+     *
+     * @param positionHash The hash of the analyzed position.
+     * @param moves        The moves of the side to move.
+     * @param scores       The score of each move.
+     * @param depths       The depth of each move, or 0 if not yet scored.
+     * @param best         The index of the best scored move, or -1.
+     * @param bestLine     The line after the best move.
+     */
+    AnalysisSnapshot(long positionHash, int[] moves, int[] scores, int[] depths, int best, int[] bestLine) {
+        this.positionHash = positionHash;
+        this.moves = moves;
+        this.scores = scores;
+        this.depths = depths;
+        this.best = best;
+        this.bestLine = bestLine;
+    }
+
+    /**
+     * Retrieves the hash of the analyzed position.
+     *
+     * @return The Zobrist hash.
+     */
+    public long getPositionHash() {
+        return positionHash;
+    }
+
+    /**
+     * Retrieves the number of moves of the side to move.
+     *
+     * @return The move count.
+     */
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    /**
+     * Finds a move.
+     *
+     * @param from The from position.
+     * @param to   The to position.
+     * @return The index of the move, or -1 if it is not a move of the side to move.
+     */
+    public int indexOf(Position from, Position to) {
+        int move = SearchBoard.move(from, to);
+        for (int index = 0; index < moves.length; index++) {
+            if (moves[index] == move) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether a move has been scored.
+     *
+     * @param index The index of the move.
+     * @return True if it has a score.
+     */
+    public boolean isScored(int index) {
+        return depths[index] > 0;
+    }
+
+    /**
+     * Retrieves the score of a move.
+     *
+     * @param index The index of the move.
+     * @return The score for the side to move.
+     */
+    public int getScore(int index) {
+        return scores[index];
+    }
+
+    /**
+     * Retrieves the depth a move was scored at.
+     *
+     * @param index The index of the move.
+     * @return The depth, or 0 if not yet scored.
+     */
+    public int getDepth(int index) {
+        return depths[index];
+    }
+
+    /**
+     * Retrieves the depth every move has been scored at.
+     *
+     * @return The smallest depth over all moves.
+     */
+    public int getCompletedDepth() {
+        int depth = Integer.MAX_VALUE;
+        for (int moveDepth : depths) {
+            depth = Math.min(depth, moveDepth);
+        }
+        return moves.length == 0 ? 0 : depth;
+    }
+
+    /**
+     * Checks whether any move has been scored.
+     *
+     * @return True if there is a best move.
+     */
+    public boolean hasBestMove() {
+        return best >= 0;
+    }
+
+    /**
+     * Retrieves the score of the best move.
+     *
+     * @return The best score.
+     * @throws IllegalStateException If no move has been scored.
+     */
+    public int getBestScore() {
+        if (best < 0) {
+            throw new IllegalStateException("No move has been scored yet");
+        }
+        return scores[best];
+    }
+
+    /**
+     * Retrieves the expected line of play after the best move.
+     *
+     * @return A copy of the packed moves, starting with the best move; empty if there is none.
+     */
+    public int[] getBestLine() {
+        return bestLine.clone();
+    }
+}
@@ -0,0 +1,123 @@
+package ai;
+
+/**
+ * PonderStats counts how often pondering predicted the opponent's move and how much of the
+ * computer's thinking time it saved.
+ *
+ * Description:
+ * While the human player thinks, the engine searches the position after the reply it expects.
+ * On a hit the computer answers as soon as its normal thinking time, counted from when
+ * pondering began, has run out. That is often at once. The time saved on a hit is the normal
+ * thinking time minus how long the human actually waited for the answer. A miss saves nothing,
+ * but the searched positions stay in the transposition table. Instances are not thread-safe and
+ * are meant to be used on the Event Dispatch Thread.
+ *
+ * @author Tai Zhi Xuan
+ */
+public final class PonderStats {
+    /**
+     * The number of predicted replies the opponent played.
+     */
+    private int hits;
+
+    /**
+     * The number of predicted replies the opponent did not play.
+     */
+    private int misses;
+
+    /**
+     * The total time saved by hits, in nanoseconds.
+     */
+    private long savedNanos;
+
+    /**
+     * The time saved by the last hit, in nanoseconds.
+     */
+    private long lastSavedNanos;
+
+    /**
+     * Records a ponder hit.
+     *
+     * @param thinkNanos    The normal thinking time for a move.
+     * @param responseNanos How long the opponent waited for the answer.
+     */
+    public void recordHit(long thinkNanos, long responseNanos) {
+        hits++;
+        lastSavedNanos = Math.max(0, thinkNanos - responseNanos);
+        savedNanos += lastSavedNanos;
+    }
+
+    /**
+     * Records a ponder miss.
+     */
+    public void recordMiss() {
+        misses++;
+    }
+
+    /**
+     * Removes every count.
+     */
+    public void reset() {
+        hits = 0;
+        misses = 0;
+        savedNanos = 0;
+        lastSavedNanos = 0;
+    }
+
+    /**
+     * Retrieves the number of hits.
+     *
+     * @return The hit count.
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * Retrieves the number of misses.
+     *
+     * @return The miss count.
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Computes the share of predictions that were played.
+     *
+     * @return The hit rate from 0 to 1, or 0 before the first prediction.
+     */
+    public double getHitRate() {
+        int total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Retrieves the total time saved.
+     *
+     * @return The time in nanoseconds.
+     */
+    public long getSavedNanos() {
+        return savedNanos;
+    }
+
+    /**
+     * Retrieves the time saved by the last hit.
+     *
+     * @return The time in nanoseconds, or 0 before the first hit.
+     */
+    public long getLastSavedNanos() {
+        return lastSavedNanos;
+    }
+
+    /**
+     * Returns a one-line summary, e.g. "ponder 3/5 hits (60%), saved 1.9 s last, 5.2 s total".
+     *
+     * @return The summary.
+     */
+    @Override
+    public String toString() {
+        return String.format("ponder %d/%d hits (%.0f%%), saved %.1f s last, %.1f s total",
+                hits, hits + misses, getHitRate() * 100, lastSavedNanos / 1e9, savedNanos / 1e9);
+    }
+}
@@ -0,0 +1,514 @@
+package ai;
+
+import model.Board;
+import model.Color;
+import model.Piece;
+import model.Position;
+import model.Ram;
+
+import java.util.SplittableRandom;
+
+/**
+ * SearchBoard is a compact copy of a game position that the search engine can play moves on
+ * millions of times per second.
+ *
+ * Description:
+ * The board is a byte per square, indexed like Position.getIndex (row * 5 + column). Each byte
+ * holds a piece code: the type in bits 0-2 (1 Ram, 2 Tor, 3 Xor, 4 Biz, 5 Sau, as in MoveRecord),
+ * Blue in bit 3, and one state flag in bit 4. For a Ram the flag means it is going forward. For
+ * a Tor or Xor it means the piece has already moved once since it last transformed. The board
+ * follows the same rules as Game.applyMove:
+ * <ul>
+ *   <li>capturing a Sau ends the game;</li>
+ *   <li>a Tor or Xor transforms after its own second move;</li>
+ *   <li>a Ram turns around at the far edge;</li>
+ *   <li>every Tor and Xor transforms after every second full turn.</li>
+ * </ul>
+ * Moves are ints, with the from square in bits 0-5 and the to square in bits 6-11, matching
+ * the low bits of BinaryGameCodec.packMove. Positions are kept in a stack of plies: play
+ * copies the 40 squares into the next ply and undo steps back, so undo never has to reverse a
+ * transformation. Every ply has a Zobrist hash of the squares, the side to move and the
+ * parity of the full-turn counter.
+ * A SearchBoard is not thread-safe; each search uses its own.
+ *
+ * @author Tai Zhi Xuan
+ */
+public final class SearchBoard {
+    /**
+     * The number of squares.
+     */
+    public static final int SQUARES = 40;
+
+    /**
+     * The deepest line of play the board can hold.
+     */
+    public static final int MAX_PLY = 128;
+
+    /**
+     * The type codes.
+     */
+    static final int RAM = 1, TOR = 2, XOR = 3, BIZ = 4, SAU = 5;
+
+    /**
+     * The bit marking a Blue piece.
+     */
+    static final int BLUE = 1 << 3;
+
+    /**
+     * The state flag: a Ram going forward, or a Tor or Xor that has moved once.
+     */
+    static final int FLAG = 1 << 4;
+
+    /**
+     * The knight jumps of a Biz, as row and column offsets.
+     */
+    private static final int[][] BIZ_STEPS = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+
+    /**
+     * The orthogonal directions of a Tor.
+     */
+    private static final int[][] TOR_STEPS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+
+    /**
+     * The diagonal directions of a Xor.
+     */
+    private static final int[][] XOR_STEPS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+
+    /**
+     * The one-square steps of a Sau.
+     */
+    private static final int[][] SAU_STEPS = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+
+    /**
+     * The Zobrist keys, by square and piece code.
+     */
+    private static final long[][] PIECE_KEYS = new long[SQUARES][32];
+
+    /**
+     * The Zobrist key of Blue to move.
+     */
+    private static final long BLUE_TO_MOVE_KEY;
+
+    /**
+     * The Zobrist key of an odd full-turn counter.
+     */
+    private static final long ODD_TURN_KEY;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x4B57415AL); // Fixed, so hashes are stable across runs
+        for (long[] keys : PIECE_KEYS) {
+            for (int code = 1; code < keys.length; code++) {
+                keys[code] = random.nextLong();
+            }
+        }
+        BLUE_TO_MOVE_KEY = random.nextLong();
+        ODD_TURN_KEY = random.nextLong();
+    }
+
+    /**
+     * The squares of every ply.
+     */
+    private final byte[][] squares = new byte[MAX_PLY + 1][SQUARES];
+
+    /**
+     * The hash of every ply.
+     */
+    private final long[] hashes = new long[MAX_PLY + 1];
+
+    /**
+     * Whether Blue is to move, for every ply.
+     */
+    private final boolean[] blueToMove = new boolean[MAX_PLY + 1];
+
+    /**
+     * The full-turn counter of every ply.
+     */
+    private final int[] turnCounters = new int[MAX_PLY + 1];
+
+    /**
+     * Whether a Sau was captured, ending the game, for every ply.
+     */
+    private final boolean[] gameOver = new boolean[MAX_PLY + 1];
+
+    /**
+     * The current ply.
+     */
+    private int ply;
+
+    /**
+     * Constructs an empty SearchBoard with Red to move.
+     */
+    public SearchBoard() {
+    }
+
+    /**
+     * Creates a SearchBoard from a game position.
+     *
+     * @param board         The board.
+     * @param currentPlayer The side to move.
+     * @param turnCounter   The full-turn counter, which decides when Tor and Xor transform.
+     * @return The new SearchBoard.
+     */
+    public static SearchBoard of(Board board, Color currentPlayer, int turnCounter) {
+        SearchBoard searchBoard = new SearchBoard();
+        searchBoard.set(board, currentPlayer, turnCounter);
+        return searchBoard;
+    }
+
+    /**
+     * Replaces the position with a game position and goes back to ply 0.
+     *
+     * @param board         The board.
+     * @param currentPlayer The side to move.
+     * @param turnCounter   The full-turn counter.
+     */
+    public void set(Board board, Color currentPlayer, int turnCounter) {
+        ply = 0;
+        byte[] current = squares[0];
+        for (int index = 0; index < SQUARES; index++) {
+            current[index] = (byte) code(board.getPieceAt(Position.fromIndex(index)));
+        }
+        blueToMove[0] = currentPlayer == Color.BLUE;
+        turnCounters[0] = turnCounter;
+        gameOver[0] = false;
+        hashes[0] = computeHash();
+    }
+
+    /**
+     * Copies another SearchBoard's current position into this one at ply 0.
+     *
+     * @param other The board to copy.
+     */
+    public void set(SearchBoard other) {
+        ply = 0;
+        System.arraycopy(other.squares[other.ply], 0, squares[0], 0, SQUARES);
+        blueToMove[0] = other.blueToMove[other.ply];
+        turnCounters[0] = other.turnCounters[other.ply];
+        gameOver[0] = other.gameOver[other.ply];
+        hashes[0] = other.hashes[other.ply];
+    }
+
+    /**
+     * Retrieves the piece code on a square.
+     *
+     * @param index The square index.
+     * @return The piece code, or 0 for an empty square.
+     */
+    public int getSquare(int index) {
+        return squares[ply][index];
+    }
+
+    /**
+     * Retrieves the type code of the piece on a square.
+     *
+     * @param index The square index.
+     * @return The type code from 1 to 5, or 0 for an empty square.
+     */
+    public int getType(int index) {
+        return squares[ply][index] & 0x7;
+    }
+
+    /**
+     * Checks whether Blue is to move.
+     *
+     * @return True for Blue, false for Red.
+     */
+    public boolean isBlueToMove() {
+        return blueToMove[ply];
+    }
+
+    /**
+     * Checks whether the last move captured a Sau.
+     *
+     * @return True if the game is over.
+     */
+    public boolean isGameOver() {
+        return gameOver[ply];
+    }
+
+    /**
+     * Retrieves the Zobrist hash of the current position.
+     *
+     * @return The hash.
+     */
+    public long getHash() {
+        return hashes[ply];
+    }
+
+    /**
+     * Retrieves the number of moves played since the board was set.
+     *
+     * @return The ply.
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * Writes every move of the side to move into an array: captures first, then quiet moves.
+     *
+     * @param moves        Receives the moves; 128 entries are always enough.
+     * @param capturesOnly True to skip quiet moves.
+     * @return The number of moves written.
+     */
+    public int generateMoves(int[] moves, boolean capturesOnly) {
+        byte[] current = squares[ply];
+        int side = blueToMove[ply] ? BLUE : 0;
+        int count = 0;
+        for (int pass = 0; pass < (capturesOnly ? 1 : 2); pass++) {
+            boolean captures = pass == 0;
+            for (int from = 0; from < SQUARES; from++) {
+                int code = current[from];
+                if (code == 0 || (code & BLUE) != side) {
+                    continue;
+                }
+                int row = from / 5;
+                int col = from % 5;
+                switch (code & 0x7) {
+                    case RAM: {
+                        boolean forward = (code & FLAG) != 0;
+                        int step = (side == 0) == forward ? 1 : -1; // Red goes forward down the board
+                        count = addStep(current, moves, count, from, row + step, col, side, captures);
+                        break;
+                    }
+                    case TOR:
+                        count = addSlides(current, moves, count, from, row, col, TOR_STEPS, side, captures);
+                        break;
+                    case XOR:
+                        count = addSlides(current, moves, count, from, row, col, XOR_STEPS, side, captures);
+                        break;
+                    case BIZ:
+                        for (int[] step : BIZ_STEPS) {
+                            count = addStep(current, moves, count, from, row + step[0], col + step[1], side, captures);
+                        }
+                        break;
+                    case SAU:
+                        for (int[] step : SAU_STEPS) {
+                            count = addStep(current, moves, count, from, row + step[0], col + step[1], side, captures);
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Plays a move the side to move can make, following the same rules as Game.applyMove.
+     *
+     * @param move The move, from generateMoves.
+     */
+    public void play(int move) {
+        int from = move & 0x3F;
+        int to = move >>> 6 & 0x3F;
+        byte[] previous = squares[ply];
+        byte[] next = squares[ply + 1];
+        System.arraycopy(previous, 0, next, 0, SQUARES);
+        long hash = hashes[ply];
+        boolean blue = blueToMove[ply];
+        int turnCounter = turnCounters[ply];
+        ply++;
+
+        int piece = next[from];
+        int captured = next[to];
+        hash ^= PIECE_KEYS[from][piece] ^ PIECE_KEYS[to][captured];
+        next[from] = 0;
+        if ((captured & 0x7) == SAU) { // The game ends before the piece is updated or the turn passes
+            next[to] = (byte) piece;
+            hashes[ply] = hash ^ PIECE_KEYS[to][piece];
+            blueToMove[ply] = blue;
+            turnCounters[ply] = turnCounter;
+            gameOver[ply] = true;
+            return;
+        }
+
+        int type = piece & 0x7;
+        if (type == TOR || type == XOR) {
+            piece = (piece & FLAG) != 0 ? (piece & BLUE) | (type == TOR ? XOR : TOR) : piece | FLAG; // Second move transforms
+        } else if (type == RAM) {
+            int row = to / 5;
+            boolean farEdge = blue ? row == 0 : row == 7;
+            boolean homeEdge = blue ? row == 7 : row == 0;
+            if (farEdge) {
+                piece &= ~FLAG;
+            } else if (homeEdge) {
+                piece |= FLAG;
+            }
+        }
+        next[to] = (byte) piece;
+        hash ^= PIECE_KEYS[to][piece];
+
+        blue = !blue;
+        hash ^= BLUE_TO_MOVE_KEY;
+        if (!blue) {
+            turnCounter++;
+            hash ^= ODD_TURN_KEY;
+            if (turnCounter % 2 == 0) { // Every second full turn all Tor and Xor transform
+                for (int index = 0; index < SQUARES; index++) {
+                    int code = next[index];
+                    int kind = code & 0x7;
+                    if (kind == TOR || kind == XOR) {
+                        int swapped = (code & BLUE) | (kind == TOR ? XOR : TOR);
+                        next[index] = (byte) swapped;
+                        hash ^= PIECE_KEYS[index][code] ^ PIECE_KEYS[index][swapped];
+                    }
+                }
+            }
+        }
+        hashes[ply] = hash;
+        blueToMove[ply] = blue;
+        turnCounters[ply] = turnCounter;
+        gameOver[ply] = false;
+    }
+
+    /**
+     * Takes back the last move played.
+     */
+    public void undo() {
+        ply--;
+    }
+
+    /**
+     * Creates the model Position of a move's from square.
+     *
+     * @param move The move.
+     * @return The from position.
+     */
+    public static Position from(int move) {
+        return Position.fromIndex(move & 0x3F);
+    }
+
+    /**
+     * Creates the model Position of a move's to square.
+     *
+     * @param move The move.
+     * @return The to position.
+     */
+    public static Position to(int move) {
+        return Position.fromIndex(move >>> 6 & 0x3F);
+    }
+
+    /**
+     * Packs a move.
+     *
+     * @param from The from position.
+     * @param to   The to position.
+     * @return The move.
+     */
+    public static int move(Position from, Position to) {
+        return from.getIndex() | to.getIndex() << 6;
+    }
+
+    /**
+     * Adds a one-square move if the target is on the board and not held by the side to move.
+     *
+     * @param current  The squares.
+     * @param moves    Receives the moves.
+     * @param count    The number of moves so far.
+     * @param from     The square of the moving piece.
+     * @param row      The target row.
+     * @param col      The target column.
+     * @param side     The color bit of the side to move.
+     * @param captures True to add only captures, false to add only quiet moves.
+     * @return The new move count.
+     */
+    private static int addStep(byte[] current, int[] moves, int count, int from, int row, int col,
+                               int side, boolean captures) {
+        if (row < 0 || row >= 8 || col < 0 || col >= 5) {
+            return count;
+        }
+        int to = row * 5 + col;
+        int target = current[to];
+        if (target == 0 ? !captures : (target & BLUE) != side && captures) {
+            moves[count++] = from | to << 6;
+        }
+        return count;
+    }
+
+    /**
+     * Adds the moves of a sliding piece, stopping at the first piece in each direction.
+     *
+     * @param current    The squares.
+     * @param moves      Receives the moves.
+     * @param count      The number of moves so far.
+     * @param from       The square of the moving piece.
+     * @param row        The row of the moving piece.
+     * @param col        The column of the moving piece.
+     * @param directions The directions the piece slides in.
+     * @param side       The color bit of the side to move.
+     * @param captures   True to add only captures, false to add only quiet moves.
+     * @return The new move count.
+     */
+    private static int addSlides(byte[] current, int[] moves, int count, int from, int row, int col,
+                                 int[][] directions, int side, boolean captures) {
+        for (int[] direction : directions) {
+            int r = row + direction[0];
+            int c = col + direction[1];
+            while (r >= 0 && r < 8 && c >= 0 && c < 5) {
+                int to = r * 5 + c;
+                int target = current[to];
+                if (target == 0) {
+                    if (!captures) {
+                        moves[count++] = from | to << 6;
+                    }
+                } else {
+                    if (captures && (target & BLUE) != side) {
+                        moves[count++] = from | to << 6;
+                    }
+                    break;
+                }
+                r += direction[0];
+                c += direction[1];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Computes the hash of the current position from scratch.
+     *
+     * @return The hash.
+     */
+    private long computeHash() {
+        long hash = blueToMove[ply] ? BLUE_TO_MOVE_KEY : 0;
+        if (turnCounters[ply] % 2 != 0) {
+            hash ^= ODD_TURN_KEY;
+        }
+        byte[] current = squares[ply];
+        for (int index = 0; index < SQUARES; index++) {
+            hash ^= PIECE_KEYS[index][current[index]];
+        }
+        return hash;
+    }
+
+    /**
+     * Computes the code of a model piece.
+     *
+     * @param piece The piece, or null.
+     * @return The piece code, or 0.
+     */
+    private static int code(Piece piece) {
+        if (piece == null) {
+            return 0;
+        }
+        int code;
+        switch (piece.getType()) {
+            case "Ram": code = RAM; break;
+            case "Tor": code = TOR; break;
+            case "Xor": code = XOR; break;
+            case "Biz": code = BIZ; break;
+            default: code = SAU; break;
+        }
+        boolean flag = piece instanceof Ram ? ((Ram) piece).isGoingForward()
+                : (code == TOR || code == XOR) && piece.getMoveCount() % 2 == 1;
+        if (flag) {
+            code |= FLAG;
+        }
+        if (piece.getColor() == Color.BLUE) {
+            code |= BLUE;
+        }
+        return code;
+    }
+}
@@ -0,0 +1,92 @@
+package ai;
+
+/**
+ * SearchClock decides when a search must stop, and can be changed while the search runs.
+ *
+ * Description:
+ * The clock starts when it is made, not when the search starts, so its owner can create it
+ * before handing the search to another thread. Its time limit can be set or its stop flag
+ * raised from any thread, even before the search has started, and nothing is lost. That lets
+ * a ponder search run with no time limit during the opponent's turn. If the opponent then
+ * plays the predicted move, the search is given the normal thinking time, counted from when
+ * pondering began, and keeps going.
+ *
+ * @author Tai Zhi Xuan
+ */
+public final class SearchClock {
+    /**
+     * When the clock was made, from System.nanoTime.
+     */
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * When the search must stop, from System.nanoTime.
+     */
+    private volatile long deadlineNanos;
+
+    /**
+     * Set to stop the search.
+     */
+    private volatile boolean stopped;
+
+    /**
+     * Constructs a new SearchClock.
+     *
+     * @param timeMillis How long the search may run, in milliseconds from now.
+     * @throws IllegalArgumentException If the time is negative.
+     */
+    public SearchClock(long timeMillis) {
+        setTimeLimit(timeMillis);
+    }
+
+    /**
+     * Creates a clock with no time limit, for pondering; the search runs until stopped.
+     *
+     * @return The clock.
+     */
+    public static SearchClock unlimited() {
+        SearchClock clock = new SearchClock(0);
+        clock.deadlineNanos = Long.MAX_VALUE;
+        return clock;
+    }
+
+    /**
+     * Sets how long the search may run in total, counted from when the clock was made.
+     * If that time has already passed, the search stops at its next check.
+     *
+     * @param timeMillis The time limit in milliseconds.
+     * @throws IllegalArgumentException If the time is negative.
+     */
+    public void setTimeLimit(long timeMillis) {
+        if (timeMillis < 0) {
+            throw new IllegalArgumentException("Time limit must not be negative: " + timeMillis);
+        }
+        deadlineNanos = startNanos + Math.min(timeMillis, Long.MAX_VALUE / 2_000_000L) * 1_000_000L;
+    }
+
+    /**
+     * Stops the search at its next check. Safe to call from any thread.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Checks whether the search must stop.
+     *
+     * @param nowNanos The current time, from System.nanoTime.
+     * @return True if stopped or out of time.
+     */
+    public boolean isExpired(long nowNanos) {
+        return stopped || nowNanos >= deadlineNanos;
+    }
+
+    /**
+     * Retrieves how long ago the clock was made.
+     *
+     * @return The elapsed time in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+}
@@ -0,0 +1,579 @@
+package ai;
+
+import java.util.function.Consumer;
+
+/**
+ * SearchEngine finds the best move for the side to move with an alpha-beta search.
+ *
+ * Description:
+ * The search uses iterative deepening. It searches to depth 1, then 2, and so on, until the
+ * time limit, the maximum depth, or a stop request. When it stops, it returns the best move of
+ * the deepest iteration that finished, or a better move already proven in the unfinished one.
+ * Moves are tried in this order:
+ * <ul>
+ *   <li>the best move the transposition table remembers for the position;</li>
+ *   <li>captures, most valuable victim first;</li>
+ *   <li>quiet moves.</li>
+ * </ul>
+ * At the horizon a quiescence search keeps capturing, so no exchange is cut off halfway.
+ * Capturing a Sau wins, and a faster win scores higher. The evaluation counts material and
+ * gives small bonuses for central pieces and Rams that have advanced. Every 1,024 positions
+ * the engine checks the clock, the stop flag and the thread's interrupt status, so stop() or
+ * Future.cancel(true) ends a search within a fraction of a millisecond. Progress goes to a
+ * listener after every finished iteration and about ten times a second in between. The
+ * transposition table can be shared with another engine. An engine runs one search at a
+ * time; stop may be called from any thread.
+ *
+ * @author Tai Zhi Xuan
+ */
+public final class SearchEngine {
+    /**
+     * The score of capturing a Sau at the root; a win found deeper scores one less per ply.
+     */
+    public static final int WIN_SCORE = 1_000_000;
+
+    /**
+     * Scores above this are forced wins.
+     */
+    public static final int WIN_THRESHOLD = WIN_SCORE - SearchBoard.MAX_PLY;
+
+    /**
+     * The deepest iteration the engine tries.
+     */
+    public static final int MAX_DEPTH = 64;
+
+    /**
+     * The material value of each type code, in hundredths of a Ram.
+     */
+    static final int[] PIECE_VALUES = {0, 100, 500, 450, 320, 0};
+
+    /**
+     * The bonus for a piece on each column, favoring the center of the narrow board.
+     */
+    private static final int[] COLUMN_BONUS = {0, 6, 10, 6, 0};
+
+    /**
+     * How often progress is reported between iterations, in nanoseconds.
+     */
+    private static final long REPORT_INTERVAL_NANOS = 100_000_000L;
+
+    /**
+     * The size of a move list; more than any side can ever have.
+     */
+    private static final int MAX_MOVES = 128;
+
+    /**
+     * The transposition table.
+     */
+    private final TranspositionTable table;
+
+    /**
+     * The board the search plays on.
+     */
+    private final SearchBoard board = new SearchBoard();
+
+    /**
+     * The position being searched, kept to rebuild the expected line while the search runs.
+     */
+    private final SearchBoard root = new SearchBoard();
+
+    /**
+     * The board the expected line is played out on.
+     */
+    private final SearchBoard lineBoard = new SearchBoard();
+
+    /**
+     * The move list of every ply.
+     */
+    private final int[][] moveLists = new int[SearchBoard.MAX_PLY + 1][MAX_MOVES];
+
+    /**
+     * The ordering scores of every ply's moves.
+     */
+    private final int[][] orderScores = new int[SearchBoard.MAX_PLY + 1][MAX_MOVES];
+
+    /**
+     * Set to stop the running search.
+     */
+    private volatile boolean stopRequested;
+
+    /**
+     * Whether the running search has stopped.
+     */
+    private boolean stopped;
+
+    /**
+     * The number of positions searched.
+     */
+    private long nodes;
+
+    /**
+     * When the search started, from System.nanoTime.
+     */
+    private long startNanos;
+
+    /**
+     * Decides when the running search must stop.
+     */
+    private SearchClock clock;
+
+    /**
+     * When progress was last reported, from System.nanoTime.
+     */
+    private long lastReportNanos;
+
+    /**
+     * The depth of the running iteration.
+     */
+    private int iterationDepth;
+
+    /**
+     * The best root move proven in the running iteration, or 0.
+     */
+    private int iterationBest;
+
+    /**
+     * The score of iterationBest.
+     */
+    private int iterationScore;
+
+    /**
+     * The best root move of the last finished iteration, or 0.
+     */
+    private int completedBest;
+
+    /**
+     * The score of completedBest.
+     */
+    private int completedScore;
+
+    /**
+     * Receives progress, or null.
+     */
+    private Consumer<SearchInfo> listener;
+
+    /**
+     * Constructs a new SearchEngine with its own 16 MB transposition table.
+     */
+    public SearchEngine() {
+        this(new TranspositionTable(20));
+    }
+
+    /**
+     * Constructs a new SearchEngine.
+     *
+     * @param table The transposition table; may be shared with other engines.
+     */
+    public SearchEngine(TranspositionTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Retrieves the transposition table.
+     *
+     * @return The table.
+     */
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Asks the running search to stop as soon as possible. Safe to call from any thread.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Searches a position for the best move.
+     *
+     * @param position    The position; not modified.
+     * @param maxDepth    The deepest iteration to try, from 1 to MAX_DEPTH.
+     * @param timeMillis  How long to search, in milliseconds.
+     * @param listener    Receives progress on the searching thread, or null.
+     * @return The result of the deepest iteration, with no best move if the side to move has none.
+     * @throws IllegalArgumentException If the depth or time is out of range.
+     */
+    public SearchInfo search(SearchBoard position, int maxDepth, long timeMillis, Consumer<SearchInfo> listener) {
+        return search(position, maxDepth, new SearchClock(timeMillis), listener);
+    }
+
+    /**
+     * Searches a position for the best move until a clock says to stop. The clock can be
+     * changed from another thread while the search runs, e.g. to ponder without a time limit
+     * and then give the search its normal time once the opponent has moved.
+     *
+     * @param position The position; not modified.
+     * @param maxDepth The deepest iteration to try, from 1 to MAX_DEPTH.
+     * @param clock    Decides when to stop.
+     * @param listener Receives progress on the searching thread, or null.
+     * @return The result of the deepest iteration, with no best move if the side to move has none.
+     * @throws IllegalArgumentException If the depth is out of range.
+     */
+    public SearchInfo search(SearchBoard position, int maxDepth, SearchClock clock, Consumer<SearchInfo> listener) {
+        if (maxDepth < 1 || maxDepth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Depth must be between 1 and " + MAX_DEPTH + ": " + maxDepth);
+        }
+        board.set(position);
+        root.set(position);
+        this.listener = listener;
+        stopRequested = false;
+        stopped = false;
+        nodes = 0;
+        startNanos = System.nanoTime();
+        lastReportNanos = startNanos;
+        this.clock = clock;
+        completedBest = 0;
+        completedScore = 0;
+        table.newGeneration();
+
+        int completedDepth = 0;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            iterationDepth = depth;
+            iterationBest = 0;
+            iterationScore = -WIN_SCORE;
+            search(depth, -WIN_SCORE - 1, WIN_SCORE + 1, 0);
+            if (stopped) {
+                if (iterationBest != 0) { // The table move is tried first, so this is at least as good
+                    completedBest = iterationBest;
+                    completedScore = iterationScore;
+                }
+                break;
+            }
+            completedDepth = depth;
+            completedBest = iterationBest;
+            completedScore = iterationScore;
+            if (completedBest == 0 || Math.abs(completedScore) > WIN_THRESHOLD) {
+                break; // No move, or the outcome is already forced
+            }
+            report(completedDepth, completedScore, completedBest);
+        }
+        SearchInfo result = info(completedDepth, completedScore, completedBest);
+        if (listener != null) {
+            listener.accept(result);
+        }
+        this.listener = null;
+        return result;
+    }
+
+    /**
+     * Scores one move of the side to move exactly, with a full window, for analysis. Unlike
+     * search, this does not clear an earlier stop request, so a cancelled analysis stays
+     * cancelled however many moves it has left.
+     *
+     * @param position The position; not modified.
+     * @param move     The move to score.
+     * @param depth    The depth to search, counting the move itself.
+     * @return The score for the side to move, or Integer.MIN_VALUE if the search was stopped.
+     */
+    int scoreMove(SearchBoard position, int move, int depth) {
+        board.set(position);
+        root.set(position);
+        listener = null;
+        stopped = false;
+        startNanos = System.nanoTime();
+        clock = SearchClock.unlimited();
+        iterationDepth = depth;
+        board.play(move);
+        int score = -search(depth - 1, -WIN_SCORE - 1, WIN_SCORE + 1, 1);
+        board.undo();
+        return stopped ? Integer.MIN_VALUE : score;
+    }
+
+    /**
+     * Clears a stop request before the engine is reused for a new analysis.
+     */
+    void clearStop() {
+        stopRequested = false;
+    }
+
+    /**
+     * Retrieves the number of positions searched by the last search or scoreMove call.
+     *
+     * @return The node count.
+     */
+    long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Searches a position to a depth with an alpha-beta window.
+     *
+     * @param depth The remaining depth.
+     * @param alpha The score the side to move is already sure of.
+     * @param beta  The score the opponent will not allow.
+     * @param ply   The distance from the root.
+     * @return The score for the side to move.
+     */
+    private int search(int depth, int alpha, int beta, int ply) {
+        if ((++nodes & 1023) == 0) {
+            checkStop();
+        }
+        if (stopped) {
+            return 0;
+        }
+        if (board.isGameOver()) {
+            return -(WIN_SCORE - ply); // The previous move captured this side's Sau
+        }
+        if (depth <= 0 || ply >= SearchBoard.MAX_PLY - 1) {
+            return quiesce(alpha, beta, ply);
+        }
+
+        long hash = board.getHash();
+        long entry = table.probe(hash);
+        int tableMove = 0;
+        if (entry != 0) {
+            tableMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = TranspositionTable.fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || bound == TranspositionTable.LOWER && score >= beta
+                        || bound == TranspositionTable.UPPER && score <= alpha) {
+                    return score;
+                }
+            }
+        }
+
+        int[] moves = moveLists[ply];
+        int count = board.generateMoves(moves, false);
+        if (count == 0) {
+            return 0; // The rules do not cover a side without moves; call it even
+        }
+        scoreMoves(moves, count, ply, tableMove);
+
+        int originalAlpha = alpha;
+        int bestScore = -WIN_SCORE - 1;
+        int bestMove = 0;
+        for (int index = 0; index < count; index++) {
+            int move = nextMove(moves, count, index, ply);
+            board.play(move);
+            int score = -search(depth - 1, -beta, -alpha, ply + 1);
+            board.undo();
+            if (stopped) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (ply == 0) {
+                    iterationBest = move;
+                    iterationScore = score;
+                }
+            }
+            if (score > alpha) {
+                alpha = score;
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+        }
+
+        int bound = bestScore >= beta ? TranspositionTable.LOWER
+                : bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(hash, bestMove, depth, bound, TranspositionTable.toTable(bestScore, ply));
+        return bestScore;
+    }
+
+    /**
+     * Searches only captures until the position is quiet, so the evaluation never stops in
+     * the middle of an exchange.
+     *
+     * @param alpha The score the side to move is already sure of.
+     * @param beta  The score the opponent will not allow.
+     * @param ply   The distance from the root.
+     * @return The score for the side to move.
+     */
+    private int quiesce(int alpha, int beta, int ply) {
+        if ((++nodes & 1023) == 0) {
+            checkStop();
+        }
+        if (stopped) {
+            return 0;
+        }
+        if (board.isGameOver()) {
+            return -(WIN_SCORE - ply);
+        }
+        int standPat = evaluate(board);
+        if (standPat >= beta || ply >= SearchBoard.MAX_PLY - 1) {
+            return standPat;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+        int[] moves = moveLists[ply];
+        int count = board.generateMoves(moves, true);
+        scoreMoves(moves, count, ply, 0);
+        for (int index = 0; index < count; index++) {
+            int move = nextMove(moves, count, index, ply);
+            board.play(move);
+            int score = -quiesce(-beta, -alpha, ply + 1);
+            board.undo();
+            if (stopped) {
+                return 0;
+            }
+            if (score > alpha) {
+                alpha = score;
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * Evaluates a quiet position for the side to move: material, central columns, and Rams
+     * that have advanced toward the far edge.
+     *
+     * @param board The board.
+     * @return The score for the side to move.
+     */
+    static int evaluate(SearchBoard board) {
+        int score = 0;
+        for (int index = 0; index < SearchBoard.SQUARES; index++) {
+            int code = board.getSquare(index);
+            if (code == 0) {
+                continue;
+            }
+            int type = code & 0x7;
+            int value = PIECE_VALUES[type] + COLUMN_BONUS[index % 5];
+            if (type == SearchBoard.RAM) {
+                int row = index / 5;
+                value += 4 * ((code & SearchBoard.BLUE) != 0 ? 7 - row : row);
+            }
+            score += (code & SearchBoard.BLUE) != 0 ? value : -value;
+        }
+        return board.isBlueToMove() ? score : -score;
+    }
+
+    /**
+     * Gives every move an ordering score: the table move first, then captures of valuable
+     * pieces by cheap ones, then quiet moves.
+     *
+     * @param moves     The moves.
+     * @param count     The number of moves.
+     * @param ply       The ply whose score array to fill.
+     * @param tableMove The move remembered by the table, or 0.
+     */
+    private void scoreMoves(int[] moves, int count, int ply, int tableMove) {
+        int[] scores = orderScores[ply];
+        for (int index = 0; index < count; index++) {
+            int move = moves[index];
+            int victim = board.getType(move >>> 6 & 0x3F);
+            if (move == tableMove) {
+                scores[index] = Integer.MAX_VALUE;
+            } else if (victim != 0) {
+                int victimValue = victim == SearchBoard.SAU ? 10_000 : PIECE_VALUES[victim];
+                scores[index] = 1_000_000 + victimValue * 16 - PIECE_VALUES[board.getType(move & 0x3F)] / 16;
+            } else {
+                scores[index] = 0;
+            }
+        }
+    }
+
+    /**
+     * Moves the best remaining move to a position in the list and returns it (selection sort,
+     * so a cutoff early in the list skips sorting the rest).
+     *
+     * @param moves The moves.
+     * @param count The number of moves.
+     * @param index The position to fill.
+     * @param ply   The ply of the list.
+     * @return The move now at the position.
+     */
+    private int nextMove(int[] moves, int count, int index, int ply) {
+        int[] scores = orderScores[ply];
+        int best = index;
+        for (int other = index + 1; other < count; other++) {
+            if (scores[other] > scores[best]) {
+                best = other;
+            }
+        }
+        if (best != index) {
+            int move = moves[best];
+            moves[best] = moves[index];
+            moves[index] = move;
+            int score = scores[best];
+            scores[best] = scores[index];
+            scores[index] = score;
+        }
+        return moves[index];
+    }
+
+    /**
+     * Stops the search when asked, interrupted or out of time, and reports progress when due.
+     */
+    private void checkStop() {
+        long now = System.nanoTime();
+        if (stopRequested || clock.isExpired(now) || Thread.currentThread().isInterrupted()) {
+            stopped = iterationDepth > 1; // Depth 1 always finishes, so there is always a move
+            return;
+        }
+        if (listener != null && now - lastReportNanos >= REPORT_INTERVAL_NANOS) {
+            int best = iterationBest != 0 ? iterationBest : completedBest;
+            report(iterationDepth, iterationBest != 0 ? iterationScore : completedScore, best);
+        }
+    }
+
+    /**
+     * Sends progress to the listener.
+     *
+     * @param depth The depth to report.
+     * @param score The score of the best move.
+     * @param best  The best move, or 0.
+     */
+    private void report(int depth, int score, int best) {
+        if (listener != null) {
+            lastReportNanos = System.nanoTime();
+            listener.accept(info(depth, score, best));
+        }
+    }
+
+    /**
+     * Builds a snapshot of the search.
+     *
+     * @param depth The depth to report.
+     * @param score The score of the best move.
+     * @param best  The best move, or 0.
+     * @return The snapshot.
+     */
+    private SearchInfo info(int depth, int score, int best) {
+        return new SearchInfo(depth, score, nodes, System.nanoTime() - startNanos,
+                principalVariation(root, best, Math.max(depth, 1)));
+    }
+
+    /**
+     * Follows the transposition table from a first move to get the expected line of play.
+     * Each move is checked against the legal moves, so a stale or colliding entry ends the line.
+     *
+     * @param position  The position the line starts from; not modified.
+     * @param first     The first move, or 0 for an empty line.
+     * @param maxLength The longest line to return.
+     * @return The line, starting with the first move.
+     */
+    int[] principalVariation(SearchBoard position, int first, int maxLength) {
+        int[] line = new int[maxLength];
+        int length = 0;
+        int[] legal = new int[MAX_MOVES];
+        int move = first;
+        lineBoard.set(position);
+        while (move != 0 && length < line.length && !lineBoard.isGameOver()) {
+            int count = lineBoard.generateMoves(legal, false);
+            boolean found = false;
+            for (int index = 0; index < count && !found; index++) {
+                found = legal[index] == move;
+            }
+            if (!found) {
+                break;
+            }
+            line[length++] = move;
+            lineBoard.play(move);
+            long entry = table.probe(lineBoard.getHash());
+            move = entry != 0 ? TranspositionTable.move(entry) : 0;
+        }
+        int[] variation = new int[length];
+        System.arraycopy(line, 0, variation, 0, length);
+        return variation;
+    }
+}
@@ -0,0 +1,174 @@
+package ai;
+
+import model.Position;
+
+/**
+ * SearchInfo is a snapshot of a search: how deep it got, how fast it runs and which move it
+ * currently prefers.
+ *
+ * Description:
+ * The engine reports one while it searches, to show progress, and returns a final one as its
+ * result. The principal variation is the line of best play the engine expects, starting with
+ * the best move. Moves are packed as in SearchBoard. Scores are in hundredths of a Ram from
+ * the point of view of the side to move, and any score above SearchEngine.WIN_THRESHOLD is a
+ * forced capture of a Sau. Instances are immutable and safe to hand to another thread.
+ *
+ * @author Tai Zhi Xuan
+ */
+public final class SearchInfo {
+    /**
+     * The depth of the iteration, or of the last one completed for a final result.
+     */
+    private final int depth;
+
+    /**
+     * The score of the best move.
+     */
+    private final int score;
+
+    /**
+     * The number of positions searched.
+     */
+    private final long nodes;
+
+    /**
+     * The time spent searching, in nanoseconds.
+     */
+    private final long elapsedNanos;
+
+    /**
+     * The expected line of play, starting with the best move; empty if there is no move.
+     */
+    private final int[] principalVariation;
+
+    /**
+     * Constructs a new SearchInfo.
+     *
+     * @param depth              The depth reached.
+     * @param score              The score of the best move.
+     * @param nodes              The number of positions searched.
+     * @param elapsedNanos       The time spent searching.
+     * @param principalVariation The expected line of play; not copied.
+     */
+    SearchInfo(int depth, int score, long nodes, long elapsedNanos, int[] principalVariation) {
+        this.depth = depth;
+        this.score = score;
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+        this.principalVariation = principalVariation;
+    }
+
+    /**
+     * Retrieves the depth reached.
+     *
+     * @return The depth in plies.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Retrieves the score of the best move.
+     *
+     * @return The score for the side to move.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Retrieves the number of positions searched.
+     *
+     * @return The node count.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Retrieves the time spent searching.
+     *
+     * @return The time in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Computes the search speed.
+     *
+     * @return The positions searched per second.
+     */
+    public long getNodesPerSecond() {
+        return elapsedNanos > 0 ? (long) (nodes * 1e9 / elapsedNanos) : 0;
+    }
+
+    /**
+     * Checks whether the search found a move.
+     *
+     * @return False if the side to move has no move.
+     */
+    public boolean hasBestMove() {
+        return principalVariation.length > 0;
+    }
+
+    /**
+     * Retrieves the best move.
+     *
+     * @return The packed move.
+     * @throws IllegalStateException If there is no move.
+     */
+    public int getBestMove() {
+        if (!hasBestMove()) {
+            throw new IllegalStateException("The search found no move");
+        }
+        return principalVariation[0];
+    }
+
+    /**
+     * Retrieves the square the best move starts from.
+     *
+     * @return The from position.
+     */
+    public Position getBestFrom() {
+        return SearchBoard.from(getBestMove());
+    }
+
+    /**
+     * Retrieves the square the best move goes to.
+     *
+     * @return The to position.
+     */
+    public Position getBestTo() {
+        return SearchBoard.to(getBestMove());
+    }
+
+    /**
+     * Retrieves the expected line of play.
+     *
+     * @return A copy of the packed moves, starting with the best move.
+     */
+    public int[] getPrincipalVariation() {
+        return principalVariation.clone();
+    }
+
+    /**
+     * Checks whether the score is a forced win or loss.
+     *
+     * @return True if a Sau capture is forced.
+     */
+    public boolean isWinScore() {
+        return Math.abs(score) > SearchEngine.WIN_THRESHOLD;
+    }
+
+    /**
+     * Returns a one-line summary, e.g. "depth 7, score 120, 850000 nodes/s, best (6, 1) -> (4, 2)".
+     *
+     * @return The summary.
+     */
+    @Override
+    public String toString() {
+        return "depth " + depth + ", score " + score + ", " + getNodesPerSecond() + " nodes/s"
+                + (hasBestMove() ? ", best " + getBestFrom() + " -> " + getBestTo() : ", no move");
+    }
+}
@@ -0,0 +1,217 @@
+package ai;
+
+import java.util.Arrays;
+
+/**
+ * TranspositionTable remembers what the search learned about positions it has already seen.
+ *
+ * Description:
+ * The table is a fixed-size hash table of two parallel long arrays, indexed by the low bits
+ * of a position's Zobrist hash. Each slot holds one packed entry: the best move, the search
+ * depth, whether the score is exact or only a bound, the search generation, and the score.
+ * The key array stores the hash XORed with the entry. A probe accepts a slot only if the two
+ * XOR back to its hash, so a slot torn by two threads writing at once reads as a miss instead
+ * of a wrong entry, with no locking. An entry is replaced by a deeper one, or by any entry
+ * once a newer search generation has started. Win scores are stored relative to the node
+ * and not the root, so they stay correct when reached by a different path.
+ *
+ * @author Tai Zhi Xuan
+ */
+public final class TranspositionTable {
+    /**
+     * The score is exact.
+     */
+    public static final int EXACT = 0;
+
+    /**
+     * The score is a lower bound (the search failed high).
+     */
+    public static final int LOWER = 1;
+
+    /**
+     * The score is an upper bound (the search failed low).
+     */
+    public static final int UPPER = 2;
+
+    /**
+     * Marks a slot as used, so an all-zero slot is always a miss.
+     */
+    private static final long USED = 1L << 22;
+
+    /**
+     * The keys, each the hash XORed with its entry.
+     */
+    private final long[] keys;
+
+    /**
+     * The packed entries.
+     */
+    private final long[] entries;
+
+    /**
+     * The mask selecting a slot from a hash.
+     */
+    private final int mask;
+
+    /**
+     * The generation of the current search, from 0 to 255.
+     */
+    private volatile int generation;
+
+    /**
+     * Constructs a new TranspositionTable.
+     *
+     * @param sizeBits The table holds 2^sizeBits entries of 16 bytes each, from 10 to 26.
+     * @throws IllegalArgumentException If the size is out of range.
+     */
+    public TranspositionTable(int sizeBits) {
+        if (sizeBits < 10 || sizeBits > 26) {
+            throw new IllegalArgumentException("Table size must be 2^10 to 2^26 entries: 2^" + sizeBits);
+        }
+        keys = new long[1 << sizeBits];
+        entries = new long[1 << sizeBits];
+        mask = (1 << sizeBits) - 1;
+    }
+
+    /**
+     * Starts a new search generation, making older entries the first to be replaced.
+     */
+    public void newGeneration() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param hash The Zobrist hash of the position.
+     * @return The packed entry, or 0 if the position is not in the table.
+     */
+    public long probe(long hash) {
+        int slot = (int) hash & mask;
+        long entry = entries[slot];
+        return entry != 0 && (keys[slot] ^ entry) == hash ? entry : 0;
+    }
+
+    /**
+     * Stores what the search found about a position.
+     *
+     * @param hash  The Zobrist hash of the position.
+     * @param move  The best move found, or 0.
+     * @param depth The depth searched, from 0 to 255.
+     * @param bound EXACT, LOWER or UPPER.
+     * @param score The score, already adjusted with toTable for win scores.
+     */
+    public void store(long hash, int move, int depth, int bound, int score) {
+        int slot = (int) hash & mask;
+        long old = entries[slot];
+        int current = generation;
+        if (old != 0 && (keys[slot] ^ old) != hash
+                && generation(old) == current && depth(old) > depth) {
+            return; // Keep the deeper entry of this search
+        }
+        long entry = (move & 0xFFFL)
+                | (long) Math.min(depth, 255) << 12
+                | (long) bound << 20
+                | USED
+                | (long) current << 23
+                | (long) score << 32;
+        entries[slot] = entry;
+        keys[slot] = hash ^ entry;
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(entries, 0);
+    }
+
+    /**
+     * Retrieves the number of entries the table can hold.
+     *
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return entries.length;
+    }
+
+    /**
+     * Retrieves the best move of an entry.
+     *
+     * @param entry The packed entry.
+     * @return The move, or 0 if none was stored.
+     */
+    public static int move(long entry) {
+        return (int) (entry & 0xFFF);
+    }
+
+    /**
+     * Retrieves the depth of an entry.
+     *
+     * @param entry The packed entry.
+     * @return The depth searched.
+     */
+    public static int depth(long entry) {
+        return (int) (entry >>> 12 & 0xFF);
+    }
+
+    /**
+     * Retrieves the bound type of an entry.
+     *
+     * @param entry The packed entry.
+     * @return EXACT, LOWER or UPPER.
+     */
+    public static int bound(long entry) {
+        return (int) (entry >>> 20 & 0x3);
+    }
+
+    /**
+     * Retrieves the score of an entry, as stored.
+     *
+     * @param entry The packed entry.
+     * @return The score; pass it through fromTable before use.
+     */
+    public static int score(long entry) {
+        return (int) (entry >> 32);
+    }
+
+    /**
+     * Converts a score at some ply into the form stored in the table, so a win is counted
+     * from the stored position rather than the root.
+     *
+     * @param score The score seen by the search.
+     * @param ply   The ply of the position.
+     * @return The score to store.
+     */
+    public static int toTable(int score, int ply) {
+        if (score > SearchEngine.WIN_THRESHOLD) {
+            return score + ply;
+        }
+        return score < -SearchEngine.WIN_THRESHOLD ? score - ply : score;
+    }
+
+    /**
+     * Converts a stored score back into a score at some ply.
+     *
+     * @param score The stored score.
+     * @param ply   The ply of the position.
+     * @return The score seen by the search.
+     */
+    public static int fromTable(int score, int ply) {
+        if (score > SearchEngine.WIN_THRESHOLD) {
+            return score - ply;
+        }
+        return score < -SearchEngine.WIN_THRESHOLD ? score + ply : score;
+    }
+
+    /**
+     * Retrieves the search generation of an entry.
+     *
+     * @param entry The packed entry.
+     * @return The generation.
+     */
+    private static int generation(long entry) {
+        return (int) (entry >>> 23 & 0xFF);
+    }
+}
@@ -0,0 +1,124 @@
+package benchmark;
+
+import model.Board;
+import model.Game;
+import model.GameArchive;
+import model.GameState;
+import model.Move;
+import model.Piece;
+import model.Position;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * GameArchiveBenchmark measures writing, looking up and scanning a GameArchive.
+ *
+ * Description:
+ * A few random games are played and archived over and over under different IDs until the
+ * archive holds the requested number of games. The benchmark then times random lookups by ID
+ * and a full sequential scan that sums every move, and reports the bytes the scanning thread
+ * allocated, which should stay flat no matter how many games are scanned.
+ *
+ * Usage: java -cp out benchmark.GameArchiveBenchmark [games] [archive file]
+ *
+ * @author Tai Zhi Xuan
+ */
+public class GameArchiveBenchmark {
+    /**
+     * The number of distinct random games to play.
+     */
+    private static final int DISTINCT_GAMES = 64;
+
+    /**
+     * Writes the archive, then runs the lookup and scan passes and prints the results.
+     *
+     * @param args Optional number of games and archive file.
+     * @throws IOException If the archive cannot be written or read.
+     */
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        Path file = args.length > 1 ? Path.of(args[1]) : Files.createTempFile("kwazam", ".kwza");
+        Files.deleteIfExists(file);
+
+        List<GameState> samples = new ArrayList<>();
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < DISTINCT_GAMES; i++) {
+            samples.add(playRandomGame(random));
+        }
+
+        long start = System.nanoTime();
+        try (GameArchive.Writer writer = GameArchive.openWriter(file)) {
+            for (int id = 0; id < games; id++) {
+                writer.add(id, samples.get(id % DISTINCT_GAMES));
+            }
+        }
+        long writeNanos = System.nanoTime() - start;
+
+        try (GameArchive.Reader reader = GameArchive.openReader(file)) {
+            int lookups = Math.min(games, 100_000);
+            long checksum = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                checksum += reader.readMoves(random.nextInt(games)).size();
+            }
+            long lookupNanos = System.nanoTime() - start;
+
+            long[] sum = new long[1];
+            reader.forEach(game -> sum[0] += game.getMoveCount()); // Warm-up
+            com.sun.management.ThreadMXBean threads =
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+            start = System.nanoTime();
+            reader.forEach(game -> {
+                for (int i = 0; i < game.getMoveCount(); i++) {
+                    sum[0] += game.getPackedMove(i);
+                }
+            });
+            long scanNanos = System.nanoTime() - start;
+            long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+
+            System.out.printf("Games archived:       %d (%d KB)%n", reader.getGameCount(), Files.size(file) / 1024);
+            System.out.printf("Write:                %.1f ms%n", writeNanos / 1e6);
+            System.out.printf("Nanos per lookup:     %.0f (checksum %d)%n", (double) lookupNanos / lookups, checksum);
+            System.out.printf("Nanos per game, scan: %.0f%n", (double) scanNanos / games);
+            System.out.printf("Bytes allocated, scan: %d%n", bytes);
+        }
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Plays a game of random legal moves.
+     *
+     * @param random The random source.
+     * @return The final state with its move history.
+     */
+    static GameState playRandomGame(SplittableRandom random) {
+        Game game = new Game(new Board());
+        game.setConsoleOutput(false);
+        List<Move> history = new ArrayList<>();
+        for (int turn = 0; turn < 80 && !game.isGameOver(); turn++) {
+            List<Piece> pieces = game.getBoard().getPieces();
+            Piece piece = pieces.get(random.nextInt(pieces.size()));
+            if (piece.getColor() != game.getCurrentPlayer()) {
+                continue;
+            }
+            List<Position> targets = piece.getValidMoves(game.getBoard());
+            if (targets.isEmpty()) {
+                continue;
+            }
+            Position from = piece.getPosition();
+            Position to = targets.get(random.nextInt(targets.size()));
+            String player = game.getCurrentPlayer().name();
+            if (game.movePiece(from, to)) {
+                history.add(new Move(player, piece.getType(), from, to));
+            }
+        }
+        return new GameState(game.getBoard(), game.getCurrentPlayer(), game.getTurnCounter(), history);
+    }
+}
@@ -0,0 +1,110 @@
+package benchmark;
+
+import model.Board;
+import model.Game;
+import model.Piece;
+import model.Position;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * MoveAllocationBenchmark measures how many bytes the model allocates per executed move.
+ *
+ * Description:
+ * Each iteration generates every legal move for the side to move (as a player or engine
+ * would) and then plays one of them through Game.movePiece. Moves are chosen with a fixed
+ * linear congruential sequence so every run plays the same games. Allocation is read from
+ * the HotSpot per-thread allocation counter, so the benchmark needs no external profiler.
+ *
+ * Usage: java -cp out benchmark.MoveAllocationBenchmark [moves]
+ *
+ * @author Tai Zhi Xuan
+ */
+public class MoveAllocationBenchmark {
+    /**
+     * The default number of measured moves.
+     */
+    private static final int DEFAULT_MOVES = 200_000;
+
+    /**
+     * Runs a warm-up pass followed by a measured pass and prints the bytes allocated per move.
+     *
+     * @param args Optional number of moves to measure.
+     */
+    public static void main(String[] args) {
+        int moves = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_MOVES;
+
+        // Game prints to the console on every transformation; keep that out of the measurement
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        play(moves); // Warm-up so the JIT has compiled the hot paths
+
+        long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        int played = play(moves);
+        long elapsed = System.nanoTime() - start;
+        long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+
+        System.setOut(console);
+        System.out.printf("Moves played:     %d%n", played);
+        System.out.printf("Bytes per move:   %.1f%n", (double) bytes / played);
+        System.out.printf("Nanos per move:   %.1f%n", (double) elapsed / played);
+    }
+
+    /**
+     * Plays the requested number of moves, starting a new game whenever one ends.
+     *
+     * @param moves The number of moves to play.
+     * @return The number of moves actually played.
+     */
+    private static int play(int moves) {
+        Game game = new Game(new Board());
+        int seed = 12345;
+        int played = 0;
+
+        while (played < moves) {
+            Board board = game.getBoard();
+            Position chosenFrom = null;
+            Position chosenTo = null;
+            int candidates = 0;
+            seed = seed * 1103515245 + 12345;
+
+            for (int row = 0; row < board.getRows(); row++) {
+                for (int col = 0; col < board.getColumns(); col++) {
+                    Position from = Position.of(row, col);
+                    Piece piece = board.getPieceAt(from);
+                    if (piece == null || piece.getColor() != game.getCurrentPlayer()) {
+                        continue;
+                    }
+                    List<Position> targets = piece.getValidMoves(board);
+                    for (Position to : targets) {
+                        // Reservoir-style pick keeps the choice uniform without storing the moves
+                        candidates++;
+                        if (((seed >>> 8) % candidates) == 0) {
+                            chosenFrom = from;
+                            chosenTo = to;
+                        }
+                    }
+                }
+            }
+
+            if (chosenFrom == null || game.isGameOver()) {
+                game = new Game(new Board());
+                continue;
+            }
+            game.movePiece(chosenFrom, chosenTo);
+            played++;
+            if (game.isGameOver()) {
+                game = new Game(new Board());
+            }
+        }
+        return played;
+    }
+}
@@ -0,0 +1,96 @@
+package benchmark;
+
+import model.MoveRingBuffer;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MoveJournalBenchmark measures the cost of publishing moves to a MoveRingBuffer.
+ *
+ * Description:
+ * One thread publishes records while two Readers follow on their own threads: a "persister"
+ * and a "broadcaster" placed behind it, the way a server would chain them. The benchmark
+ * reports the publishing cost and the bytes the publishing thread allocated, which should be
+ * zero, and checks that both Readers saw their records in order. The publisher never waits,
+ * so a Reader that falls a whole ring behind is overrun; the records it missed are reported.
+ *
+ * Usage: java -cp out benchmark.MoveJournalBenchmark [records] [capacity]
+ *
+ * @author Tai Zhi Xuan
+ */
+public class MoveJournalBenchmark {
+    /**
+     * Runs a warm-up pass followed by a measured pass and prints the results.
+     *
+     * @param args Optional number of records and ring capacity.
+     * @throws InterruptedException If interrupted while waiting for the Readers.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int capacity = args.length > 1 ? Integer.parseInt(args[1]) : 1024;
+
+        run(records / 10, capacity, false); // Warm-up
+        run(records, capacity, true);
+    }
+
+    /**
+     * Publishes records through a ring with two chained Readers.
+     *
+     * @param records  The number of records to publish.
+     * @param capacity The ring capacity.
+     * @param report   Whether to print the results.
+     * @throws InterruptedException If interrupted while waiting for the Readers.
+     */
+    private static void run(int records, int capacity, boolean report) throws InterruptedException {
+        MoveRingBuffer ring = new MoveRingBuffer(capacity);
+        MoveRingBuffer.Reader persister = ring.newReader();
+        MoveRingBuffer.Reader broadcaster = ring.newReader(persister);
+        AtomicLong persisted = new AtomicLong();
+        AtomicLong broadcast = new AtomicLong();
+        AtomicLong outOfOrder = new AtomicLong();
+
+        Thread persisterThread = new Thread(() -> persister.process((sequence, record) -> {
+            if (record != sequence) {
+                outOfOrder.incrementAndGet();
+            }
+            persisted.lazySet(sequence + 1);
+        }), "persister");
+        Thread broadcasterThread = new Thread(() -> broadcaster.process((sequence, record) -> {
+            if (sequence >= persisted.get()) {
+                outOfOrder.incrementAndGet(); // Overtook the persister
+            }
+            broadcast.lazySet(sequence + 1);
+        }), "broadcaster");
+        persisterThread.start();
+        broadcasterThread.start();
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (long i = 0; i < records; i++) {
+            ring.publish(i); // The record is its own sequence, so the Readers can check the order
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+
+        while (broadcaster.getSequence() < records - 1) {
+            Thread.onSpinWait(); // Missed records are skipped, so wait on the sequence, not the count
+        }
+        persister.close();
+        broadcaster.close();
+        persisterThread.join();
+        broadcasterThread.join();
+
+        if (report) {
+            System.out.printf("Records published:    %d (ring of %d)%n", records, capacity);
+            System.out.printf("Nanos per publish:    %.1f%n", (double) elapsed / records);
+            System.out.printf("Bytes allocated:      %d%n", bytes);
+            System.out.printf("Persisted/broadcast:  %d/%d, out of order: %d%n",
+                    persisted.get(), broadcast.get(), outOfOrder.get());
+            System.out.printf("Missed by overrun:    %d/%d%n",
+                    persister.getMissedRecords(), broadcaster.getMissedRecords());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package benchmark;
+
+import model.GameArchive;
+import model.GameSaver;
+import model.GameState;
+import model.GameVerifier;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+/**
+ * ReplayVerifyBenchmark measures how fast saved games can be checked against their move history.
+ *
+ * Description:
+ * Random games are saved to a temporary directory, alternating between the text and the
+ * binary format, and verified in parallel with GameVerifier.verifyFiles. The same games are
+ * then archived and verified straight from the archive on one thread, reporting the bytes
+ * that thread allocated per game. Every save is consistent, so no failures are expected.
+ *
+ * Usage: java -cp out benchmark.ReplayVerifyBenchmark [files] [threads]
+ *
+ * @author Tai Zhi Xuan
+ */
+public class ReplayVerifyBenchmark {
+    /**
+     * The number of distinct random games to play.
+     */
+    private static final int DISTINCT_GAMES = 64;
+
+    /**
+     * Writes the saves, runs both verification passes and prints the results.
+     *
+     * @param args Optional number of save files and threads.
+     * @throws IOException          If the saves cannot be written.
+     * @throws InterruptedException If interrupted while verifying.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int files = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        List<GameState> samples = new ArrayList<>();
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < DISTINCT_GAMES; i++) {
+            samples.add(GameArchiveBenchmark.playRandomGame(random));
+        }
+
+        Path directory = Files.createTempDirectory("kwazam-verify");
+        List<Path> saves = new ArrayList<>();
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // GameSaver reports every save
+        try {
+            for (int i = 0; i < files; i++) {
+                Path save = directory.resolve("game-" + i + (i % 2 == 0 ? ".txt" : ".kwz"));
+                if (i % 2 == 0) {
+                    GameSaver.saveGameAsText(samples.get(i % DISTINCT_GAMES), save.toString());
+                } else {
+                    GameSaver.saveGameAsBinary(samples.get(i % DISTINCT_GAMES), save.toString());
+                }
+                saves.add(save);
+            }
+        } finally {
+            System.setOut(console);
+        }
+
+        GameVerifier.verifyFiles(saves.subList(0, Math.min(files, 1000)), threads); // Warm-up
+        long start = System.nanoTime();
+        Map<Path, String> failures = GameVerifier.verifyFiles(saves, threads);
+        long fileNanos = System.nanoTime() - start;
+
+        Path archive = directory.resolve("games.kwza");
+        try (GameArchive.Writer writer = GameArchive.openWriter(archive)) {
+            for (int id = 0; id < files; id++) {
+                writer.add(id, samples.get(id % DISTINCT_GAMES));
+            }
+        }
+        long archiveFailures;
+        long archiveNanos;
+        long bytes;
+        try (GameArchive.Reader reader = GameArchive.openReader(archive)) {
+            GameVerifier verifier = new GameVerifier();
+            long[] failed = new long[1];
+            GameArchive.Visitor visitor = game -> {
+                if (verifier.verify(game) != null) {
+                    failed[0]++;
+                }
+            };
+            reader.forEach(visitor); // Warm-up
+            failed[0] = 0;
+            com.sun.management.ThreadMXBean mxBean =
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long bytesBefore = mxBean.getCurrentThreadAllocatedBytes();
+            start = System.nanoTime();
+            reader.forEach(visitor);
+            archiveNanos = System.nanoTime() - start;
+            bytes = mxBean.getCurrentThreadAllocatedBytes() - bytesBefore;
+            archiveFailures = failed[0];
+        }
+
+        System.out.printf("Save files verified:   %d on %d threads, %d failed%n", files, threads, failures.size());
+        System.out.printf("Files per minute:      %.0f%n", files * 60e9 / fileNanos);
+        System.out.printf("Archived verified:     %d, %d failed%n", files, archiveFailures);
+        System.out.printf("Archived per minute:   %.0f (one thread)%n", files * 60e9 / archiveNanos);
+        System.out.printf("Bytes per game:        %.0f%n", (double) bytes / files);
+        failures.entrySet().stream().limit(5).forEach(failure ->
+                System.out.println("  " + failure.getKey().getFileName() + ": " + failure.getValue()));
+
+        try (Stream<Path> leftovers = Files.walk(directory)) {
+            for (Path path : leftovers.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
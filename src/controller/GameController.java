@@ -1,11 +1,23 @@
 package controller;
 
+import ai.AnalysisService;
+import ai.AnalysisSnapshot;
+import ai.PonderStats;
+import ai.SearchBoard;
+import ai.SearchClock;
+import ai.SearchEngine;
+import ai.SearchInfo;
 import model.*;
 import view.*;
+import javax.swing.SwingUtilities;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * GameController acts as the Controller in the MVC pattern.
@@ -13,6 +25,24 @@ import java.util.List;
  *
  * Part of Observer Design Pattern: Acts as an observer to the Game model.
  *
+ * In a game against the computer, the SearchEngine runs on a single background thread, so the
+ * Event Dispatch Thread never waits for it. Its progress and its chosen move are handed back to
+ * the Event Dispatch Thread, and the move is played there like a human move. Every search
+ * has a generation number. A reset, a load or leaving the game cancels the search and bumps
+ * the generation, so a result that arrives late is ignored.
+ *
+ * During the human player's turn the engine ponders: it searches the position after the
+ * reply it expects, on the same thread and with the same transposition table. If the human
+ * plays that reply, the ponder search becomes the computer's search. It gets the normal
+ * thinking time counted from when pondering began, so after a long human turn the answer
+ * comes at once. Any other move stops pondering and starts a normal search, which still
+ * finds the pondered positions in the table. Hits, misses and the time saved are kept in
+ * PonderStats.
+ *
+ * In analysis mode an AnalysisService scores every move of the side to move on a pool of
+ * background threads. It is restarted with a copy of the position after each change to the
+ * board, and the view polls its snapshots instead of being called for every new score.
+ *
  * @author Tai Zhi Xuan, Tiffany Jong Shu Ting, Joyce Ong Pay Teng
  */
 public class GameController implements GameObserver {
@@ -25,6 +55,78 @@ public class GameController implements GameObserver {
 
     private final BoardView view; // Reference to the view
 
+    /**
+     * How long the computer thinks about a move, in milliseconds.
+     */
+    private static final long COMPUTER_THINK_MILLIS = 2000;
+
+    /**
+     * The color the computer plays, or null when two people play.
+     */
+    private Color computerColor;
+
+    /**
+     * The engine that picks the computer's moves; its table is kept between moves. Created
+     * when the computer or the analysis first needs it, so games between two people never
+     * allocate its transposition table.
+     */
+    private SearchEngine searchEngine;
+
+    /**
+     * The thread the engine searches on; created with the first search.
+     */
+    private ExecutorService searchExecutor;
+
+    /**
+     * The running search, or null.
+     */
+    private Future<?> search;
+
+    /**
+     * Incremented whenever a search starts or is cancelled; results of older searches are ignored.
+     */
+    private int searchGeneration;
+
+    /**
+     * The running or finished ponder search, or null when not pondering.
+     */
+    private Future<?> ponder;
+
+    /**
+     * The clock of the ponder search; given a time limit on a ponder hit.
+     */
+    private SearchClock ponderClock;
+
+    /**
+     * The hash of the position being pondered, after the expected human reply.
+     */
+    private long ponderHash;
+
+    /**
+     * The result of a ponder search that finished before the human moved, or null.
+     */
+    private SearchInfo ponderResult;
+
+    /**
+     * When the human played the expected reply, from System.nanoTime, or 0 if not yet.
+     */
+    private long ponderHitNanos;
+
+    /**
+     * How often pondering predicted the human's move and the time it saved.
+     */
+    private final PonderStats ponderStats = new PonderStats();
+
+    /**
+     * Scores the moves of the side to move in analysis mode; created when first enabled.
+     */
+    private AnalysisService analysisService;
+
+    /**
+     * Whether analysis mode is on.
+     */
+    private boolean analysisEnabled;
+
     /**
      * Constructor for GameController.
      *
@@ -34,7 +136,7 @@ public class GameController implements GameObserver {
     public GameController(Board board) {
         this.game = new Game(board);
         this.view = new GameScreen(this); // Create the view, passing the controller
-        this.game.addObserver(this);
+        this.game.addObserver(this, SwingUtilities::invokeLater); // Updates arrive on the EDT, one per change
     }
 
     /**
@@ -127,6 +229,10 @@ public class GameController implements GameObserver {
      * @author Tai Zhi Xuan, Tiffany Jong Shu Ting, Joyce Ong Pay Teng
      */
     public void handleTileClick(Position position, BoardView view) {
+        if (isComputerTurn()) {
+            System.out.println("GUI: Wait for the computer to move.");
+            return;
+        }
         int clickedRow = position.getRow();
         int clickedCol = position.getColumn();
         boolean isRed = getCurrentPlayer().equals("RED");
@@ -192,20 +298,22 @@ public class GameController implements GameObserver {
                             displayClickedRow, displayClickedCol
                     );
 
-                    view.clearHighlights();
-                    view.refreshBoard();
+                    selectedPiece = null;
+                    view.refreshBoard(); // Once; the update that follows finds nothing new to draw
 
                     if (game.isGameOver()) {
                         String winnerMessage = game.getWinner() + " wins! Game Over.";
                         System.out.println("GUI: " + winnerMessage);
+                        cancelSearch(); // Stops pondering
                         view.gameOver(winnerMessage);
+                    } else {
+                        startComputerTurnIfDue();
                     }
                 } else {
                     System.out.println("GUI: Invalid move. Try again.");
+                    selectedPiece = null;
+                    view.clearHighlights(); // The board did not change
                 }
-
-                selectedPiece = null;
-                view.refreshBoard();
             }
         }
     }
@@ -228,7 +336,7 @@ public class GameController implements GameObserver {
                 moveHistory.clear();
                 secondsElapsed = 0;
                 if (view instanceof GameScreen) {
-                    ((GameScreen) view).updateMoveList();
+                    ((GameScreen) view).resetMoveList();
                 }
                 break;
             case TRANSFORM:
@@ -245,9 +353,26 @@ public class GameController implements GameObserver {
             default:
                 break;
         }
+        // GameScreen.refreshBoard already brings the move list up to date after a MOVE
+    }
 
-        if (event == GameEvent.MOVE && view instanceof GameScreen) {
-            ((GameScreen) view).updateMoveList();
+    /**
+     * Called on the Event Dispatch Thread once per change to the Game, with all of its events.
+     * A move that also transforms pieces or ends the game redraws the board only once.
+     * The move history and timer were already cleared by resetGame, so a reset only redraws.
+     *
+     * @param update The coalesced events.
+     * @author Tai Zhi Xuan
+     */
+    @Override
+    public void onUpdate(GameUpdate update) {
+        if (update.isBoardChanged()) {
+            view.refreshBoard(); // GameScreen also refreshes the move list
+            restartAnalysis();
+        }
+        if (update.contains(GameEvent.GAME_OVER) && game.isGameOver()) {
+            String winnerMessage = game.getWinner() + " wins! Game Over.";
+            view.gameOver(winnerMessage);
         }
     }
 
@@ -307,10 +432,12 @@ public class GameController implements GameObserver {
      * @author Tiffany Jong Shu Ting
      */
     public void resetGame() {
+        cancelSearch();
         game.reset();
         selectedPiece = null;
         moveHistory.clear();
         secondsElapsed = 0;
+        startComputerTurnIfDue();
     }
 
     /**
@@ -332,30 +459,427 @@ public class GameController implements GameObserver {
     }
 
     /**
-     * Loads the game state from a text file.
+     * Saves the game state to a file in the compact binary format.
+     * Unlike the text format it also keeps piece move counts and Ram directions.
+     *
+     * @param filename The filename to save the game state.
+     * @author Tai Zhi Xuan
+     */
+    public void saveGameAsBinary(String filename) {
+        GameState gameState = new GameState(game.getBoard(), game.getCurrentPlayer(), game.getTurnCounter(), new ArrayList<>(moveHistory));
+        gameState.setSecondsElapsed(this.secondsElapsed);
+        try {
+            GameSaver.saveGameAsBinary(gameState, filename);
+            System.out.println("Game saved as binary successfully!");
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.out.println("Failed to save the game as binary.");
+        }
+    }
+
+    /**
+     * Loads the game state from a text or binary save file.
      *
      * @param filename The filename to load the game state from.
      * @author Joyce Ong Pay Teng
      */
     public void loadGame(String filename) {
         try {
-            GameState gameState = GameLoader.loadGameFromTextFile(filename);
+            loadGameState(GameLoader.loadGame(filename));
+            System.out.println("Game loaded successfully!");
 
-            moveHistory.clear();
-            moveHistory.addAll(gameState.getMoveHistory());
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.out.println("Failed to load the game.");
+        }
+    }
+
+    /**
+     * Loads a game from an archive.
+     *
+     * @param archive The archive file.
+     * @param gameId  The ID of the archived game.
+     */
+    public void loadArchivedGame(Path archive, long gameId) {
+        try (GameArchive.Reader reader = GameArchive.openReader(archive)) {
+            loadGameState(reader.loadGameState(gameId));
+            System.out.println("Archived game " + gameId + " loaded successfully!");
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.out.println("Failed to load archived game " + gameId + ".");
+        }
+    }
 
+    /**
+     * Replaces the current game with a loaded game state.
+     *
+     * @param gameState The game state, from a save file or an archive.
+     */
+    public void loadGameState(GameState gameState) {
+        cancelSearch();
+        moveHistory.clear();
+        moveHistory.addAll(gameState.getMoveHistory());
+
+        game.applyBatch(() -> { // One redraw for the whole loaded state
             game.setBoard(gameState.getBoard());
             game.setCurrentPlayer(gameState.getCurrentPlayer());
             game.setTurnCounter(gameState.getTurn());
+        });
 
-            this.secondsElapsed = gameState.getSecondsElapsed();
+        this.secondsElapsed = gameState.getSecondsElapsed();
+        selectedPiece = null;
+        if (view instanceof GameScreen) {
+            ((GameScreen) view).resetMoveList(); // The history was replaced, not extended
+        }
+        startComputerTurnIfDue();
+    }
 
-            selectedPiece = null;
-            System.out.println("Game loaded successfully!");
+    /**
+     * Makes the computer play one color, or lets two people play. The board is then always
+     * shown from the human player's side.
+     *
+     * @param computerColor The computer's color, or null for two human players.
+     * @author Tai Zhi Xuan
+     */
+    public void setComputerOpponent(Color computerColor) {
+        cancelSearch();
+        this.computerColor = computerColor;
+        selectedPiece = null;
+        view.refreshBoard();
+        startComputerTurnIfDue();
+        restartAnalysis();
+    }
 
-        } catch (IOException e) {
-            e.printStackTrace();
-            System.out.println("Failed to load the game.");
+    /**
+     * Checks whether the computer is to move.
+     *
+     * @return True if it is the computer's turn.
+     * @author Tai Zhi Xuan
+     */
+    public boolean isComputerTurn() {
+        return computerColor != null && game.getCurrentPlayer() == computerColor && !game.isGameOver();
+    }
+
+    /**
+     * Checks whether the board should be shown turned for Red: always for a human playing
+     * Red against the computer, otherwise whenever Red is to move.
+     *
+     * @return True to show the board from Red's side.
+     * @author Tai Zhi Xuan
+     */
+    public boolean isRedPerspective() {
+        if (computerColor != null) {
+            return computerColor == Color.BLUE;
+        }
+        return game.getCurrentPlayer() == Color.RED;
+    }
+
+    /**
+     * Stops the computer's search, if one is running, and discards its result.
+     *
+     * @author Tai Zhi Xuan
+     */
+    public void cancelSearch() {
+        searchGeneration++;
+        stopPondering();
+        if (search != null) {
+            searchEngine.stop();
+            search.cancel(true);
+            search = null;
+            view.hideComputerThinking();
+        }
+    }
+
+    /**
+     * Turns analysis mode on or off. While it is on, every move of the side to move is scored
+     * in the background, except on the computer's turn.
+     *
+     * @param enabled True to analyze.
+     * @author Tai Zhi Xuan
+     */
+    public void setAnalysisEnabled(boolean enabled) {
+        analysisEnabled = enabled;
+        restartAnalysis();
+    }
+
+    /**
+     * Checks whether analysis mode is on.
+     *
+     * @return True if analyzing.
+     * @author Tai Zhi Xuan
+     */
+    public boolean isAnalysisEnabled() {
+        return analysisEnabled;
+    }
+
+    /**
+     * Retrieves what the analysis knows about the current position.
+     *
+     * @return The latest snapshot, or null if analysis is off or has nothing for this position.
+     * @author Tai Zhi Xuan
+     */
+    public AnalysisSnapshot getAnalysisSnapshot() {
+        if (!analysisEnabled || analysisService == null || game.isGameOver() || isComputerTurn()) {
+            return null; // The last snapshot is of an earlier position
+        }
+        return analysisService.getSnapshot();
+    }
+
+    /**
+     * Restarts the analysis on the current position, or stops it if analysis mode is off,
+     * the game is over or the computer is to move. The position is copied here, on the Event
+     * Dispatch Thread, so the analysis never reads the live board.
+     */
+    private void restartAnalysis() {
+        if (!analysisEnabled || game.isGameOver() || isComputerTurn()) {
+            if (analysisService != null) {
+                analysisService.stop();
+            }
+            return;
+        }
+        if (analysisService == null) {
+            int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+            analysisService = new AnalysisService(threads, getSearchEngine().getTable());
+        }
+        analysisService.analyze(SearchBoard.of(game.getBoard(), game.getCurrentPlayer(), game.getTurnCounter()));
+    }
+
+    /**
+     * Retrieves how well pondering has predicted the human's moves.
+     *
+     * @return The ponder statistics, updated on the Event Dispatch Thread.
+     * @author Tai Zhi Xuan
+     */
+    public PonderStats getPonderStats() {
+        return ponderStats;
+    }
+
+    /**
+     * Starts the computer's search on the background thread if it is the computer's turn.
+     * The position is copied here, on the Event Dispatch Thread, so the search never reads
+     * the live board. If the human played the reply being pondered, the ponder search is
+     * kept instead.
+     */
+    private void startComputerTurnIfDue() {
+        if (!isComputerTurn() || search != null) {
+            return;
+        }
+        SearchBoard position = SearchBoard.of(game.getBoard(), game.getCurrentPlayer(), game.getTurnCounter());
+        if (ponder != null) {
+            if (position.getHash() == ponderHash) {
+                ponderHit();
+                return;
+            }
+            ponderStats.recordMiss();
+            System.out.println("Computer: Ponder miss; " + ponderStats);
+            stopPondering();
+        }
+        int generation = ++searchGeneration;
+        view.showComputerThinking(null);
+        SearchEngine engine = getSearchEngine();
+        search = getSearchExecutor().submit(() -> {
+            try {
+                SearchInfo result = engine.search(position, SearchEngine.MAX_DEPTH, COMPUTER_THINK_MILLIS,
+                        info -> SwingUtilities.invokeLater(() -> {
+                            if (generation == searchGeneration) {
+                                view.showComputerThinking(info);
+                            }
+                        }));
+                SwingUtilities.invokeLater(() -> applyComputerMove(generation, result));
+            } catch (RuntimeException e) {
+                System.err.println("Computer search failed: " + e);
+                SwingUtilities.invokeLater(() -> {
+                    if (generation == searchGeneration) {
+                        search = null;
+                        view.hideComputerThinking();
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Plays the computer's move on the Event Dispatch Thread, unless its search was cancelled.
+     *
+     * @param generation The generation of the search.
+     * @param result     The search result.
+     */
+    private void applyComputerMove(int generation, SearchInfo result) {
+        if (generation != searchGeneration) {
+            return; // Cancelled by a reset, a load or a new opponent
+        }
+        search = null;
+        long hitNanos = ponderHitNanos;
+        ponderHitNanos = 0;
+        view.hideComputerThinking();
+        if (!result.hasBestMove()) {
+            System.out.println("Computer: No move available.");
+            return;
+        }
+        Position from = result.getBestFrom();
+        Position to = result.getBestTo();
+        if (!movePiece(from, to)) {
+            System.out.println("Computer: Rejected move " + from + " -> " + to);
+            return;
+        }
+        System.out.println("Computer: " + result);
+        if (hitNanos != 0) {
+            ponderStats.recordHit(COMPUTER_THINK_MILLIS * 1_000_000L, System.nanoTime() - hitNanos);
+            System.out.println("Computer: Ponder hit; " + ponderStats);
+        }
+        selectedPiece = null;
+        view.refreshBoard();
+        if (game.isGameOver()) {
+            view.gameOver(game.getWinner() + " wins! Game Over.");
+        } else {
+            startPondering(result);
+        }
+    }
+
+    /**
+     * Starts pondering the human reply the computer's last search expects, if it expects one.
+     * The ponder search has no time limit; it runs until the human moves.
+     *
+     * @param result The computer's last search result.
+     */
+    private void startPondering(SearchInfo result) {
+        int[] line = result.getPrincipalVariation();
+        if (line.length < 2 || isComputerTurn() || game.isGameOver()) {
+            return;
+        }
+        SearchBoard position = SearchBoard.of(game.getBoard(), game.getCurrentPlayer(), game.getTurnCounter());
+        position.play(line[1]); // The line is checked against the rules, so the reply is legal
+        if (position.isGameOver()) {
+            return;
+        }
+        int generation = ++searchGeneration;
+        SearchClock clock = SearchClock.unlimited();
+        ponderClock = clock;
+        ponderHash = position.getHash();
+        ponderResult = null;
+        ponderHitNanos = 0;
+        SearchEngine engine = getSearchEngine();
+        ponder = getSearchExecutor().submit(() -> {
+            try {
+                SearchInfo pondered = engine.search(position, SearchEngine.MAX_DEPTH, clock,
+                        info -> SwingUtilities.invokeLater(() -> {
+                            if (generation == searchGeneration && ponderHitNanos != 0) {
+                                view.showComputerThinking(info); // Only shown once it is the computer's turn
+                            }
+                        }));
+                SwingUtilities.invokeLater(() -> ponderFinished(generation, pondered));
+            } catch (RuntimeException e) {
+                System.err.println("Computer ponder search failed: " + e);
+                SwingUtilities.invokeLater(() -> ponderFinished(generation, null));
+            }
+        });
+    }
+
+    /**
+     * Makes the ponder search the computer's search after the human played the expected reply.
+     * It may now run for the normal thinking time, counted from when pondering began.
+     */
+    private void ponderHit() {
+        ponderHitNanos = System.nanoTime();
+        search = ponder;
+        ponder = null;
+        view.showComputerThinking(null);
+        if (ponderResult != null) { // Finished early, e.g. with a forced win
+            int generation = searchGeneration;
+            SearchInfo result = ponderResult;
+            ponderResult = null;
+            SwingUtilities.invokeLater(() -> applyComputerMove(generation, result));
+        } else {
+            ponderClock.setTimeLimit(COMPUTER_THINK_MILLIS);
+        }
+    }
+
+    /**
+     * Handles the end of a ponder search on the Event Dispatch Thread. After a ponder hit its
+     * result is the computer's move; before one it is kept until the human moves.
+     *
+     * @param generation The generation of the ponder search.
+     * @param result     The search result, or null if the search failed.
+     */
+    private void ponderFinished(int generation, SearchInfo result) {
+        if (generation != searchGeneration) {
+            return; // Stopped by a miss, a reset, a load or a new opponent
+        }
+        if (ponderHitNanos != 0) {
+            if (result != null) {
+                applyComputerMove(generation, result);
+            } else {
+                search = null;
+                ponderHitNanos = 0;
+                view.hideComputerThinking();
+            }
+        } else if (result != null) {
+            ponderResult = result;
+        } else {
+            stopPondering();
+        }
+    }
+
+    /**
+     * Stops the ponder search, if any, and forgets its prediction.
+     */
+    private void stopPondering() {
+        if (ponder != null) {
+            ponderClock.stop();
+            ponder.cancel(true);
+            ponder = null;
+        }
+        ponderClock = null;
+        ponderResult = null;
+        ponderHitNanos = 0;
+    }
+
+    /**
+     * Stops every background search and shuts the search and analysis threads down. Called
+     * when the game screen is closed; the controller may still be used afterwards and starts
+     * new threads when it next needs them.
+     *
+     * @author Tai Zhi Xuan
+     */
+    public void dispose() {
+        cancelSearch();
+        if (searchExecutor != null) {
+            searchExecutor.shutdownNow();
+            searchExecutor = null;
+        }
+        if (analysisService != null) {
+            analysisService.close();
+            analysisService = null;
+        }
+    }
+
+    /**
+     * Retrieves the engine, creating it on first use.
+     *
+     * @return The engine.
+     */
+    private SearchEngine getSearchEngine() {
+        if (searchEngine == null) {
+            searchEngine = new SearchEngine();
+        }
+        return searchEngine;
+    }
+
+    /**
+     * Retrieves the thread the engine searches on, creating it on first use. It is a daemon
+     * thread, so it never keeps the application running.
+     *
+     * @return The executor.
+     */
+    private ExecutorService getSearchExecutor() {
+        if (searchExecutor == null) {
+            searchExecutor = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "kwazam-search");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.NORM_PRIORITY - 1); // Keep the Event Dispatch Thread responsive
+                return thread;
+            });
         }
+        return searchExecutor;
     }
 }
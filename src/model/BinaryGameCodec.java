@@ -0,0 +1,302 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * The BinaryGameCodec class encodes a GameState in the compact binary save format.
+ *
+ * Description:
+ * The text format written by GameSaver is easy to read but verbose and slow to parse. The
+ * binary format stores the same state in a few hundred bytes and is decoded straight from a
+ * ByteBuffer. Unlike the text format it also keeps each piece's move count and each Ram's
+ * direction, so a loaded game continues exactly where it stopped. Squares are stored in model
+ * coordinates, so no rotation is involved. Layout (big-endian):
+ * <ul>
+ *   <li>header: "KWZB", format version (1 byte)</li>
+ *   <li>current player (1 byte: 0 Red, 1 Blue), turn counter, seconds elapsed (varints)</li>
+ *   <li>board: 40-byte mailbox in row-major order; per square the type code (bits 0-2, 0 for
+ *       empty), Blue (bit 3) and, for a Ram, going forward (bit 4)</li>
+ *   <li>for every occupied square, in the same order: piece ID and move count (varints)</li>
+ *   <li>move history: count (varint), then each move as a 16-bit packed int (from square,
+ *       to square, type code, Blue) stored as a zigzag varint delta from the previous move</li>
+ *   <li>CRC32 of everything before it (4 bytes)</li>
+ * </ul>
+ *
+ * @author Tai Zhi Xuan
+ */
+public final class BinaryGameCodec {
+    /**
+     * The magic number at the start of every binary save ("KWZB").
+     */
+    public static final int MAGIC = 0x4B575A42;
+
+    /**
+     * The version of the binary format.
+     */
+    public static final byte VERSION = 1;
+
+    /**
+     * The mailbox flag marking a Blue piece.
+     */
+    private static final int BLUE_FLAG = 1 << 3;
+
+    /**
+     * The mailbox flag marking a Ram that is going forward.
+     */
+    private static final int FORWARD_FLAG = 1 << 4;
+
+    /**
+     * The number of squares on the board.
+     */
+    private static final int SQUARES = Board.ROWS * Board.COLUMNS;
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private BinaryGameCodec() {
+    }
+
+    /**
+     * Checks whether a buffer starts with a binary save.
+     *
+     * @param buffer The buffer; its position is not changed.
+     * @return True if the buffer starts with the binary magic number.
+     */
+    public static boolean isBinary(ByteBuffer buffer) {
+        return buffer.remaining() >= 4 && buffer.getInt(buffer.position()) == MAGIC;
+    }
+
+    /**
+     * Encodes a game state.
+     *
+     * @param gameState The game state.
+     * @return A buffer holding the encoded state, ready to be written.
+     */
+    public static ByteBuffer encode(GameState gameState) {
+        List<Move> moves = gameState.getMoveHistory();
+        // Worst case: header, 3 varints, mailbox, 2 varints per piece, 3 bytes per move, CRC
+        ByteBuffer buffer = ByteBuffer.allocate(5 + 1 + 15 + SQUARES * 11 + 5 + moves.size() * 3 + 4);
+        buffer.putInt(MAGIC).put(VERSION);
+        buffer.put((byte) (gameState.getCurrentPlayer() == Color.BLUE ? 1 : 0));
+        putVarint(buffer, gameState.getTurn());
+        putVarint(buffer, gameState.getSecondsElapsed());
+
+        Board board = gameState.getBoard();
+        for (int index = 0; index < SQUARES; index++) {
+            buffer.put((byte) squareCode(board.getPieceAt(Position.fromIndex(index))));
+        }
+        for (int index = 0; index < SQUARES; index++) {
+            Piece piece = board.getPieceAt(Position.fromIndex(index));
+            if (piece != null) {
+                putVarint(buffer, piece.getId());
+                putVarint(buffer, piece.getMoveCount());
+            }
+        }
+
+        putVarint(buffer, moves.size());
+        int previous = 0;
+        for (Move move : moves) {
+            int packed = packMove(move);
+            putVarint(buffer, zigzag(packed - previous));
+            previous = packed;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Decodes a game state.
+     *
+     * The checksum is verified before anything else is read, so a corrupt save is rejected
+     * before any of its counts are trusted.
+     *
+     * @param buffer The buffer holding exactly one binary save, from its position to its limit.
+     * @return The decoded game state.
+     * @throws IOException If the buffer is not a valid binary save.
+     */
+    public static GameState decode(ByteBuffer buffer) throws IOException {
+        int start = buffer.position();
+        int end = buffer.limit() - 4; // Where the checksum starts
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a binary game save.");
+            }
+            CRC32 crc = new CRC32();
+            ByteBuffer covered = buffer.duplicate();
+            covered.position(start).limit(end);
+            crc.update(covered);
+            if (buffer.getInt(end) != (int) crc.getValue()) {
+                throw new IOException("Binary save is corrupt (checksum mismatch).");
+            }
+            buffer.limit(end); // A field that runs into the checksum is truncated
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new IOException("Unsupported binary save version: " + version);
+            }
+            Color currentPlayer = buffer.get() == 1 ? Color.BLUE : Color.RED;
+            int turn = getVarint(buffer);
+            int secondsElapsed = getVarint(buffer);
+
+            int[] mailbox = new int[SQUARES];
+            for (int index = 0; index < SQUARES; index++) {
+                mailbox[index] = buffer.get() & 0xFF;
+            }
+            Board board = new Board();
+            board.clearBoard();
+            for (int index = 0; index < SQUARES; index++) {
+                int code = mailbox[index];
+                if ((code & 0x7) == MoveRecord.NONE) {
+                    continue;
+                }
+                String type = MoveRecord.typeName(code & 0x7);
+                if (type == null) {
+                    throw new IOException("Invalid piece code " + code + " on square " + index);
+                }
+                Piece piece = PieceFactory.createPiece(type, (code & BLUE_FLAG) != 0 ? Color.BLUE : Color.RED,
+                        getVarint(buffer));
+                piece.setMoveCount(getVarint(buffer));
+                if (piece instanceof Ram) {
+                    ((Ram) piece).setGoingForward((code & FORWARD_FLAG) != 0);
+                }
+                Position position = Position.fromIndex(index);
+                piece.setPosition(position);
+                board.setPieceAt(position, piece);
+            }
+
+            int moveCount = getVarint(buffer);
+            if (moveCount < 0 || moveCount > buffer.remaining()) { // Every move takes at least one byte
+                throw new IOException("Invalid move count " + moveCount);
+            }
+            List<Move> moves = new ArrayList<>(moveCount);
+            int previous = 0;
+            for (int i = 0; i < moveCount; i++) {
+                int packed = previous + unzigzag(getVarint(buffer));
+                Move move = unpackMove(packed);
+                if (move.getPieceType() == null) {
+                    throw new IOException("Invalid piece code in move " + (i + 1));
+                }
+                moves.add(move);
+                previous = packed;
+            }
+            if (buffer.hasRemaining()) {
+                throw new IOException("Binary save has " + buffer.remaining() + " unexpected bytes.");
+            }
+            buffer.limit(end + 4).position(end + 4);
+
+            GameState gameState = new GameState(board, currentPlayer, turn, moves);
+            gameState.setSecondsElapsed(secondsElapsed);
+            gameState.updateGameOverStatus();
+            return gameState;
+        } catch (RuntimeException e) {
+            // E.g. BufferUnderflowException or an off-board square; corrupt input must never crash the caller
+            throw new IOException("Binary save is truncated or corrupt.", e);
+        }
+    }
+
+    /**
+     * Computes the mailbox byte of a square.
+     *
+     * @param piece The piece on the square, or null.
+     * @return The mailbox byte.
+     */
+    static int squareCode(Piece piece) {
+        if (piece == null) {
+            return MoveRecord.NONE;
+        }
+        int code = MoveRecord.typeCode(piece.getType());
+        if (piece.getColor() == Color.BLUE) {
+            code |= BLUE_FLAG;
+        }
+        if (piece instanceof Ram && ((Ram) piece).isGoingForward()) {
+            code |= FORWARD_FLAG;
+        }
+        return code;
+    }
+
+    /**
+     * Packs a move into 16 bits: from square, to square, type code and Blue.
+     *
+     * @param move The move.
+     * @return The packed move.
+     */
+    public static int packMove(Move move) {
+        return move.getFrom().getIndex()
+                | move.getTo().getIndex() << 6
+                | MoveRecord.typeCode(move.getPieceType()) << 12
+                | (Color.BLUE.name().equalsIgnoreCase(move.getPlayer()) ? 1 << 15 : 0);
+    }
+
+    /**
+     * Unpacks a move packed by packMove.
+     *
+     * @param packed The packed move.
+     * @return The move.
+     */
+    static Move unpackMove(int packed) {
+        return new Move((packed & 1 << 15) != 0 ? Color.BLUE.name() : Color.RED.name(),
+                MoveRecord.typeName(packed >>> 12 & 0x7),
+                Position.fromIndex(packed & 0x3F),
+                Position.fromIndex(packed >>> 6 & 0x3F));
+    }
+
+    /**
+     * Maps a signed value to an unsigned one so small negative deltas stay short.
+     *
+     * @param value The signed value.
+     * @return The zigzag-encoded value.
+     */
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    /**
+     * Reverses zigzag.
+     *
+     * @param value The zigzag-encoded value.
+     * @return The signed value.
+     */
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Writes an unsigned value in 7-bit groups, least significant first.
+     *
+     * @param buffer The buffer.
+     * @param value  The value, treated as unsigned.
+     */
+    private static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Reads a value written by putVarint.
+     *
+     * @param buffer The buffer.
+     * @return The value.
+     * @throws IOException If the varint is longer than five bytes.
+     */
+    private static int getVarint(ByteBuffer buffer) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in binary save.");
+    }
+}
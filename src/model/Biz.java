@@ -22,21 +22,35 @@ public class Biz extends Piece {
      */
     public Biz(Color color, int bizId) {
         super(color, bizId);
-        this.movementStrategy = new BizMovement();
     }
 
     /**
-     * Determines if moving to the specified position is valid.
-     * Delegates the validation logic to the assigned MovementStrategy.
+     * Constructs a copy of another Biz.
      *
-     * @param newPosition The target position to move to.
-     * @param board       The current state of the game board.
-     * @return True if the move is valid according to Biz's movement rules; false otherwise.
+     * @param source The Biz to copy.
+     */
+    private Biz(Biz source) {
+        super(source);
+    }
+
+    /**
+     * Creates an independent copy of this Biz.
+     *
+     * @return A new Biz equal in state to this one.
+     */
+    @Override
+    public Piece copy() {
+        return new Biz(this);
+    }
+
+    /**
+     * Retrieves the shared BizMovement strategy.
+     *
+     * @return The BizMovement flyweight.
      */
     @Override
-    public boolean isValidMove(Position newPosition, Board board) {
-        // Delegate move validation logic to the movement strategy
-        return movementStrategy.isValidMove(position, newPosition, board);
+    public MovementStrategy getMovementStrategy() {
+        return BizMovement.INSTANCE;
     }
 
     /**
@@ -8,9 +8,26 @@ package model;
  * Design Pattern: Strategy Pattern
  * Role: Concrete Strategy - Provides Biz-specific movement validation.
  *
+ * Design Pattern: Flyweight Pattern
+ * Role: Flyweight - One stateless instance is shared by every Biz on every board.
+ *
  * @author Tai Zhi Xuan
  */
-public class BizMovement implements MovementStrategy {
+public final class BizMovement implements MovementStrategy {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The shared instance used by every Biz piece. The strategy holds no state,
+     * so a single flyweight is enough for all boards and all copies of a board.
+     */
+    public static final BizMovement INSTANCE = new BizMovement();
+
+    /**
+     * Private constructor; use {@link #INSTANCE}.
+     */
+    private BizMovement() {
+    }
+
     /**
      * Validates whether moving from one position to another is permissible
      * based on Biz's movement rules.
@@ -43,4 +60,13 @@ public class BizMovement implements MovementStrategy {
         // Biz can move to an empty square or capture an opponent's piece
         return occupant == null || occupant.getColor() != mover.getColor();
     }
+
+    /**
+     * Keeps the flyweight unique when a strategy is deserialized.
+     *
+     * @return The shared instance.
+     */
+    private Object readResolve() {
+        return INSTANCE;
+    }
 }
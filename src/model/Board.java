@@ -8,8 +8,7 @@ import java.util.List;
  * It manages the placement of pieces, handles board state updates,
  * and provides utility methods for interacting with the board.
  *
- * Design Pattern: Singleton Pattern (for IDGenerator)
- * Role: Interacts with Singleton for unique ID generation.
+ * Each Board owns the IDGenerator used for its pieces, so IDs are scoped to a single game.
  *
  * @author Tai Zhi Xuan, Tiffany Jong Shu Ting, Joyce Ong Pay Teng
  */
@@ -20,24 +19,61 @@ public class Board {
      */
     private final Piece[][] grid;
 
+    /**
+     * The generator for the IDs of pieces created on this board.
+     */
+    private final IDGenerator idGenerator;
+
     /**
      * The number of rows on the board.
      */
-    private static final int ROWS = 8;
+    static final int ROWS = 8;
 
     /**
      * The number of columns on the board.
      */
-    private static final int COLUMNS = 5;
+    static final int COLUMNS = 5;
 
     /**
      * Constructs a new Board and initializes it with pieces in their starting positions.
      */
     public Board() {
         grid = new Piece[ROWS][COLUMNS];
+        idGenerator = new IDGenerator();
         initializeBoard();
     }
 
+    /**
+     * Constructs a Board around an existing grid and ID generator. Used by {@link #copy()}.
+     *
+     * @param grid        The grid to use.
+     * @param idGenerator The ID generator to use.
+     */
+    private Board(Piece[][] grid, IDGenerator idGenerator) {
+        this.grid = grid;
+        this.idGenerator = idGenerator;
+    }
+
+    /**
+     * Creates an independent copy of this board for search or self-play.
+     * Every piece is copied; movement strategies are shared flyweights, so the
+     * only allocations are the grid and the pieces themselves.
+     *
+     * @return A new Board with the same pieces in the same positions.
+     */
+    public Board copy() {
+        Piece[][] copyGrid = new Piece[ROWS][COLUMNS];
+        for (int row = 0; row < ROWS; row++) {
+            for (int col = 0; col < COLUMNS; col++) {
+                Piece piece = grid[row][col];
+                if (piece != null) {
+                    copyGrid[row][col] = piece.copy();
+                }
+            }
+        }
+        return new Board(copyGrid, new IDGenerator(idGenerator));
+    }
+
     /**
      * Retrieves the piece located at the specified position.
      *
@@ -93,6 +129,16 @@ public class Board {
         return getPieceAt(position) == null;
     }
 
+    /**
+     * Retrieves the ID generator for pieces created on this board,
+     * such as the replacements produced by Tor and Xor transformations.
+     *
+     * @return The board's IDGenerator.
+     */
+    public IDGenerator getIdGenerator() {
+        return idGenerator;
+    }
+
     /**
      * Retrieves the number of rows on the board.
      *
@@ -156,7 +202,7 @@ public class Board {
             row = 7 - row;
             col = 4 - col;
         }
-        return new Position(row, col);
+        return Position.of(row, col);
     }
 
     /**
@@ -171,7 +217,7 @@ public class Board {
 
         for (int row = 0; row < getRows(); row++) {
             for (int col = 0; col < getColumns(); col++) {
-                Piece piece = getPieceAt(new Position(row, col));
+                Piece piece = getPieceAt(Position.of(row, col));
                 if (piece != null) {
                     if (piece.getColor() == Color.RED) {
                         redHasPieces = true;
@@ -189,27 +235,27 @@ public class Board {
      * This method uses the PieceFactory to create instances of each piece type.
      */
     private void initializeBoard() {
-        IDGenerator idGen = IDGenerator.getInstance(); // Singleton for unique ID generation
+        IDGenerator idGen = idGenerator; // Board-scoped generator for deterministic IDs
 
-        setPieceAt(new Position(0, 0), PieceFactory.createPiece("tor", Color.RED, idGen.getTorId()));
-        setPieceAt(new Position(0, 1), PieceFactory.createPiece("biz", Color.RED, idGen.getNextBizId()));
-        setPieceAt(new Position(0, 2), PieceFactory.createPiece("sau", Color.RED, idGen.getSauId()));
-        setPieceAt(new Position(0, 3), PieceFactory.createPiece("biz", Color.RED, idGen.getNextBizId()));
-        setPieceAt(new Position(0, 4), PieceFactory.createPiece("xor", Color.RED, idGen.getXorId()));
+        setPieceAt(Position.of(0, 0), PieceFactory.createPiece("tor", Color.RED, idGen.getTorId()));
+        setPieceAt(Position.of(0, 1), PieceFactory.createPiece("biz", Color.RED, idGen.getNextBizId()));
+        setPieceAt(Position.of(0, 2), PieceFactory.createPiece("sau", Color.RED, idGen.getSauId()));
+        setPieceAt(Position.of(0, 3), PieceFactory.createPiece("biz", Color.RED, idGen.getNextBizId()));
+        setPieceAt(Position.of(0, 4), PieceFactory.createPiece("xor", Color.RED, idGen.getXorId()));
 
         for (int col = 0; col < COLUMNS; col++) {
-            setPieceAt(new Position(1, col), PieceFactory.createPiece("ram", Color.RED, idGen.getNextRamId()));
+            setPieceAt(Position.of(1, col), PieceFactory.createPiece("ram", Color.RED, idGen.getNextRamId()));
         }
 
         for (int col = 0; col < COLUMNS; col++) {
-            setPieceAt(new Position(6, col), PieceFactory.createPiece("ram", Color.BLUE, idGen.getNextRamId()));
+            setPieceAt(Position.of(6, col), PieceFactory.createPiece("ram", Color.BLUE, idGen.getNextRamId()));
         }
 
-        setPieceAt(new Position(7, 0), PieceFactory.createPiece("xor", Color.BLUE, idGen.getXorId()));
-        setPieceAt(new Position(7, 1), PieceFactory.createPiece("biz", Color.BLUE, idGen.getNextBizId()));
-        setPieceAt(new Position(7, 2), PieceFactory.createPiece("sau", Color.BLUE, idGen.getSauId()));
-        setPieceAt(new Position(7, 3), PieceFactory.createPiece("biz", Color.BLUE, idGen.getNextBizId()));
-        setPieceAt(new Position(7, 4), PieceFactory.createPiece("tor", Color.BLUE, idGen.getTorId()));
+        setPieceAt(Position.of(7, 0), PieceFactory.createPiece("xor", Color.BLUE, idGen.getXorId()));
+        setPieceAt(Position.of(7, 1), PieceFactory.createPiece("biz", Color.BLUE, idGen.getNextBizId()));
+        setPieceAt(Position.of(7, 2), PieceFactory.createPiece("sau", Color.BLUE, idGen.getSauId()));
+        setPieceAt(Position.of(7, 3), PieceFactory.createPiece("biz", Color.BLUE, idGen.getNextBizId()));
+        setPieceAt(Position.of(7, 4), PieceFactory.createPiece("tor", Color.BLUE, idGen.getTorId()));
     }
 
 }
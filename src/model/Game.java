@@ -2,6 +2,10 @@ package model;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * The Game class encapsulates the state and logic of a Kwazam Chess game.
@@ -10,6 +14,12 @@ import java.util.List;
  * Design Pattern: Observer Pattern
  *Role: Subject - Maintains a list of observers and notifies them of state changes.
  *
+ * Events raised while one change is applied (a move, its transformations, the end of the game)
+ * are coalesced into a single GameUpdate, which also records the move, captures, changed
+ * squares and transformed pieces. Observers are kept in a copy-on-write list, so
+ * notifying never locks or copies; an observer added with an Executor receives its updates
+ * on that executor, merged if it falls behind, and never delays the player's move.
+ *
  * @author Tai Zhi Xuan, Tiffany Jong Shu Ting, Joyce Ong Pay Teng
  */
 public class Game {
@@ -40,9 +50,29 @@ public class Game {
     private int turn;
 
     /**
-     * List of observers subscribed to game events.
+     * Whether game messages (invalid moves, captures, transformations) are printed to the console.
+     */
+    private boolean consoleOutput = true;
+
+    /**
+     * Observers subscribed to game events. Iterated on every update and rarely changed.
+     */
+    private final List<Subscriber> observers = new CopyOnWriteArrayList<>();
+
+    /**
+     * The events and deltas of the change currently being applied, waiting to be sent as one update.
+     */
+    private final GameUpdate.Builder pendingUpdate = new GameUpdate.Builder();
+
+    /**
+     * The nesting depth of changes being applied; events are held back while it is positive.
+     */
+    private int batchDepth;
+
+    /**
+     * The journal every accepted move is published to, or null.
      */
-    private final List<GameObserver> observers = new ArrayList<>();
+    private MoveRingBuffer moveJournal;
 
     /**
      * Constructs a new Game instance with the provided board.
@@ -58,14 +88,66 @@ public class Game {
         this.turn = 0;
     }
 
+    /**
+     * Enables or disables console messages for this game.
+     * Headless hosts running many games at once turn them off.
+     *
+     * @param consoleOutput True to print game messages; false to keep the game silent.
+     */
+    public void setConsoleOutput(boolean consoleOutput) {
+        this.consoleOutput = consoleOutput;
+    }
+
+    /**
+     * Prints a game message to the console if console output is enabled.
+     *
+     * @param message The message to print.
+     */
+    private void log(String message) {
+        if (consoleOutput) {
+            System.out.println(message);
+        }
+    }
+
+    /**
+     * Sets the journal every accepted move is published to as a packed MoveRecord.
+     * The thread that moves pieces is the journal's single writer.
+     *
+     * @param moveJournal The journal, or null to stop publishing.
+     */
+    public void setMoveJournal(MoveRingBuffer moveJournal) {
+        this.moveJournal = moveJournal;
+    }
+
+    /**
+     * Retrieves the journal every accepted move is published to.
+     *
+     * @return The journal, or null if none is set.
+     */
+    public MoveRingBuffer getMoveJournal() {
+        return moveJournal;
+    }
+
     /**
      * Adds an observer to the game.
      * Observers will be notified of game events such as moves, resets, and game over.
+     * Updates are delivered synchronously on the thread that changed the game.
+     *
+     * @param observer The observer to be added.
+     */
+    public void addObserver(GameObserver observer) {
+        observers.add(new Subscriber(observer, null));
+    }
+
+    /**
+     * Adds an observer that receives its updates on the given executor.
+     * Updates that pile up while the observer is busy are merged into one.
      *
      * @param observer The observer to be added.
+     * @param executor The executor delivering updates, e.g. SwingUtilities::invokeLater.
      */
-    public synchronized void addObserver(GameObserver observer) {
-        observers.add(observer);
+    public void addObserver(GameObserver observer, Executor executor) {
+        observers.add(new Subscriber(observer, executor));
     }
 
     /**
@@ -73,22 +155,53 @@ public class Game {
      *
      * @param observer The observer to be removed.
      */
-    public synchronized void removeObserver(GameObserver observer) {
-        observers.remove(observer);
+    public void removeObserver(GameObserver observer) {
+        observers.removeIf(subscriber -> subscriber.observer == observer);
     }
 
     /**
      * Notifies all registered observers of a specific game event.
+     * While a change is being applied the event is held back and sent with the others.
      *
      * @param event The type of event that occurred.
      */
     private void notifyObservers(GameEvent event) {
-        List<GameObserver> observersCopy;
-        synchronized(this) {
-            observersCopy = new ArrayList<>(observers);
+        pendingUpdate.event(event);
+        if (batchDepth == 0) {
+            flushUpdate();
         }
-        for (GameObserver observer : observersCopy) {
-            observer.update(event);
+    }
+
+    /**
+     * Applies several changes and notifies observers once when they are all done.
+     *
+     * @param changes The changes to apply to this game.
+     */
+    public void applyBatch(Runnable changes) {
+        batchDepth++;
+        try {
+            changes.run();
+        } finally {
+            if (--batchDepth == 0) {
+                flushUpdate();
+            }
+        }
+    }
+
+    /**
+     * Sends the pending events to every observer as one update.
+     */
+    private void flushUpdate() {
+        if (pendingUpdate.isEmpty()) {
+            return;
+        }
+        if (observers.isEmpty()) {
+            pendingUpdate.clear(); // Headless games and replays skip building the update
+            return;
+        }
+        GameUpdate update = pendingUpdate.build(currentPlayer);
+        for (Subscriber subscriber : observers) {
+            subscriber.deliver(update);
         }
     }
 
@@ -102,6 +215,7 @@ public class Game {
         this.gameOver = false;
         this.turnCounter = 0;
         this.turn = 0;
+        pendingUpdate.changedAll();
         notifyObservers(GameEvent.RESET);
     }
 
@@ -128,26 +242,49 @@ public class Game {
      * @return True if the move was successful; false otherwise.
      */
     public boolean movePiece(Position from, Position to) {
+        batchDepth++; // Observers hear about the move, transformations and game over at once
+        try {
+            return applyMove(from, to);
+        } finally {
+            if (--batchDepth == 0) {
+                flushUpdate();
+            }
+        }
+    }
+
+    /**
+     * Validates and executes a move, raising its events.
+     *
+     * @param from The starting position of the piece.
+     * @param to   The target position to move the piece to.
+     * @return True if the move was successful; false otherwise.
+     */
+    private boolean applyMove(Position from, Position to) {
         Piece piece = board.getPieceAt(from);
 
         // Validate that the piece exists and belongs to the current player
         if (piece == null || !piece.getColor().equals(currentPlayer)) {
-            System.out.println("Invalid move: Not your piece or no piece at position.");
+            log("Invalid move: Not your piece or no piece at position.");
             return false;
         }
 
         // Validate the move using the piece's movement strategy
         if (!piece.isValidMove(to, board)) {
-            System.out.println("Invalid move: Cannot move to that position.");
+            log("Invalid move: Cannot move to that position.");
             return false;
         }
 
         // Execute the move
         Piece destinationPiece = board.getPieceAt(to);
+        int transformedBefore = pendingUpdate.getTransformationCount();
+        if (destinationPiece != null) {
+            pendingUpdate.capture(destinationPiece);
+        }
+        pendingUpdate.move(new Move(currentPlayer.name(), piece.getType(), from, to));
 
         // Handle capturing an opponent's Sau
         if (destinationPiece instanceof Sau && destinationPiece.getColor() != currentPlayer) {
-            System.out.println("\n" + destinationPiece.getColor() + " Sau has been captured!");
+            log("\n" + destinationPiece.getColor() + " Sau has been captured!");
 
             board.setPieceAt(to, piece); // Move the piece to the destination
             board.removePiece(from); // Remove the captured Sau
@@ -160,6 +297,7 @@ public class Game {
             notifyObservers(GameEvent.MOVE);
 
             if (gameOver) {
+                journal(from, to, piece, destinationPiece, transformedBefore, turn + 1);
                 return true; // Exit if the game is over
             }
         } else {
@@ -174,6 +312,9 @@ public class Game {
 
         // Handle transformation if applicable
         piece.onMove(board);
+        if (board.getPieceAt(to) != piece) {
+            pendingUpdate.transformed(board.getPieceAt(to));
+        }
 
         // Switch to the next player
         switchTurn();
@@ -181,9 +322,28 @@ public class Game {
         // Notify observers about the turn switch and potential transformations
         notifyObservers(GameEvent.TRANSFORM);
 
+        journal(from, to, piece, destinationPiece, transformedBefore, turn);
         return true; // Move was successful
     }
 
+    /**
+     * Publishes an accepted move to the move journal, if one is set. Does not allocate.
+     *
+     * @param from              The starting position of the piece.
+     * @param to                The target position of the piece.
+     * @param piece             The moved piece.
+     * @param captured          The captured piece, or null.
+     * @param transformedBefore The number of transformations recorded before the move.
+     * @param moveNumber        The individual turn number of the move.
+     */
+    private void journal(Position from, Position to, Piece piece, Piece captured,
+                         int transformedBefore, int moveNumber) {
+        if (moveJournal != null) {
+            int transformed = pendingUpdate.getTransformationCount() - transformedBefore;
+            moveJournal.publish(MoveRecord.pack(from, to, piece, captured, transformed, gameOver, moveNumber));
+        }
+    }
+
     /**
      * Retrieves the current game board.
      *
@@ -232,25 +392,27 @@ public class Game {
      * Replaces Tor with Xor and vice versa.
      */
     private void transformPieces() {
-        IDGenerator idGen = IDGenerator.getInstance(); // Obtain Singleton instance
+        IDGenerator idGen = board.getIdGenerator(); // Generator scoped to this game's board
 
         for (int row = 0; row < board.getRows(); row++) {
             for (int col = 0; col < board.getColumns(); col++) {
-                Position position = new Position(row, col);
+                Position position = Position.of(row, col);
                 Piece piece = board.getPieceAt(position);
 
                 if (piece instanceof Tor) {
                     Piece newXor = PieceFactory.createPiece("xor", piece.getColor(), idGen.getXorId());
                     newXor.setPosition(position);
                     board.setPieceAt(position, newXor);
+                    pendingUpdate.transformed(newXor);
                 } else if (piece instanceof Xor) {
                     Piece newTor = PieceFactory.createPiece("tor", piece.getColor(), idGen.getTorId());
                     newTor.setPosition(position);
                     board.setPieceAt(position, newTor);
+                    pendingUpdate.transformed(newTor);
                 }
             }
         }
-        System.out.println("All Tor and Xor pieces have transformed!");
+        log("All Tor and Xor pieces have transformed!");
 
         // Notify observers about the transformation
         notifyObservers(GameEvent.TRANSFORM);
@@ -266,7 +428,7 @@ public class Game {
 
         for (int row = 0; row < board.getRows(); row++) {
             for (int col = 0; col < board.getColumns(); col++) {
-                Piece piece = board.getPieceAt(new Position(row, col));
+                Piece piece = board.getPieceAt(Position.of(row, col));
                 if (piece instanceof Sau) {
                     if (piece.getColor() == Color.RED) {
                         redSauExists = true;
@@ -280,9 +442,9 @@ public class Game {
 
         if (gameOver) {
             if (!redSauExists) {
-                System.out.println("Blue wins!");
+                log("Blue wins!");
             } else {
-                System.out.println("Red wins!");
+                log("Red wins!");
             }
 
             // Notify observers about the game over
@@ -325,6 +487,7 @@ public class Game {
      */
     public void setBoard(Board board) {
         this.board = board;
+        pendingUpdate.changedAll();
         notifyObservers(GameEvent.MOVE);
     }
 
@@ -369,6 +532,7 @@ public class Game {
         this.turnCounter = 0;
         this.turn = 0;
 
+        pendingUpdate.changedAll();
         notifyObservers(GameEvent.RESET);
     }
 
@@ -381,4 +545,75 @@ public class Game {
         this.gameOver = gameOver;
         notifyObservers(GameEvent.GAME_OVER);
     }
+
+    /**
+     * An observer together with the way updates reach it.
+     */
+    private static final class Subscriber {
+        /**
+         * The observer.
+         */
+        private final GameObserver observer;
+
+        /**
+         * The executor delivering updates, or null to deliver on the caller's thread.
+         */
+        private final Executor executor;
+
+        /**
+         * The merged updates waiting for the observer.
+         */
+        private final AtomicReference<GameUpdate> pending = new AtomicReference<>();
+
+        /**
+         * Whether a delivery task is scheduled or running, so the observer sees one update at a time.
+         */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /**
+         * Constructs a new Subscriber.
+         *
+         * @param observer The observer.
+         * @param executor The executor delivering updates, or null.
+         */
+        Subscriber(GameObserver observer, Executor executor) {
+            this.observer = observer;
+            this.executor = executor;
+        }
+
+        /**
+         * Delivers an update now, or queues it for the executor, merging it with waiting updates.
+         *
+         * @param update The update.
+         */
+        void deliver(GameUpdate update) {
+            if (executor == null) {
+                observer.onUpdate(update);
+                return;
+            }
+            pending.accumulateAndGet(update, (waiting, later) -> waiting == null ? later : waiting.merge(later));
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        /**
+         * Hands the waiting updates to the observer. Runs on the executor.
+         * If the observer throws, the exception still reaches the executor, but the subscriber
+         * is released and later updates are delivered as usual.
+         */
+        private void drain() {
+            try {
+                GameUpdate update;
+                while ((update = pending.getAndSet(null)) != null) {
+                    observer.onUpdate(update);
+                }
+            } finally {
+                scheduled.set(false);
+                if (pending.get() != null && scheduled.compareAndSet(false, true)) {
+                    executor.execute(this::drain);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,710 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The GameArchive class stores large numbers of finished games in one file with random access by game ID.
+ *
+ * Description:
+ * Games are appended in blocks. Each block starts with an index of its games, sorted by
+ * game ID, giving the offset and length of every game, followed by the games themselves in
+ * the BinaryGameCodec format. A Reader maps every block into memory and only keeps a few
+ * numbers per block, so any game's moves or final board can be fetched with a binary search
+ * without parsing any other game, and all games can be visited in file order through one
+ * reused ArchivedGame cursor without allocating per game.
+ * <br>File layout: a 16-byte header ("KWZA", version, reserved), then blocks made of a 16-byte
+ * block header ("KWZI", game count, block length), the index (game ID: 8 bytes, offset in
+ * the block: 4 bytes, length: 4 bytes per game) and the encoded games. A block cut short by
+ * a crash is ignored by Readers and removed by the next Writer.
+ *
+ * @author Tai Zhi Xuan
+ */
+public final class GameArchive {
+    /**
+     * The magic number at the start of an archive ("KWZA").
+     */
+    private static final int MAGIC = 0x4B575A41;
+
+    /**
+     * The magic number at the start of every block ("KWZI").
+     */
+    private static final int BLOCK_MAGIC = 0x4B575A49;
+
+    /**
+     * The version of the archive format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The size of the file header, in bytes.
+     */
+    private static final int HEADER_SIZE = 16;
+
+    /**
+     * The size of a block header, in bytes.
+     */
+    private static final int BLOCK_HEADER_SIZE = 16;
+
+    /**
+     * The size of one index entry, in bytes.
+     */
+    private static final int INDEX_ENTRY_SIZE = 16;
+
+    /**
+     * The number of squares on the board.
+     */
+    private static final int SQUARES = Board.ROWS * Board.COLUMNS;
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private GameArchive() {
+    }
+
+    /**
+     * Opens an archive for appending, creating it if it does not exist.
+     *
+     * @param file The archive file.
+     * @return The writer.
+     * @throws IOException If the file cannot be opened or is not an archive.
+     */
+    public static Writer openWriter(Path file) throws IOException {
+        return new Writer(file, Writer.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Opens an archive for reading.
+     *
+     * @param file The archive file.
+     * @return The reader.
+     * @throws IOException If the file cannot be mapped or is not an archive.
+     */
+    public static Reader openReader(Path file) throws IOException {
+        return new Reader(file);
+    }
+
+    /**
+     * Checks the file header and finds the end of the last complete block.
+     *
+     * @param channel The archive file.
+     * @param blocks  Receives the offset and length of every complete block, or null.
+     * @return The length of the header and all complete blocks.
+     * @throws IOException If the file cannot be read or is not an archive.
+     */
+    private static long scanBlocks(FileChannel channel, List<long[]> blocks) throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(Math.max(HEADER_SIZE, BLOCK_HEADER_SIZE));
+        if (size < HEADER_SIZE || channel.read(header, 0) < HEADER_SIZE || header.getInt(0) != MAGIC) {
+            throw new IOException("Not a game archive.");
+        }
+        if (header.getInt(4) != VERSION) {
+            throw new IOException("Unsupported archive version: " + header.getInt(4));
+        }
+        long offset = HEADER_SIZE;
+        while (offset + BLOCK_HEADER_SIZE <= size) {
+            header.clear();
+            if (channel.read(header, offset) < BLOCK_HEADER_SIZE || header.getInt(0) != BLOCK_MAGIC) {
+                break;
+            }
+            long length = header.getLong(8);
+            if (length < BLOCK_HEADER_SIZE || offset + length > size) {
+                break; // Torn block
+            }
+            if (blocks != null) {
+                blocks.add(new long[]{offset, length});
+            }
+            offset += length;
+        }
+        return offset;
+    }
+
+    /**
+     * Appends games to an archive in batches.
+     */
+    public static final class Writer implements AutoCloseable {
+        /**
+         * The default number of games per block.
+         */
+        public static final int DEFAULT_BATCH_SIZE = 4096;
+
+        /**
+         * The archive file, positioned at its end.
+         */
+        private final FileChannel channel;
+
+        /**
+         * The number of games per block.
+         */
+        private final int batchSize;
+
+        /**
+         * The IDs of the games waiting for the next block.
+         */
+        private long[] pendingIds;
+
+        /**
+         * The encoded games waiting for the next block.
+         */
+        private final List<ByteBuffer> pendingGames = new ArrayList<>();
+
+        /**
+         * Constructs a new Writer, removing a torn block left by a crash.
+         *
+         * @param file      The archive file.
+         * @param batchSize The number of games per block.
+         * @throws IOException If the file cannot be opened or is not an archive.
+         */
+        private Writer(Path file, int batchSize) throws IOException {
+            this.batchSize = batchSize;
+            this.pendingIds = new long[batchSize];
+            boolean created = !Files.exists(file) || Files.size(file) == 0;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            try {
+                if (created) {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).putLong(0);
+                    header.flip();
+                    while (header.hasRemaining()) {
+                        channel.write(header);
+                    }
+                } else {
+                    long end = scanBlocks(channel, null);
+                    if (end < channel.size()) {
+                        channel.truncate(end);
+                    }
+                    channel.position(end);
+                }
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Adds a finished game. It is written with the next block.
+         *
+         * @param gameId    The game ID.
+         * @param gameState The final state of the game, with its move history.
+         * @throws IOException If a full block cannot be written.
+         */
+        public void add(long gameId, GameState gameState) throws IOException {
+            pendingIds[pendingGames.size()] = gameId;
+            pendingGames.add(BinaryGameCodec.encode(gameState));
+            if (pendingGames.size() == batchSize) {
+                flush();
+            }
+        }
+
+        /**
+         * Writes the waiting games as one block with a single gathering write and forces it to disk.
+         *
+         * @throws IOException If the block cannot be written.
+         */
+        public void flush() throws IOException {
+            int count = pendingGames.size();
+            if (count == 0) {
+                return;
+            }
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(pendingIds[a], pendingIds[b]));
+
+            int indexSize = BLOCK_HEADER_SIZE + count * INDEX_ENTRY_SIZE;
+            ByteBuffer index = ByteBuffer.allocate(indexSize);
+            ByteBuffer[] buffers = new ByteBuffer[count + 1];
+            buffers[0] = index;
+            long blockLength = indexSize;
+            index.position(BLOCK_HEADER_SIZE);
+            for (int i = 0; i < count; i++) {
+                ByteBuffer game = pendingGames.get(order[i]);
+                index.putLong(pendingIds[order[i]]).putInt((int) blockLength).putInt(game.remaining());
+                buffers[i + 1] = game;
+                blockLength += game.remaining();
+            }
+            index.putInt(0, BLOCK_MAGIC).putInt(4, count).putLong(8, blockLength);
+            index.rewind();
+
+            long remaining = blockLength;
+            while (remaining > 0) {
+                remaining -= channel.write(buffers);
+            }
+            channel.force(false);
+            pendingGames.clear();
+        }
+
+        /**
+         * Writes the waiting games and closes the archive.
+         *
+         * @throws IOException If the last block cannot be written.
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Reads a memory-mapped archive.
+     */
+    public static final class Reader implements AutoCloseable {
+        /**
+         * The mapped blocks, in file order.
+         */
+        private final MappedByteBuffer[] blocks;
+
+        /**
+         * The lowest game ID of each block.
+         */
+        private final long[] minIds;
+
+        /**
+         * The highest game ID of each block.
+         */
+        private final long[] maxIds;
+
+        /**
+         * The total number of games.
+         */
+        private final long gameCount;
+
+        /**
+         * Constructs a new Reader, mapping every complete block.
+         *
+         * @param file The archive file.
+         * @throws IOException If the file cannot be mapped or is not an archive.
+         */
+        private Reader(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                List<long[]> found = new ArrayList<>();
+                scanBlocks(channel, found);
+                blocks = new MappedByteBuffer[found.size()];
+                minIds = new long[found.size()];
+                maxIds = new long[found.size()];
+                long games = 0;
+                for (int i = 0; i < blocks.length; i++) {
+                    MappedByteBuffer block = channel.map(FileChannel.MapMode.READ_ONLY, found.get(i)[0], found.get(i)[1]);
+                    int count = block.getInt(4);
+                    blocks[i] = block;
+                    minIds[i] = count == 0 ? Long.MAX_VALUE : block.getLong(BLOCK_HEADER_SIZE);
+                    maxIds[i] = count == 0 ? Long.MIN_VALUE
+                            : block.getLong(BLOCK_HEADER_SIZE + (count - 1) * INDEX_ENTRY_SIZE);
+                    games += count;
+                }
+                gameCount = games;
+            }
+        }
+
+        /**
+         * Retrieves the number of games in the archive.
+         *
+         * @return The number of games.
+         */
+        public long getGameCount() {
+            return gameCount;
+        }
+
+        /**
+         * Checks whether a game is in the archive.
+         *
+         * @param gameId The game ID.
+         * @return True if the game can be read.
+         */
+        public boolean contains(long gameId) {
+            return find(gameId, new ArchivedGame());
+        }
+
+        /**
+         * Loads a game as a GameState, e.g. to hand it to GameController.loadGameState.
+         *
+         * @param gameId The game ID.
+         * @return The final state of the game with its move history.
+         * @throws IOException If the game is missing or corrupt.
+         */
+        public GameState loadGameState(long gameId) throws IOException {
+            ArchivedGame game = require(gameId);
+            ByteBuffer encoded = game.block.duplicate();
+            encoded.position(game.offset).limit(game.offset + game.length);
+            return BinaryGameCodec.decode(encoded);
+        }
+
+        /**
+         * Reads the moves of a game without decoding its pieces.
+         *
+         * @param gameId The game ID.
+         * @return The moves, oldest first.
+         * @throws IOException If the game is missing.
+         */
+        public List<Move> readMoves(long gameId) throws IOException {
+            ArchivedGame game = require(gameId);
+            List<Move> moves = new ArrayList<>(game.getMoveCount());
+            for (int i = 0; i < game.getMoveCount(); i++) {
+                moves.add(game.getMove(i));
+            }
+            return moves;
+        }
+
+        /**
+         * Reads the final board of a game without decoding its moves.
+         *
+         * @param gameId The game ID.
+         * @return The final board.
+         * @throws IOException If the game is missing or corrupt.
+         */
+        public Board readFinalBoard(long gameId) throws IOException {
+            return require(gameId).createBoard();
+        }
+
+        /**
+         * Visits every game in file order. The same ArchivedGame is reused for every game,
+         * so nothing is allocated per game; visitors must not keep it.
+         *
+         * @param visitor The visitor.
+         */
+        public void forEach(Visitor visitor) {
+            ArchivedGame game = new ArchivedGame();
+            for (MappedByteBuffer block : blocks) {
+                int count = block.getInt(4);
+                for (int i = 0; i < count; i++) {
+                    game.moveTo(block, i);
+                    visitor.visit(game);
+                }
+            }
+        }
+
+        /**
+         * Finds a game or fails.
+         *
+         * @param gameId The game ID.
+         * @return A cursor on the game.
+         * @throws IOException If the game is missing.
+         */
+        private ArchivedGame require(long gameId) throws IOException {
+            ArchivedGame game = new ArchivedGame();
+            if (!find(gameId, game)) {
+                throw new IOException("Game " + gameId + " is not in the archive.");
+            }
+            return game;
+        }
+
+        /**
+         * Positions a cursor on a game by binary search in the index of each candidate block.
+         *
+         * @param gameId The game ID.
+         * @param game   The cursor to position.
+         * @return True if the game was found.
+         */
+        private boolean find(long gameId, ArchivedGame game) {
+            for (int b = blocks.length - 1; b >= 0; b--) { // Newest block wins if an ID was archived twice
+                if (gameId < minIds[b] || gameId > maxIds[b]) {
+                    continue;
+                }
+                MappedByteBuffer block = blocks[b];
+                int low = 0;
+                int high = block.getInt(4) - 1;
+                while (low <= high) {
+                    int middle = (low + high) >>> 1;
+                    long id = block.getLong(BLOCK_HEADER_SIZE + middle * INDEX_ENTRY_SIZE);
+                    if (id < gameId) {
+                        low = middle + 1;
+                    } else if (id > gameId) {
+                        high = middle - 1;
+                    } else {
+                        game.moveTo(block, middle);
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Releases the reader. The mappings are freed once the reader is garbage collected.
+         */
+        @Override
+        public void close() {
+            Arrays.fill(blocks, null);
+        }
+    }
+
+    /**
+     * Receives the games of an archive one by one.
+     */
+    @FunctionalInterface
+    public interface Visitor {
+        /**
+         * Called once per game.
+         *
+         * @param game A cursor on the game; only valid during the call.
+         */
+        void visit(ArchivedGame game);
+    }
+
+    /**
+     * A reusable cursor on one archived game, reading straight from the mapped file.
+     */
+    public static final class ArchivedGame {
+        /**
+         * The block holding the game.
+         */
+        private ByteBuffer block;
+
+        /**
+         * The game ID.
+         */
+        private long id;
+
+        /**
+         * The offset of the encoded game in the block.
+         */
+        private int offset;
+
+        /**
+         * The length of the encoded game.
+         */
+        private int length;
+
+        /**
+         * The side to move at the end of the game.
+         */
+        private Color currentPlayer;
+
+        /**
+         * The turn counter at the end of the game.
+         */
+        private int turn;
+
+        /**
+         * The seconds the game lasted.
+         */
+        private int secondsElapsed;
+
+        /**
+         * The offset of the 40-byte mailbox in the block.
+         */
+        private int mailboxOffset;
+
+        /**
+         * The number of moves.
+         */
+        private int moveCount;
+
+        /**
+         * The offset of the first encoded move in the block.
+         */
+        private int movesOffset;
+
+        /**
+         * The decoded packed moves; grown as needed and reused across games.
+         */
+        private int[] packedMoves = new int[128];
+
+        /**
+         * Whether packedMoves holds the moves of the current game.
+         */
+        private boolean movesDecoded;
+
+        /**
+         * The read position used while parsing.
+         */
+        private int cursor;
+
+        /**
+         * Positions this cursor on a game and parses its fixed fields.
+         *
+         * @param block The mapped block.
+         * @param entry The index entry of the game.
+         */
+        private void moveTo(ByteBuffer block, int entry) {
+            int indexOffset = BLOCK_HEADER_SIZE + entry * INDEX_ENTRY_SIZE;
+            this.block = block;
+            this.id = block.getLong(indexOffset);
+            this.offset = block.getInt(indexOffset + 8);
+            this.length = block.getInt(indexOffset + 12);
+            this.movesDecoded = false;
+
+            cursor = offset + 5; // Magic and version
+            currentPlayer = block.get(cursor++) == 1 ? Color.BLUE : Color.RED;
+            turn = readVarint();
+            secondsElapsed = readVarint();
+            mailboxOffset = cursor;
+            cursor += SQUARES;
+            for (int i = 0; i < SQUARES; i++) {
+                if ((block.get(mailboxOffset + i) & 0x7) != MoveRecord.NONE) {
+                    readVarint(); // Piece ID
+                    readVarint(); // Move count
+                }
+            }
+            moveCount = readVarint();
+            movesOffset = cursor;
+        }
+
+        /**
+         * Reads a varint at the cursor.
+         *
+         * @return The value.
+         */
+        private int readVarint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = block.get(cursor++);
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        /**
+         * Retrieves the game ID.
+         *
+         * @return The game ID.
+         */
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * Retrieves the side to move at the end of the game.
+         *
+         * @return The color.
+         */
+        public Color getCurrentPlayer() {
+            return currentPlayer;
+        }
+
+        /**
+         * Retrieves the turn counter at the end of the game.
+         *
+         * @return The turn counter.
+         */
+        public int getTurn() {
+            return turn;
+        }
+
+        /**
+         * Retrieves how long the game lasted.
+         *
+         * @return The seconds elapsed.
+         */
+        public int getSecondsElapsed() {
+            return secondsElapsed;
+        }
+
+        /**
+         * Retrieves the size of the encoded game.
+         *
+         * @return The length in bytes.
+         */
+        public int getEncodedLength() {
+            return length;
+        }
+
+        /**
+         * Retrieves the contents of a square on the final board.
+         *
+         * @param index The square index (row * 5 + column).
+         * @return The type code (see MoveRecord) in bits 0-2, Blue in bit 3 and, for a Ram,
+         *         going forward in bit 4; 0 for empty.
+         */
+        public int getSquare(int index) {
+            return block.get(mailboxOffset + index) & 0x1F;
+        }
+
+        /**
+         * Builds the final board, with each piece's ID, move count and Ram direction.
+         *
+         * @return A new board.
+         * @throws IOException If a square holds an invalid piece code.
+         */
+        public Board createBoard() throws IOException {
+            Board board = new Board();
+            board.clearBoard();
+            cursor = mailboxOffset + SQUARES;
+            for (int index = 0; index < SQUARES; index++) {
+                int code = block.get(mailboxOffset + index) & 0xFF;
+                if ((code & 0x7) == MoveRecord.NONE) {
+                    continue;
+                }
+                String type = MoveRecord.typeName(code & 0x7);
+                if (type == null) {
+                    throw new IOException("Invalid piece code " + code + " in archived game " + id);
+                }
+                Piece piece = PieceFactory.createPiece(type, (code & 1 << 3) != 0 ? Color.BLUE : Color.RED,
+                        readVarint());
+                piece.setMoveCount(readVarint());
+                if (piece instanceof Ram) {
+                    ((Ram) piece).setGoingForward((code & 1 << 4) != 0);
+                }
+                Position position = Position.fromIndex(index);
+                piece.setPosition(position);
+                board.setPieceAt(position, piece);
+            }
+            return board;
+        }
+
+        /**
+         * Retrieves the number of moves.
+         *
+         * @return The number of moves.
+         */
+        public int getMoveCount() {
+            return moveCount;
+        }
+
+        /**
+         * Retrieves a move in packed form: from square (bits 0-5), to square (bits 6-11),
+         * type code (bits 12-14) and Blue (bit 15). Decodes the moves on first use.
+         *
+         * @param index The move index, oldest first.
+         * @return The packed move.
+         */
+        public int getPackedMove(int index) {
+            if (!movesDecoded) {
+                decodeMoves();
+            }
+            return packedMoves[index];
+        }
+
+        /**
+         * Retrieves a move as a Move object.
+         *
+         * @param index The move index, oldest first.
+         * @return The move.
+         */
+        public Move getMove(int index) {
+            return BinaryGameCodec.unpackMove(getPackedMove(index));
+        }
+
+        /**
+         * Decodes the delta-coded moves into the reused array.
+         */
+        private void decodeMoves() {
+            if (packedMoves.length < moveCount) {
+                packedMoves = new int[Math.max(moveCount, packedMoves.length * 2)];
+            }
+            cursor = movesOffset;
+            int previous = 0;
+            for (int i = 0; i < moveCount; i++) {
+                int zigzag = readVarint();
+                previous += (zigzag >>> 1) ^ -(zigzag & 1);
+                packedMoves[i] = previous;
+            }
+            movesDecoded = true;
+        }
+    }
+}
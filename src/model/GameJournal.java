@@ -0,0 +1,512 @@
+package model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * The GameJournal class is an append-only, crash-safe log of the moves of one game.
+ *
+ * Description:
+ * Unlike GameSaver, which rewrites the whole game on every save, the journal appends one
+ * fixed-size record per move, so the cost of persisting a move does not grow with the game.
+ * Each record holds the packed MoveRecord, its sequence number and a CRC32 of both. Records are
+ * written to the file as soon as they are appended, so a crash of the process loses nothing;
+ * the file is forced to disk in batches (every few records or milliseconds, and on close), so
+ * a power failure loses at most the last batch. The time limit is checked on every append, and
+ * the owner should also call syncIfDue periodically, so the last move before a quiet spell is
+ * not left unforced until the next move. Any thread may ask isSyncDue; everything else must be
+ * called from the thread that appends. Recovery replays the records from the starting
+ * position through Game.movePiece and stops at the first record that is torn, corrupt or not
+ * a legal move, which yields the last consistent state of the game.
+ * <br>File layout: a 16-byte header ("KWZJ", version, creation time), then 16-byte records
+ * (record: 8 bytes, sequence: 4 bytes, CRC32 of the previous 12 bytes: 4 bytes).
+ *
+ * A journal can follow a MoveRingBuffer as a Reader's Handler.
+ *
+ * @author Tai Zhi Xuan
+ */
+public class GameJournal implements MoveRingBuffer.Handler, AutoCloseable {
+    /**
+     * The magic number at the start of every journal ("KWZJ").
+     */
+    private static final int MAGIC = 0x4B575A4A;
+
+    /**
+     * The version of the journal format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The size of the file header, in bytes.
+     */
+    private static final int HEADER_SIZE = 16;
+
+    /**
+     * The size of one record, in bytes.
+     */
+    public static final int RECORD_SIZE = 16;
+
+    /**
+     * The default number of records between two forces to disk.
+     */
+    public static final int DEFAULT_SYNC_EVERY = 32;
+
+    /**
+     * The default longest time, in milliseconds, an appended record waits to be forced to disk.
+     */
+    public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 200;
+
+    /**
+     * The journal file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Reused buffer holding the record being written.
+     */
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(RECORD_SIZE);
+
+    /**
+     * Reused checksum of the record being written.
+     */
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * The number of records appended since the last force.
+     */
+    private final int syncEvery;
+
+    /**
+     * The longest time between an append and the following force, in nanoseconds.
+     */
+    private final long syncIntervalNanos;
+
+    /**
+     * The sequence number of the next record.
+     */
+    private int nextSequence;
+
+    /**
+     * The number of records appended but not yet forced to disk.
+     * Volatile so isSyncDue can be asked from another thread.
+     */
+    private volatile int unsynced;
+
+    /**
+     * When the oldest unforced record was appended.
+     */
+    private volatile long oldestUnsyncedNanos;
+
+    /**
+     * Constructs a new GameJournal writing at the end of an open file.
+     *
+     * @param channel           The journal file, positioned after the last valid record.
+     * @param nextSequence      The sequence number of the next record.
+     * @param syncEvery         The number of records between two forces to disk.
+     * @param syncIntervalMillis The longest time an appended record waits to be forced to disk.
+     */
+    private GameJournal(FileChannel channel, int nextSequence, int syncEvery, long syncIntervalMillis) {
+        this.channel = channel;
+        this.nextSequence = nextSequence;
+        this.syncEvery = Math.max(1, syncEvery);
+        this.syncIntervalNanos = syncIntervalMillis * 1_000_000L;
+    }
+
+    /**
+     * Creates a new journal for a game in its starting position, replacing any existing file.
+     *
+     * @param file The journal file.
+     * @return The journal, ready for appending.
+     * @throws IOException If the file cannot be created.
+     */
+    public static GameJournal create(Path file) throws IOException {
+        return create(file, DEFAULT_SYNC_EVERY, DEFAULT_SYNC_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Creates a new journal for a game in its starting position, replacing any existing file.
+     *
+     * @param file               The journal file.
+     * @param syncEvery          The number of records between two forces to disk.
+     * @param syncIntervalMillis The longest time an appended record waits to be forced to disk.
+     * @return The journal, ready for appending.
+     * @throws IOException If the file cannot be created.
+     */
+    public static GameJournal create(Path file, int syncEvery, long syncIntervalMillis) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis());
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new GameJournal(channel, 0, syncEvery, syncIntervalMillis);
+    }
+
+    /**
+     * Rebuilds the last consistent state of a game from its journal.
+     *
+     * @param file The journal file.
+     * @return The recovered game and the extent of the valid records.
+     * @throws IOException If the file cannot be read or is not a journal.
+     */
+    public static Recovery recover(Path file) throws IOException {
+        Game game = new Game(new Board());
+        game.setConsoleOutput(false);
+        List<Move> moves = new ArrayList<>();
+        long fileSize;
+        long validLength = HEADER_SIZE;
+        String stopReason = null;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            fileSize = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+                throw new IOException("Not a game journal: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported journal version " + version + ": " + file);
+            }
+
+            ByteBuffer records = ByteBuffer.allocate(RECORD_SIZE * 256);
+            CRC32 crc = new CRC32();
+            int sequence = 0;
+            long offset = HEADER_SIZE;
+            replay:
+            while (offset < fileSize) {
+                records.clear();
+                readFully(channel, records, offset);
+                records.flip();
+                if (records.remaining() < RECORD_SIZE) {
+                    stopReason = "torn record at offset " + offset;
+                    break;
+                }
+                while (records.remaining() >= RECORD_SIZE) {
+                    long record = records.getLong(records.position());
+                    int recordSequence = records.getInt(records.position() + 8);
+                    int storedCrc = records.getInt(records.position() + 12);
+                    crc.reset();
+                    crc.update(records.array(), records.position(), 12);
+                    if ((int) crc.getValue() != storedCrc) {
+                        stopReason = "checksum mismatch at offset " + offset;
+                        break replay;
+                    }
+                    if (recordSequence != sequence) {
+                        stopReason = "sequence " + recordSequence + " where " + sequence + " was expected";
+                        break replay;
+                    }
+                    if (!replay(game, record)) {
+                        stopReason = "illegal move " + MoveRecord.toString(record);
+                        break replay;
+                    }
+                    moves.add(MoveRecord.toMove(record));
+                    records.position(records.position() + RECORD_SIZE);
+                    offset += RECORD_SIZE;
+                    validLength = offset;
+                    sequence++;
+                }
+                if (records.hasRemaining()) {
+                    stopReason = "torn record at offset " + offset;
+                    break;
+                }
+            }
+        }
+        return new Recovery(file, game, moves, validLength, fileSize, stopReason);
+    }
+
+    /**
+     * Replays one record into the game, checking it against the piece on the board.
+     *
+     * @param game   The game being rebuilt.
+     * @param record The packed MoveRecord.
+     * @return True if the move matched the board and was legal.
+     */
+    private static boolean replay(Game game, long record) {
+        Piece piece = game.getBoard().getPieceAt(MoveRecord.getFrom(record));
+        if (piece == null || game.isGameOver()
+                || MoveRecord.typeCode(piece.getType()) != MoveRecord.getPieceType(record)
+                || piece.getColor() != MoveRecord.getColor(record)) {
+            return false;
+        }
+        return game.movePiece(MoveRecord.getFrom(record), MoveRecord.getTo(record));
+    }
+
+    /**
+     * Reads from a position until the buffer is full or the file ends.
+     *
+     * @param channel  The file.
+     * @param buffer   The buffer to fill.
+     * @param position The file position to read from.
+     * @throws IOException If the file cannot be read.
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int count = channel.read(buffer, position);
+            if (count < 0) {
+                return;
+            }
+            position += count;
+        }
+    }
+
+    /**
+     * Appends a move. Writes the record immediately and forces the file to disk when the
+     * batch is full or its oldest record has waited long enough.
+     *
+     * @param record The packed MoveRecord.
+     * @throws IOException If the record cannot be written.
+     */
+    public void append(long record) throws IOException {
+        recordBuffer.clear();
+        recordBuffer.putLong(record).putInt(nextSequence);
+        crc.reset();
+        crc.update(recordBuffer.array(), 0, 12);
+        recordBuffer.putInt((int) crc.getValue());
+        recordBuffer.flip();
+        while (recordBuffer.hasRemaining()) {
+            channel.write(recordBuffer);
+        }
+        nextSequence++;
+
+        long now = System.nanoTime();
+        if (unsynced == 0) {
+            oldestUnsyncedNanos = now;
+        }
+        unsynced++;
+        if (unsynced >= syncEvery || now - oldestUnsyncedNanos >= syncIntervalNanos) {
+            sync();
+        }
+    }
+
+    /**
+     * Appends a move read from a MoveRingBuffer.
+     *
+     * @param sequence The ring sequence of the record.
+     * @param record   The packed MoveRecord.
+     * @throws UncheckedIOException If the record cannot be written.
+     */
+    @Override
+    public void onRecord(long sequence, long record) {
+        try {
+            append(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Fails the journal when moves were overwritten before it read them; a journal with a
+     * gap cannot be replayed.
+     *
+     * @param firstMissed The sequence of the first missed record.
+     * @param missed      The number of missed records.
+     * @throws UncheckedIOException Always.
+     */
+    @Override
+    public void onOverrun(long firstMissed, long missed) {
+        throw new UncheckedIOException(new IOException(
+                "Journal missed " + missed + " moves from sequence " + firstMissed));
+    }
+
+    /**
+     * Forces every appended record to disk.
+     *
+     * @throws IOException If the file cannot be forced.
+     */
+    public void sync() throws IOException {
+        if (unsynced > 0) {
+            channel.force(false);
+            unsynced = 0;
+        }
+    }
+
+    /**
+     * Checks whether an appended record has waited longer than the sync interval. Safe to call
+     * from any thread.
+     *
+     * @param nowNanos The current time, from System.nanoTime.
+     * @return True if syncIfDue would force the file.
+     */
+    public boolean isSyncDue(long nowNanos) {
+        return unsynced > 0 && nowNanos - oldestUnsyncedNanos >= syncIntervalNanos;
+    }
+
+    /**
+     * Forces the appended records to disk if the oldest has waited longer than the sync interval.
+     *
+     * @param nowNanos The current time, from System.nanoTime.
+     * @throws IOException If the file cannot be forced.
+     */
+    public void syncIfDue(long nowNanos) throws IOException {
+        if (isSyncDue(nowNanos)) {
+            sync();
+        }
+    }
+
+    /**
+     * Retrieves the number of records in the journal.
+     *
+     * @return The number of moves journaled.
+     */
+    public int getRecordCount() {
+        return nextSequence;
+    }
+
+    /**
+     * Forces the remaining records to disk and closes the file.
+     *
+     * @throws IOException If the file cannot be forced or closed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * The result of replaying a journal.
+     */
+    public static final class Recovery {
+        /**
+         * The journal file.
+         */
+        private final Path file;
+
+        /**
+         * The game rebuilt from the valid records.
+         */
+        private final Game game;
+
+        /**
+         * The moves replayed, in the form GameController records them.
+         */
+        private final List<Move> moves;
+
+        /**
+         * The length of the header and the valid records, in bytes.
+         */
+        private final long validLength;
+
+        /**
+         * The length of the file, in bytes.
+         */
+        private final long fileLength;
+
+        /**
+         * Why replaying stopped before the end of the file, or null if it did not.
+         */
+        private final String stopReason;
+
+        /**
+         * Constructs a new Recovery.
+         *
+         * @param file        The journal file.
+         * @param game        The rebuilt game.
+         * @param moves       The moves replayed.
+         * @param validLength The length of the valid part of the file.
+         * @param fileLength  The length of the file.
+         * @param stopReason  Why replaying stopped early, or null.
+         */
+        private Recovery(Path file, Game game, List<Move> moves, long validLength, long fileLength,
+                         String stopReason) {
+            this.file = file;
+            this.game = game;
+            this.moves = moves;
+            this.validLength = validLength;
+            this.fileLength = fileLength;
+            this.stopReason = stopReason;
+        }
+
+        /**
+         * Retrieves the rebuilt game. Console output is turned off.
+         *
+         * @return The game.
+         */
+        public Game getGame() {
+            return game;
+        }
+
+        /**
+         * Retrieves the moves replayed.
+         *
+         * @return The moves, oldest first.
+         */
+        public List<Move> getMoves() {
+            return moves;
+        }
+
+        /**
+         * Checks whether bytes after the last consistent record were ignored.
+         *
+         * @return True if the journal had a torn or corrupt tail.
+         */
+        public boolean isTruncated() {
+            return validLength < fileLength;
+        }
+
+        /**
+         * Retrieves why replaying stopped before the end of the file.
+         *
+         * @return The reason, or null if every record was replayed.
+         */
+        public String getStopReason() {
+            return stopReason;
+        }
+
+        /**
+         * Reopens the journal for appending after the last consistent record,
+         * cutting off any torn or corrupt tail.
+         *
+         * @return The journal, ready for appending.
+         * @throws IOException If the file cannot be opened.
+         */
+        public GameJournal resume() throws IOException {
+            return resume(DEFAULT_SYNC_EVERY, DEFAULT_SYNC_INTERVAL_MILLIS);
+        }
+
+        /**
+         * Reopens the journal for appending after the last consistent record,
+         * cutting off any torn or corrupt tail.
+         *
+         * @param syncEvery          The number of records between two forces to disk.
+         * @param syncIntervalMillis The longest time an appended record waits to be forced to disk.
+         * @return The journal, ready for appending.
+         * @throws IOException If the file cannot be opened.
+         */
+        public GameJournal resume(int syncEvery, long syncIntervalMillis) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE);
+            try {
+                if (isTruncated()) {
+                    channel.truncate(validLength);
+                    channel.force(true);
+                }
+                channel.position(validLength);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            return new GameJournal(channel, moves.size(), syncEvery, syncIntervalMillis);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package model;
+
+import java.io.IOException;
+
+/**
+ * The GameLoadException class reports where a streamed save file went wrong.
+ *
+ * Description:
+ * Thrown by GameLoader.streamGame when a line cannot be parsed or a move is not legal on the
+ * live Game. It carries the line number and how many moves had already been applied, and the
+ * Game itself is left in the state reached just before the failing line, so callers keep
+ * everything processed so far.
+ *
+ * @author Tai Zhi Xuan
+ */
+public class GameLoadException extends IOException {
+    /**
+     * The line that could not be processed, starting at 1.
+     */
+    private final int lineNumber;
+
+    /**
+     * The number of moves applied before the failure.
+     */
+    private final int movesApplied;
+
+    /**
+     * Constructs a new GameLoadException.
+     *
+     * @param message      What went wrong.
+     * @param lineNumber   The line that could not be processed.
+     * @param movesApplied The number of moves applied before the failure.
+     * @param cause        The underlying error, or null.
+     */
+    public GameLoadException(String message, int lineNumber, int movesApplied, Throwable cause) {
+        super("Line " + lineNumber + ": " + message, cause);
+        this.lineNumber = lineNumber;
+        this.movesApplied = movesApplied;
+    }
+
+    /**
+     * Retrieves the line that could not be processed.
+     *
+     * @return The line number, starting at 1.
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Retrieves how many moves were applied before the failure.
+     *
+     * @return The number of moves.
+     */
+    public int getMovesApplied() {
+        return movesApplied;
+    }
+}
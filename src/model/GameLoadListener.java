@@ -0,0 +1,60 @@
+package model;
+
+/**
+ * The GameLoadListener interface receives the contents of a text save while
+ * GameLoader.streamGame parses it, instead of waiting for a complete GameState.
+ *
+ * Description:
+ * Every method has an empty default, so a listener only overrides what it needs. Moves are
+ * handed over one at a time after they have been applied to the live Game, so the loader
+ * never holds the move history; board events for each move reach the Game's own observers.
+ *
+ * Design Pattern: Observer Pattern
+ * Role: Observer - Receives notifications from the loader as the file is parsed.
+ *
+ * @author Tai Zhi Xuan
+ */
+public interface GameLoadListener {
+    /**
+     * Called when the saved turn counter and side to move have been read.
+     *
+     * @param turn          The saved turn counter.
+     * @param currentPlayer The saved side to move.
+     */
+    default void onHeader(int turn, Color currentPlayer) {
+    }
+
+    /**
+     * Called for every piece of the saved final board.
+     *
+     * @param piece The piece, with its position in model coordinates.
+     */
+    default void onPiece(Piece piece) {
+    }
+
+    /**
+     * Called after a move has been validated and applied to the live Game.
+     *
+     * @param lineNumber The line of the move in the file.
+     * @param move       The move.
+     * @param game       The live Game, already showing the move.
+     */
+    default void onMove(int lineNumber, Move move, Game game) {
+    }
+
+    /**
+     * Called when the saved timer value has been read.
+     *
+     * @param secondsElapsed The saved seconds elapsed.
+     */
+    default void onTimer(int secondsElapsed) {
+    }
+
+    /**
+     * Called once the whole file has been read and checked.
+     *
+     * @param game The live Game in its final state.
+     */
+    default void onComplete(Game game) {
+    }
+}
@@ -1,13 +1,19 @@
 package model;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * The GameLoader class handles loading game states from text files.
  * It parses the file and reconstructs the GameState, including the board setup,
- * current player, turn counts, and move history.
+ * current player, turn counts, and move history. loadGame also reads the binary format
+ * of BinaryGameCodec, telling the two apart by the first bytes of the file. streamGame reads
+ * a text save line by line into a live Game instead, for histories too long to hold in memory.
  *
  * Design Pattern: Factory Pattern
  * Role: Utilizes PieceFactory to create piece instances.
@@ -16,6 +22,55 @@ import java.util.List;
  */
 public class GameLoader {
 
+    /**
+     * Loads a game state from a file in either the text or the binary format.
+     *
+     * @param filename The path to the saved game.
+     * @return A GameState object representing the loaded game.
+     * @throws IOException If an error occurs while reading or decoding the file.
+     */
+    public static GameState loadGame(String filename) throws IOException {
+        GameState gameState = readGame(Paths.get(filename));
+        System.out.println("Game loaded successfully from " + filename);
+        return gameState;
+    }
+
+    /**
+     * Loads a game state and rebuilds it by replaying its move history through Game.movePiece
+     * from the starting position, then checks the saved board against the replayed one. The
+     * returned state holds the replayed board, so each piece's move count, each Ram's direction
+     * and the transformation phase follow the rules even when the save did not record them.
+     *
+     * @param filename The path to the saved game, in either format.
+     * @return The rebuilt game state.
+     * @throws IOException If the file cannot be read or does not match its move history.
+     */
+    public static GameState loadGameVerified(String filename) throws IOException {
+        GameState gameState = new GameVerifier().rebuild(readGame(Paths.get(filename)));
+        System.out.println("Game loaded and verified from " + filename);
+        return gameState;
+    }
+
+    /**
+     * Reads a game state in either format without printing anything.
+     *
+     * @param file The saved game.
+     * @return The game state as saved.
+     * @throws IOException If the file cannot be read or decoded.
+     */
+    static GameState readGame(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer contents = ByteBuffer.wrap(bytes);
+        try {
+            if (BinaryGameCodec.isBinary(contents)) {
+                return BinaryGameCodec.decode(contents);
+            }
+            return readText(new BufferedReader(new InputStreamReader(new ByteArrayInputStream(bytes))));
+        } catch (IOException | RuntimeException e) {
+            throw new IOException("Error reading the game file: " + file, e);
+        }
+    }
+
     /**
      * Loads a game state from a specified text file.
      *
@@ -25,68 +80,246 @@ public class GameLoader {
      */
     public static GameState loadGameFromTextFile(String filename) throws IOException {
         try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            Board board = new Board();
-            board.clearBoard();
+            GameState gameState = readText(reader);
+            System.out.println("Game loaded successfully from " + filename);
+            return gameState;
+        } catch (IOException e) {
+            throw new IOException("Error reading the game file: " + filename, e);
+        }
+    }
+
+    /**
+     * Parses a text save.
+     *
+     * @param reader The text save.
+     * @return The game state as saved.
+     * @throws IOException If the reader fails or a move line is malformed.
+     */
+    private static GameState readText(BufferedReader reader) throws IOException {
+        Board board = new Board();
+        board.clearBoard();
+
+        String line;
+        int turn = 0;
+        Color currentPlayer = null;
+        List<Move> moveHistory = new ArrayList<>();
+        int secondsElapsed = 0;
+
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("//")) continue;
+
+            if (line.startsWith("moveCount:")) {
+                turn = Integer.parseInt(line.split(":")[1].trim());
+            } else if (line.startsWith("currentPlayer:")) {
+                currentPlayer = Color.valueOf(line.split(":")[1].trim());
+            } else if (line.startsWith("piece:")) {
+                Piece piece = parsePiece(line, board, currentPlayer);
+                board.setPieceAt(piece.getPosition(), piece);
+            } else if (line.startsWith("move:")) {
+                moveHistory.add(parseMove(line));
+            } else if (line.startsWith("secondsElapsed:")) {
+                secondsElapsed = Integer.parseInt(line.split(":")[1].trim());
+            }
+        }
+
+        GameState gameState = new GameState(board, currentPlayer, turn, moveHistory);
+        gameState.setSecondsElapsed(secondsElapsed);
+
+        gameState.updateGameOverStatus();
+        return gameState;
+    }
+
+    /**
+     * Streams a text save into a live Game. Moves are replayed from the starting position
+     * through Game.movePiece as they are read, each one checked against the piece on the board,
+     * and handed to the listener; the history is never held in memory. Once the file ends the
+     * replayed board and side to move are checked against the saved ones. A save without moves
+     * is loaded straight from its saved board. Board events reach the Game's observers as usual;
+     * callers replaying long histories usually turn its console output off first.
+     *
+     * @param filename The path to the text save.
+     * @param game     A Game in its starting position.
+     * @param listener Receives the contents of the file as they are processed.
+     * @return The game, in the saved final state.
+     * @throws GameLoadException If a line is malformed or a move is not legal; the game keeps
+     *                           every move before that line.
+     * @throws IOException       If the file cannot be read.
+     */
+    public static Game streamGame(String filename, Game game, GameLoadListener listener) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(filename))) {
+            return streamGame(reader, game, listener);
+        } catch (GameLoadException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new IOException("Error reading the game file: " + filename, e);
+        }
+    }
 
-            String line;
-            int turn = 0;
-            Color currentPlayer = null;
-            List<Move> moveHistory = new ArrayList<>();
-            int secondsElapsed = 0;
+    /**
+     * Streams a text save into a live Game; see streamGame(String, Game, GameLoadListener).
+     *
+     * @param reader   The text save.
+     * @param game     A Game in its starting position.
+     * @param listener Receives the contents of the file as they are processed.
+     * @return The game, in the saved final state.
+     * @throws GameLoadException If a line is malformed or a move is not legal.
+     * @throws IOException       If the reader fails.
+     */
+    public static Game streamGame(BufferedReader reader, Game game, GameLoadListener listener) throws IOException {
+        Board savedBoard = new Board(); // At most 40 pieces, whatever the length of the history
+        savedBoard.clearBoard();
+        int[] pieceLines = new int[Board.ROWS * Board.COLUMNS];
+        int turn = 0;
+        Color currentPlayer = null;
+        int headerLine = 0;
+        int lineNumber = 0;
+        int movesApplied = 0;
 
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (line.isEmpty() || line.startsWith("//")) continue;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("//")) continue;
 
+            Move move = null;
+            try {
                 if (line.startsWith("moveCount:")) {
                     turn = Integer.parseInt(line.split(":")[1].trim());
                 } else if (line.startsWith("currentPlayer:")) {
                     currentPlayer = Color.valueOf(line.split(":")[1].trim());
+                    headerLine = lineNumber;
+                    listener.onHeader(turn, currentPlayer);
                 } else if (line.startsWith("piece:")) {
-                    String[] parts = line.split(", ");
-                    String type = parts[0].split(":")[1].trim();
-                    int id = Integer.parseInt(parts[1].trim());
-                    int row = Integer.parseInt(parts[2].trim());
-                    int col = Integer.parseInt(parts[3].trim());
-                    Color color = Color.valueOf(parts[4].trim());
-
-                    boolean isRedTurn = currentPlayer.equals(Color.RED);
-                    Position adjustedPosition = board.rotateCoordinates(new Position(row, col), isRedTurn);
-
-                    Piece piece = PieceFactory.createPiece(type, color, id);
-                    piece.setPosition(adjustedPosition);
-                    board.setPieceAt(adjustedPosition, piece);
-                } else if (line.startsWith("move:")) {
-                    String[] parts = line.substring(5).split(",\\s*");
-                    if (parts.length != 6) {
-                        throw new IOException("Invalid move format: " + line);
+                    if (currentPlayer == null) {
+                        throw new IOException("Piece listed before the current player.");
                     }
-                    String player = parts[0].trim();
-                    String pieceType = parts[1].trim();
-                    int fromRow = Integer.parseInt(parts[2].trim());
-                    int fromCol = Integer.parseInt(parts[3].trim());
-                    int toRow = Integer.parseInt(parts[4].trim());
-                    int toCol = Integer.parseInt(parts[5].trim());
-
-                    Position from = new Position(fromRow, fromCol);
-                    Position to = new Position(toRow, toCol);
-
-                    Move move = new Move(player, pieceType, from, to);
-                    moveHistory.add(move);
+                    Piece piece = parsePiece(line, savedBoard, currentPlayer);
+                    savedBoard.setPieceAt(piece.getPosition(), piece);
+                    pieceLines[piece.getPosition().getIndex()] = lineNumber;
+                    listener.onPiece(piece);
+                } else if (line.startsWith("move:")) {
+                    move = parseMove(line);
                 } else if (line.startsWith("secondsElapsed:")) {
-                    secondsElapsed = Integer.parseInt(line.split(":")[1].trim());
+                    listener.onTimer(Integer.parseInt(line.split(":")[1].trim()));
                 }
+            } catch (IOException | RuntimeException e) {
+                throw new GameLoadException("Malformed line \"" + line + "\"", lineNumber, movesApplied, e);
             }
 
-            GameState gameState = new GameState(board, currentPlayer, turn, moveHistory);
-            gameState.setSecondsElapsed(secondsElapsed);
+            if (move != null) {
+                String problem = replay(game, move);
+                if (problem != null) {
+                    throw new GameLoadException(problem, lineNumber, movesApplied, null);
+                }
+                movesApplied++;
+                listener.onMove(lineNumber, move, game);
+            }
+        }
 
-            gameState.updateGameOverStatus();
+        if (movesApplied == 0) {
+            if (currentPlayer != null) {
+                Color savedPlayer = currentPlayer;
+                int savedTurn = turn;
+                game.applyBatch(() -> {
+                    game.setBoard(savedBoard);
+                    game.setCurrentPlayer(savedPlayer);
+                    game.setTurnCounter(savedTurn);
+                });
+            }
+        } else {
+            if (currentPlayer != null && currentPlayer != game.getCurrentPlayer()) {
+                throw new GameLoadException("Saved side to move is " + currentPlayer + " but the moves leave "
+                        + game.getCurrentPlayer() + " to move", headerLine, movesApplied, null);
+            }
+            for (int index = 0; index < pieceLines.length; index++) {
+                Position position = Position.fromIndex(index);
+                Piece saved = savedBoard.getPieceAt(position);
+                Piece replayed = game.getBoard().getPieceAt(position);
+                if (saved == null && replayed == null) {
+                    continue;
+                }
+                if (saved == null || replayed == null || !saved.getType().equals(replayed.getType())
+                        || saved.getColor() != replayed.getColor()) {
+                    throw new GameLoadException("Saved board does not match the moves at " + position,
+                            saved != null ? pieceLines[index] : lineNumber, movesApplied, null);
+                }
+            }
+        }
+        listener.onComplete(game);
+        return game;
+    }
 
-            System.out.println("Game loaded successfully from " + filename);
-            return gameState;
-        } catch (IOException e) {
-            throw new IOException("Error reading the game file: " + filename, e);
+    /**
+     * Applies a move to a live Game after checking it against the piece on the board.
+     *
+     * @param game The game.
+     * @param move The move.
+     * @return Why the move was rejected, or null if it was applied.
+     */
+    static String replay(Game game, Move move) {
+        if (game.isGameOver()) {
+            return "Move " + move + " after the game ended";
+        }
+        Piece piece = game.getBoard().getPieceAt(move.getFrom());
+        if (piece == null) {
+            return "No piece at " + move.getFrom() + " for move " + move;
+        }
+        if (!piece.getType().equals(move.getPieceType()) || !piece.getColor().name().equalsIgnoreCase(move.getPlayer())) {
+            return "Found " + piece.getColor() + " " + piece.getType() + " at " + move.getFrom() + " for move " + move;
+        }
+        if (!game.movePiece(move.getFrom(), move.getTo())) {
+            return "Illegal move " + move;
         }
+        return null;
+    }
+
+    /**
+     * Parses a "piece:" line, turning the saved position back into model coordinates.
+     *
+     * @param line          The line.
+     * @param board         The board, used for the rotation.
+     * @param currentPlayer The saved side to move, which decides the rotation.
+     * @return The piece, with its position set.
+     */
+    private static Piece parsePiece(String line, Board board, Color currentPlayer) {
+        String[] parts = line.split(", ");
+        String type = parts[0].split(":")[1].trim();
+        int id = Integer.parseInt(parts[1].trim());
+        int row = Integer.parseInt(parts[2].trim());
+        int col = Integer.parseInt(parts[3].trim());
+        Color color = Color.valueOf(parts[4].trim());
+
+        boolean isRedTurn = currentPlayer.equals(Color.RED);
+        Position adjustedPosition = board.rotateCoordinates(Position.of(row, col), isRedTurn);
+
+        Piece piece = PieceFactory.createPiece(type, color, id);
+        piece.setPosition(adjustedPosition);
+        return piece;
+    }
+
+    /**
+     * Parses a "move:" line.
+     *
+     * @param line The line.
+     * @return The move.
+     * @throws IOException If the line does not have six fields.
+     */
+    private static Move parseMove(String line) throws IOException {
+        String[] parts = line.substring(5).split(",\\s*");
+        if (parts.length != 6) {
+            throw new IOException("Invalid move format: " + line);
+        }
+        String player = parts[0].trim();
+        String pieceType = parts[1].trim();
+        int fromRow = Integer.parseInt(parts[2].trim());
+        int fromCol = Integer.parseInt(parts[3].trim());
+        int toRow = Integer.parseInt(parts[4].trim());
+        int toCol = Integer.parseInt(parts[5].trim());
+
+        Position from = Position.of(fromRow, fromCol);
+        Position to = Position.of(toRow, toCol);
+
+        return new Move(player, pieceType, from, to);
     }
 }
\ No newline at end of file
@@ -16,4 +16,17 @@ public interface GameObserver {
      * @param event The type of event that has occurred.
      */
     void update(GameEvent event);
-}
\ No newline at end of file
+
+    /**
+     * Called by the Subject (Game) once per change, with every event of that change.
+     * The default implementation forwards each event to update, so existing observers keep
+     * working; observers that redraw should override it to redraw once per update.
+     *
+     * @param update The coalesced events.
+     */
+    default void onUpdate(GameUpdate update) {
+        for (GameEvent event : update.getEvents()) {
+            update(event);
+        }
+    }
+}
@@ -3,11 +3,16 @@ package model;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 
 /**
  * The GameSaver class handles saving the current state of the game to a text file.
  * It serializes the board state, current player, turn counts, and move history.
+ * Games can also be saved in the compact binary format of BinaryGameCodec.
  *
  * Design Pattern: Singleton Pattern (for PieceFactory)
  * Role: Utilizes PieceFactory to recreate pieces.
@@ -41,7 +46,7 @@ public class GameSaver {
             boolean isRedTurn = gameState.getCurrentPlayer().equals(Color.RED);
             for (int row = 0; row < gameState.getBoard().getRows(); row++) {
                 for (int col = 0; col < gameState.getBoard().getColumns(); col++) {
-                    Position position = new Position(row, col);
+                    Position position = Position.of(row, col);
                     Piece piece = gameState.getBoard().getPieceAt(position);
                     if (piece != null) {
                         Position adjustedPosition = gameState.getBoard().rotateCoordinates(position, isRedTurn);
@@ -82,6 +87,29 @@ public class GameSaver {
             System.out.println("Game saved successfully to " + filename);
         } catch (IOException e) {
             System.err.println("Failed to save the game to " + filename + ": " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Saves the provided GameState to a file in the compact binary format.
+     * GameLoader.loadGame recognizes the format automatically.
+     *
+     * @param gameState The current state of the game to be saved.
+     * @param filename  The name of the file where the game state will be saved.
+     * @throws IOException If an error occurs while writing to the file.
+     */
+    public static void saveGameAsBinary(GameState gameState, String filename) throws IOException {
+        ByteBuffer encoded = BinaryGameCodec.encode(gameState);
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (encoded.hasRemaining()) {
+                channel.write(encoded);
+            }
+            System.out.println("Game saved successfully to " + filename);
+        } catch (IOException e) {
+            System.err.println("Failed to save the game to " + filename + ": " + e.getMessage());
+            throw e;
         }
     }
 }
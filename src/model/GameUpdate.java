@@ -0,0 +1,437 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The GameUpdate class describes everything that changed in a game during one notification.
+ *
+ * Description:
+ * A single move can raise several events (MOVE, TRANSFORM, sometimes a second TRANSFORM and
+ * GAME_OVER). The Game collects them while the move runs and sends observers one GameUpdate
+ * instead of one call per event. Besides the events, an update carries the change itself:
+ * the moves played, the pieces captured, the squares whose contents changed, the pieces that
+ * transformed and the side to move afterwards, so observers can apply the delta instead of
+ * rescanning the board. Updates waiting for a slow observer are merged, so an observer that
+ * falls behind catches up with a single call. Instances are immutable and safe to hand to
+ * other threads.
+ *
+ * Design Pattern: Observer Pattern
+ * Role: Event Object - Carries the coalesced state change from the Subject to its Observers.
+ *
+ * @author Tai Zhi Xuan
+ */
+public final class GameUpdate {
+    /**
+     * The changed-squares mask with every square of the board set.
+     */
+    private static final long ALL_SQUARES = (1L << (Board.ROWS * Board.COLUMNS)) - 1;
+
+    /**
+     * The events that occurred, in GameEvent declaration order.
+     */
+    private final Set<GameEvent> events;
+
+    /**
+     * The moves played, oldest first.
+     */
+    private final List<Move> moves;
+
+    /**
+     * The pieces captured, oldest first, as they stood before being taken.
+     */
+    private final List<PieceInfo> captures;
+
+    /**
+     * The pieces created by transformations, oldest first.
+     */
+    private final List<PieceInfo> transformations;
+
+    /**
+     * One bit per square (bit = row * 5 + column) whose contents changed.
+     */
+    private final long changedSquares;
+
+    /**
+     * The player to move after the change.
+     */
+    private final Color sideToMove;
+
+    /**
+     * Constructs a new GameUpdate.
+     *
+     * @param events          The events that occurred.
+     * @param moves           The moves played.
+     * @param captures        The pieces captured.
+     * @param transformations The pieces created by transformations.
+     * @param changedSquares  The mask of changed squares.
+     * @param sideToMove      The player to move after the change.
+     */
+    private GameUpdate(Set<GameEvent> events, List<Move> moves, List<PieceInfo> captures,
+                       List<PieceInfo> transformations, long changedSquares, Color sideToMove) {
+        this.events = Collections.unmodifiableSet(events.isEmpty()
+                ? EnumSet.noneOf(GameEvent.class)
+                : EnumSet.copyOf(events));
+        this.moves = List.copyOf(moves);
+        this.captures = List.copyOf(captures);
+        this.transformations = List.copyOf(transformations);
+        this.changedSquares = changedSquares;
+        this.sideToMove = sideToMove;
+    }
+
+    /**
+     * Retrieves the events that occurred.
+     *
+     * @return An unmodifiable set of events.
+     */
+    public Set<GameEvent> getEvents() {
+        return events;
+    }
+
+    /**
+     * Checks whether an event occurred.
+     *
+     * @param event The event to check.
+     * @return True if the event is part of this update.
+     */
+    public boolean contains(GameEvent event) {
+        return events.contains(event);
+    }
+
+    /**
+     * Checks whether the board changed, either by a move, a transformation or a reset.
+     * Also true when only the side to move changed, since the GUI turns the board to face it.
+     *
+     * @return True if observers showing the board need to redraw it.
+     */
+    public boolean isBoardChanged() {
+        return contains(GameEvent.MOVE) || contains(GameEvent.TRANSFORM) || contains(GameEvent.RESET);
+    }
+
+    /**
+     * Retrieves the most recent move of this update.
+     *
+     * @return The move, or null if no move was played.
+     */
+    public Move getMove() {
+        return moves.isEmpty() ? null : moves.get(moves.size() - 1);
+    }
+
+    /**
+     * Retrieves every move of this update. More than one only if updates were merged.
+     *
+     * @return An unmodifiable list of moves, oldest first.
+     */
+    public List<Move> getMoves() {
+        return moves;
+    }
+
+    /**
+     * Retrieves the pieces captured.
+     *
+     * @return An unmodifiable list of captured pieces, oldest first.
+     */
+    public List<PieceInfo> getCaptures() {
+        return captures;
+    }
+
+    /**
+     * Retrieves the pieces created by transformations, at the squares where they now stand.
+     *
+     * @return An unmodifiable list of transformed pieces, oldest first.
+     */
+    public List<PieceInfo> getTransformations() {
+        return transformations;
+    }
+
+    /**
+     * Checks whether the contents of a square changed.
+     *
+     * @param position The square.
+     * @return True if the square must be redrawn.
+     */
+    public boolean isSquareChanged(Position position) {
+        return (changedSquares & (1L << position.getIndex())) != 0;
+    }
+
+    /**
+     * Retrieves the squares whose contents changed.
+     *
+     * @return The changed squares in row-major order.
+     */
+    public List<Position> getChangedSquares() {
+        List<Position> squares = new ArrayList<>(Long.bitCount(changedSquares));
+        for (long mask = changedSquares; mask != 0; mask &= mask - 1) {
+            squares.add(Position.fromIndex(Long.numberOfTrailingZeros(mask)));
+        }
+        return squares;
+    }
+
+    /**
+     * Retrieves the changed squares as a bit mask, one bit per square index.
+     *
+     * @return The mask of changed squares.
+     */
+    public long getChangedSquareMask() {
+        return changedSquares;
+    }
+
+    /**
+     * Retrieves the player to move after the change.
+     *
+     * @return The side to move.
+     */
+    public Color getSideToMove() {
+        return sideToMove;
+    }
+
+    /**
+     * Combines this update with a later one.
+     *
+     * @param later The update that happened after this one.
+     * @return An update containing the changes of both.
+     */
+    public GameUpdate merge(GameUpdate later) {
+        EnumSet<GameEvent> mergedEvents = EnumSet.noneOf(GameEvent.class);
+        mergedEvents.addAll(events);
+        mergedEvents.addAll(later.events);
+        return new GameUpdate(mergedEvents,
+                concat(moves, later.moves),
+                concat(captures, later.captures),
+                concat(transformations, later.transformations),
+                changedSquares | later.changedSquares,
+                later.sideToMove);
+    }
+
+    /**
+     * Joins two lists.
+     *
+     * @param first  The earlier elements.
+     * @param second The later elements.
+     * @param <T>    The element type.
+     * @return A list of both.
+     */
+    private static <T> List<T> concat(List<T> first, List<T> second) {
+        if (first.isEmpty()) {
+            return second;
+        }
+        if (second.isEmpty()) {
+            return first;
+        }
+        List<T> joined = new ArrayList<>(first.size() + second.size());
+        joined.addAll(first);
+        joined.addAll(second);
+        return joined;
+    }
+
+    /**
+     * Returns a readable description of the update.
+     *
+     * @return The events and changes of the update.
+     */
+    @Override
+    public String toString() {
+        return "GameUpdate" + events + " moves=" + moves.size() + " captures=" + captures
+                + " transformations=" + transformations + " changed=" + getChangedSquares()
+                + " sideToMove=" + sideToMove;
+    }
+
+    /**
+     * An immutable record of a piece at one moment: its type, color and square.
+     * Pieces themselves keep changing, so updates describe them with these instead.
+     */
+    public static final class PieceInfo {
+        /**
+         * The piece type, e.g. "Tor".
+         */
+        private final String type;
+
+        /**
+         * The piece color.
+         */
+        private final Color color;
+
+        /**
+         * The square of the piece.
+         */
+        private final Position position;
+
+        /**
+         * Constructs a new PieceInfo describing a piece as it stands now.
+         *
+         * @param piece The piece.
+         */
+        PieceInfo(Piece piece) {
+            this.type = piece.getType();
+            this.color = piece.getColor();
+            this.position = piece.getPosition();
+        }
+
+        /**
+         * Retrieves the piece type.
+         *
+         * @return The type, e.g. "Tor".
+         */
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * Retrieves the piece color.
+         *
+         * @return The color.
+         */
+        public Color getColor() {
+            return color;
+        }
+
+        /**
+         * Retrieves the square of the piece.
+         *
+         * @return The position.
+         */
+        public Position getPosition() {
+            return position;
+        }
+
+        /**
+         * Returns a readable description of the piece.
+         *
+         * @return The color, type and square.
+         */
+        @Override
+        public String toString() {
+            return color + " " + type + " " + position;
+        }
+    }
+
+    /**
+     * Collects the changes of one batch in the Game until they are sent as an update.
+     * Reused by the Game; not thread-safe.
+     */
+    static final class Builder {
+        /**
+         * The events raised so far.
+         */
+        private final EnumSet<GameEvent> events = EnumSet.noneOf(GameEvent.class);
+
+        /**
+         * The moves played so far.
+         */
+        private final List<Move> moves = new ArrayList<>(1);
+
+        /**
+         * The pieces captured so far.
+         */
+        private final List<PieceInfo> captures = new ArrayList<>(1);
+
+        /**
+         * The pieces created by transformations so far.
+         */
+        private final List<PieceInfo> transformations = new ArrayList<>();
+
+        /**
+         * The squares changed so far.
+         */
+        private long changedSquares;
+
+        /**
+         * Records an event.
+         *
+         * @param event The event.
+         */
+        void event(GameEvent event) {
+            events.add(event);
+        }
+
+        /**
+         * Records a move and the two squares it changed.
+         *
+         * @param move The move.
+         */
+        void move(Move move) {
+            moves.add(move);
+            changed(move.getFrom());
+            changed(move.getTo());
+        }
+
+        /**
+         * Records a captured piece. Must be called before the piece is replaced.
+         *
+         * @param piece The captured piece.
+         */
+        void capture(Piece piece) {
+            captures.add(new PieceInfo(piece));
+        }
+
+        /**
+         * Records a piece created by a transformation.
+         *
+         * @param piece The new piece, already on its square.
+         */
+        void transformed(Piece piece) {
+            transformations.add(new PieceInfo(piece));
+            changed(piece.getPosition());
+        }
+
+        /**
+         * Records a changed square.
+         *
+         * @param position The square.
+         */
+        void changed(Position position) {
+            changedSquares |= 1L << position.getIndex();
+        }
+
+        /**
+         * Records that every square may have changed, e.g. after a reset or a new board.
+         */
+        void changedAll() {
+            changedSquares = ALL_SQUARES;
+        }
+
+        /**
+         * Retrieves the number of transformations recorded so far.
+         *
+         * @return The number of transformed pieces.
+         */
+        int getTransformationCount() {
+            return transformations.size();
+        }
+
+        /**
+         * Checks whether anything has been recorded.
+         *
+         * @return True if there is nothing to send.
+         */
+        boolean isEmpty() {
+            return events.isEmpty();
+        }
+
+        /**
+         * Builds the update and clears the builder for the next batch.
+         *
+         * @param sideToMove The player to move after the change.
+         * @return The update.
+         */
+        GameUpdate build(Color sideToMove) {
+            GameUpdate update = new GameUpdate(events, moves, captures, transformations, changedSquares, sideToMove);
+            clear();
+            return update;
+        }
+
+        /**
+         * Discards everything recorded, e.g. when nobody is observing.
+         */
+        void clear() {
+            events.clear();
+            moves.clear();
+            captures.clear();
+            transformations.clear();
+            changedSquares = 0;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package model;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The GameVerifier class checks saved games against their move history.
+ *
+ * Description:
+ * A save records both the final board and the moves that led to it, but nothing guarantees
+ * they agree. The verifier replays the moves through Game.movePiece from the starting
+ * position, checking each one against the piece on the board, and then compares the replayed
+ * board, side to move and turn counter with the saved ones. One verifier reuses the same Game
+ * for every save, so replaying is allocation-light: a fresh starting board per save and a
+ * small move record per move. A single thread checks thousands of saves per second;
+ * verifyFiles spreads a batch of files over several threads, each with its own verifier.
+ * A save without moves has nothing to replay and is accepted as it is.
+ * A verifier is not thread-safe.
+ *
+ * @author Tai Zhi Xuan
+ */
+public final class GameVerifier {
+    /**
+     * The game the moves are replayed on; reset before every save.
+     */
+    private final Game game;
+
+    /**
+     * Constructs a new GameVerifier.
+     */
+    public GameVerifier() {
+        this.game = new Game(new Board());
+        this.game.setConsoleOutput(false);
+    }
+
+    /**
+     * Replays a saved game and compares the result with the saved board.
+     * Only piece types and colors are compared, since text saves do not record move counts
+     * or Ram directions.
+     *
+     * @param saved The saved game.
+     * @return Why the save does not match its history, or null if it does.
+     */
+    public String verify(GameState saved) {
+        List<Move> moves = saved.getMoveHistory();
+        if (moves.isEmpty()) {
+            return null;
+        }
+        game.resetGame();
+        for (int i = 0; i < moves.size(); i++) {
+            String problem = GameLoader.replay(game, moves.get(i));
+            if (problem != null) {
+                return "Move " + (i + 1) + ": " + problem;
+            }
+        }
+        if (saved.getCurrentPlayer() != game.getCurrentPlayer()) {
+            return "Saved side to move is " + saved.getCurrentPlayer() + " but the moves leave "
+                    + game.getCurrentPlayer() + " to move";
+        }
+        if (saved.getTurn() != game.getTurnCounter()) {
+            return "Saved turn counter is " + saved.getTurn() + " but the moves reach " + game.getTurnCounter();
+        }
+        Board board = game.getBoard();
+        for (int index = 0; index < Board.ROWS * Board.COLUMNS; index++) {
+            Position position = Position.fromIndex(index);
+            Piece expected = saved.getBoard().getPieceAt(position);
+            Piece replayed = board.getPieceAt(position);
+            if (expected == null && replayed == null) {
+                continue;
+            }
+            if (expected == null || replayed == null || !expected.getType().equals(replayed.getType())
+                    || expected.getColor() != replayed.getColor()) {
+                return "Saved board does not match the moves at " + position;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Replays an archived game straight from the archive, without building a GameState or any
+     * Move objects, and compares the result with the archived board, including Ram directions.
+     *
+     * @param archived The archived game.
+     * @return Why the game does not match its history, or null if it does.
+     */
+    public String verify(GameArchive.ArchivedGame archived) {
+        int moveCount = archived.getMoveCount();
+        if (moveCount == 0) {
+            return null;
+        }
+        game.resetGame();
+        for (int i = 0; i < moveCount; i++) {
+            int packed = archived.getPackedMove(i);
+            if (!replay(packed)) {
+                return "Move " + (i + 1) + " is not legal";
+            }
+        }
+        if (archived.getCurrentPlayer() != game.getCurrentPlayer()) {
+            return "Saved side to move is " + archived.getCurrentPlayer() + " but the moves leave "
+                    + game.getCurrentPlayer() + " to move";
+        }
+        if (archived.getTurn() != game.getTurnCounter()) {
+            return "Saved turn counter is " + archived.getTurn() + " but the moves reach " + game.getTurnCounter();
+        }
+        Board board = game.getBoard();
+        for (int index = 0; index < Board.ROWS * Board.COLUMNS; index++) {
+            if (archived.getSquare(index) != BinaryGameCodec.squareCode(board.getPieceAt(Position.fromIndex(index)))) {
+                return "Saved board does not match the moves at " + Position.fromIndex(index);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Verifies a saved game and rebuilds it from the replayed board, so every piece's move
+     * count, every Ram's direction and the transformation phase follow the rules.
+     *
+     * @param saved The saved game.
+     * @return The rebuilt game state, or the saved one if it has no moves.
+     * @throws IOException If the save does not match its history.
+     */
+    public GameState rebuild(GameState saved) throws IOException {
+        String problem = verify(saved);
+        if (problem != null) {
+            throw new IOException("Saved game does not match its move history: " + problem);
+        }
+        if (saved.getMoveHistory().isEmpty()) {
+            return saved;
+        }
+        // The next verify resets the game onto a new board, so this one can be handed over
+        GameState rebuilt = new GameState(game.getBoard(), game.getCurrentPlayer(), game.getTurnCounter(),
+                saved.getMoveHistory());
+        rebuilt.setSecondsElapsed(saved.getSecondsElapsed());
+        rebuilt.updateGameOverStatus();
+        return rebuilt;
+    }
+
+    /**
+     * Verifies many save files in parallel.
+     *
+     * @param files   The save files, in either format.
+     * @param threads The number of threads to use.
+     * @return The files that failed, in path order, with the reason for each.
+     * @throws InterruptedException If interrupted while waiting for the threads.
+     */
+    public static Map<Path, String> verifyFiles(List<Path> files, int threads) throws InterruptedException {
+        Map<Path, String> failures = new ConcurrentSkipListMap<>();
+        ThreadLocal<GameVerifier> verifiers = ThreadLocal.withInitial(GameVerifier::new);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (Path file : files) {
+                pool.execute(() -> {
+                    try {
+                        String problem = verifiers.get().verify(GameLoader.readGame(file));
+                        if (problem != null) {
+                            failures.put(file, problem);
+                        }
+                    } catch (IOException e) {
+                        failures.put(file, e.getCause() != null ? e.getCause().getMessage() : e.toString());
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+        }
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        return failures;
+    }
+
+    /**
+     * Replays one packed move after checking it against the piece on the board.
+     *
+     * @param packed The move packed by BinaryGameCodec.
+     * @return True if the move was legal and applied.
+     */
+    private boolean replay(int packed) {
+        if (game.isGameOver() || (packed & 0x3F) >= Board.ROWS * Board.COLUMNS
+                || (packed >>> 6 & 0x3F) >= Board.ROWS * Board.COLUMNS) {
+            return false;
+        }
+        Position from = Position.fromIndex(packed & 0x3F);
+        Piece piece = game.getBoard().getPieceAt(from);
+        if (piece == null || MoveRecord.typeCode(piece.getType()) != (packed >>> 12 & 0x7)
+                || (piece.getColor() == Color.BLUE) != ((packed & 1 << 15) != 0)) {
+            return false;
+        }
+        return game.movePiece(from, Position.fromIndex(packed >>> 6 & 0x3F));
+    }
+}
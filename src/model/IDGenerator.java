@@ -1,20 +1,17 @@
 package model;
 
 /**
- * The IDGenerator class is a singleton responsible for generating unique identifiers
- * for different types of pieces in the game. It ensures that each piece has a distinct ID.
+ * The IDGenerator class is responsible for generating identifiers for different types
+ * of pieces in the game. It ensures that each piece on a board has a distinct ID.
  *
- * Design Pattern: Singleton Pattern
- * Role: Singleton - Ensures a single instance exists throughout the application.
+ * Each Board owns its own IDGenerator, so ID allocation is scoped to one game:
+ * concurrent games never contend on a shared monitor, and a game always hands out
+ * the same IDs in the same order, which keeps replays deterministic.
+ * An IDGenerator is not thread-safe; it is confined to the thread that is driving its game.
  *
  * @author Tiffany Jong Shu Ting
  */
 public class IDGenerator {
-    /**
-     * The single instance of IDGenerator.
-     */
-    private static volatile IDGenerator instance = null;
-
     /**
      * Counter for Ram pieces.
      */
@@ -41,10 +38,9 @@ public class IDGenerator {
     private final int sauId;
 
     /**
-     * Private constructor to prevent instantiation.
-     * Initializes all piece ID counters.
+     * Constructs a new IDGenerator with all piece ID counters at their starting values.
      */
-    private IDGenerator() {
+    public IDGenerator() {
         this.ramId = 1;
         this.torId = 7;
         this.xorId = 6;
@@ -53,20 +49,17 @@ public class IDGenerator {
     }
 
     /**
-     * Retrieves the single instance of IDGenerator.
-     * Implements double-checked locking for thread safety.
+     * Constructs a new IDGenerator that continues from the counters of another one.
+     * Used when a board is copied so that the copy allocates the same IDs as the original.
      *
-     * @return The IDGenerator instance.
+     * @param other The IDGenerator to copy.
      */
-    public static IDGenerator getInstance() {
-        if (instance == null) {
-            synchronized (IDGenerator.class) {
-                if (instance == null) {
-                    instance = new IDGenerator();
-                }
-            }
-        }
-        return instance;
+    public IDGenerator(IDGenerator other) {
+        this.ramId = other.ramId;
+        this.torId = other.torId;
+        this.xorId = other.xorId;
+        this.bizId = other.bizId;
+        this.sauId = other.sauId;
     }
 
     /**
@@ -75,7 +68,7 @@ public class IDGenerator {
      *
      * @return The next Ram ID.
      */
-    public synchronized int getNextRamId() {
+    public int getNextRamId() {
         if (ramId <= 5) {
             return ramId++;
         } else {
@@ -108,7 +101,7 @@ public class IDGenerator {
      *
      * @return The next Biz ID.
      */
-    public synchronized int getNextBizId() {
+    public int getNextBizId() {
         if (bizId <= 9) {
             return bizId++;
         } else {
@@ -130,7 +123,7 @@ public class IDGenerator {
      * Resets the ID counters for Ram and Biz pieces.
      * Useful when starting a new game.
      */
-    public synchronized void resetIds() {
+    public void resetIds() {
         this.ramId = 1;
         this.bizId = 8;
     }
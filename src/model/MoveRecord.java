@@ -0,0 +1,219 @@
+package model;
+
+/**
+ * The MoveRecord class packs an executed move into a single long.
+ *
+ * Description:
+ * Packed records let the MoveRingBuffer store moves in a preallocated long[] so publishing
+ * a move never allocates. Squares are stored as their index (row * 5 + column) and piece
+ * types as small codes. The layout, from the lowest bit, is:
+ * <ul>
+ *   <li>bits 0-5: from square, bits 6-11: to square</li>
+ *   <li>bits 12-14: moved piece type, bit 15: moved piece is Blue</li>
+ *   <li>bits 16-18: captured piece type (0 for none), bit 19: captured piece is Blue</li>
+ *   <li>bits 20-25: number of pieces transformed by the move, bit 26: the move ended the game</li>
+ *   <li>bits 32-63: the individual turn number after the move</li>
+ * </ul>
+ *
+ * @author Tai Zhi Xuan
+ */
+public final class MoveRecord {
+    /**
+     * The type code of an empty square or a move without a capture.
+     */
+    public static final int NONE = 0;
+
+    /**
+     * The piece types indexed by their type code.
+     */
+    private static final String[] TYPES = {null, "Ram", "Tor", "Xor", "Biz", "Sau"};
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private MoveRecord() {
+    }
+
+    /**
+     * Packs a move into a record.
+     *
+     * @param from         The starting square.
+     * @param to           The target square.
+     * @param piece        The moved piece.
+     * @param captured     The captured piece, or null.
+     * @param transformed  The number of pieces transformed by the move.
+     * @param gameOver     Whether the move ended the game.
+     * @param turn         The individual turn number after the move.
+     * @return The packed record.
+     */
+    public static long pack(Position from, Position to, Piece piece, Piece captured,
+                            int transformed, boolean gameOver, int turn) {
+        long record = from.getIndex()
+                | (long) to.getIndex() << 6
+                | (long) typeCode(piece.getType()) << 12
+                | (piece.getColor() == Color.BLUE ? 1L << 15 : 0L);
+        if (captured != null) {
+            record |= (long) typeCode(captured.getType()) << 16
+                    | (captured.getColor() == Color.BLUE ? 1L << 19 : 0L);
+        }
+        return record
+                | (long) Math.min(transformed, 63) << 20
+                | (gameOver ? 1L << 26 : 0L)
+                | (long) turn << 32;
+    }
+
+    /**
+     * Retrieves the type code of a piece type.
+     *
+     * @param type The piece type, e.g. "Tor".
+     * @return The code between 1 and 5.
+     * @throws IllegalArgumentException If the type is unknown.
+     */
+    public static int typeCode(String type) {
+        switch (type) {
+            case "Ram": return 1;
+            case "Tor": return 2;
+            case "Xor": return 3;
+            case "Biz": return 4;
+            case "Sau": return 5;
+            default: throw new IllegalArgumentException("Unknown piece type: " + type);
+        }
+    }
+
+    /**
+     * Retrieves the piece type of a type code.
+     *
+     * @param code The code, normally between 0 and 5; read from a file it may be anything.
+     * @return The piece type, or null for NONE or a code that is not a piece type.
+     */
+    public static String typeName(int code) {
+        return code >= 0 && code < TYPES.length ? TYPES[code] : null;
+    }
+
+    /**
+     * Retrieves the starting square of a record.
+     *
+     * @param record The packed record.
+     * @return The square.
+     */
+    public static Position getFrom(long record) {
+        return Position.fromIndex((int) (record & 0x3F));
+    }
+
+    /**
+     * Retrieves the target square of a record.
+     *
+     * @param record The packed record.
+     * @return The square.
+     */
+    public static Position getTo(long record) {
+        return Position.fromIndex((int) (record >>> 6 & 0x3F));
+    }
+
+    /**
+     * Retrieves the type code of the moved piece.
+     *
+     * @param record The packed record.
+     * @return The type code.
+     */
+    public static int getPieceType(long record) {
+        return (int) (record >>> 12 & 0x7);
+    }
+
+    /**
+     * Retrieves the color of the moved piece.
+     *
+     * @param record The packed record.
+     * @return The color.
+     */
+    public static Color getColor(long record) {
+        return (record & 1L << 15) != 0 ? Color.BLUE : Color.RED;
+    }
+
+    /**
+     * Retrieves the type code of the captured piece.
+     *
+     * @param record The packed record.
+     * @return The type code, or NONE if nothing was captured.
+     */
+    public static int getCapturedType(long record) {
+        return (int) (record >>> 16 & 0x7);
+    }
+
+    /**
+     * Retrieves the color of the captured piece.
+     *
+     * @param record The packed record.
+     * @return The color, or null if nothing was captured.
+     */
+    public static Color getCapturedColor(long record) {
+        if (getCapturedType(record) == NONE) {
+            return null;
+        }
+        return (record & 1L << 19) != 0 ? Color.BLUE : Color.RED;
+    }
+
+    /**
+     * Retrieves the number of pieces transformed by the move.
+     *
+     * @param record The packed record.
+     * @return The number of transformed pieces.
+     */
+    public static int getTransformedCount(long record) {
+        return (int) (record >>> 20 & 0x3F);
+    }
+
+    /**
+     * Checks whether the move ended the game.
+     *
+     * @param record The packed record.
+     * @return True if the game is over.
+     */
+    public static boolean isGameOver(long record) {
+        return (record & 1L << 26) != 0;
+    }
+
+    /**
+     * Retrieves the individual turn number after the move.
+     *
+     * @param record The packed record.
+     * @return The turn number.
+     */
+    public static int getTurn(long record) {
+        return (int) (record >>> 32);
+    }
+
+    /**
+     * Unpacks a record into a Move in the form GameController records it.
+     *
+     * @param record The packed record.
+     * @return The move.
+     */
+    public static Move toMove(long record) {
+        return new Move(getColor(record).name(), typeName(getPieceType(record)), getFrom(record), getTo(record));
+    }
+
+    /**
+     * Returns a readable description of a record.
+     *
+     * @param record The packed record.
+     * @return The description.
+     */
+    public static String toString(long record) {
+        StringBuilder text = new StringBuilder()
+                .append('#').append(getTurn(record)).append(' ')
+                .append(getColor(record)).append(' ').append(typeName(getPieceType(record)))
+                .append(' ').append(getFrom(record)).append(" -> ").append(getTo(record));
+        if (getCapturedType(record) != NONE) {
+            text.append(" x ").append(getCapturedColor(record)).append(' ')
+                    .append(typeName(getCapturedType(record)));
+        }
+        if (getTransformedCount(record) > 0) {
+            text.append(" transformed=").append(getTransformedCount(record));
+        }
+        if (isGameOver(record)) {
+            text.append(" game over");
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,377 @@
+package model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The MoveRingBuffer class is a preallocated journal of the moves executed in one Game.
+ *
+ * Description:
+ * The Game publishes every accepted move as a packed MoveRecord into a fixed long[] ring.
+ * It is the only writer, so publishing needs no lock and no allocation: it claims the next
+ * sequence number, stores the record and releases the sequence. Any number of Readers
+ * (persistence, spectator broadcast, metrics, an engine thinking ahead) follow the ring at
+ * their own pace, each tracking its own sequence. A Reader may be placed behind other
+ * Readers, so for example a broadcaster only sees moves the persister has already stored.
+ * The writer never waits for a Reader: a slow Reader must not hold up the game. A Reader
+ * that falls almost a whole ring behind is overrun. The oldest records are overwritten, so
+ * it skips past them, counts them as missed and tells its Handler, which must resync from
+ * the game itself. Each record slot is written with release semantics. A Reader rechecks
+ * the cursor after reading a slot, so it never hands on a record the writer was overwriting.
+ *
+ * Design Pattern: Ring Buffer (Disruptor) Pattern
+ * Role: Sequencer - Hands out sequence numbers; consumers follow without gating the writer.
+ *
+ * @author Tai Zhi Xuan
+ */
+public class MoveRingBuffer {
+    /**
+     * The sequence before the first record.
+     */
+    public static final long INITIAL_SEQUENCE = -1;
+
+    /**
+     * Handle for ordered access to the elements of records.
+     */
+    private static final VarHandle RECORD = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /**
+     * The packed records, indexed by sequence modulo capacity.
+     */
+    private final long[] records;
+
+    /**
+     * The capacity minus one, used to turn a sequence into an index.
+     */
+    private final int mask;
+
+    /**
+     * The highest published sequence.
+     */
+    private final Sequence cursor = new Sequence(INITIAL_SEQUENCE);
+
+    /**
+     * The next sequence to publish. Only used by the writer.
+     */
+    private long nextSequence = INITIAL_SEQUENCE + 1;
+
+    /**
+     * Constructs a new MoveRingBuffer.
+     *
+     * @param capacity The number of records the ring holds; must be a power of two, at least 4.
+     * @throws IllegalArgumentException If the capacity is not a power of two of at least 4.
+     */
+    public MoveRingBuffer(int capacity) {
+        if (capacity < 4 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two of at least 4: " + capacity);
+        }
+        this.records = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Retrieves the number of records the ring holds.
+     *
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return records.length;
+    }
+
+    /**
+     * Retrieves the highest published sequence.
+     *
+     * @return The sequence, or INITIAL_SEQUENCE if nothing was published.
+     */
+    public long getCursor() {
+        return cursor.get();
+    }
+
+    /**
+     * Publishes a record. Must only be called by the single writer.
+     * Never allocates, locks or waits; a Reader a whole ring behind is overrun instead.
+     *
+     * @param record The packed MoveRecord.
+     * @return The sequence of the record.
+     */
+    public long publish(long record) {
+        long sequence = nextSequence;
+        // Release: a Reader that sees this record also sees the cursor of the one before
+        RECORD.setRelease(records, (int) sequence & mask, record);
+        nextSequence = sequence + 1;
+        cursor.setRelease(sequence);
+        return sequence;
+    }
+
+    /**
+     * Creates a Reader that starts after the last published record.
+     * Readers should be created before the moves they need are published.
+     *
+     * @param upstream Readers that must have read a record before this one may read it.
+     * @return The new Reader.
+     */
+    public Reader newReader(Reader... upstream) {
+        Sequence[] barrier = new Sequence[upstream.length + 1];
+        barrier[0] = cursor;
+        for (int i = 0; i < upstream.length; i++) {
+            barrier[i + 1] = upstream[i].sequence;
+        }
+        Reader reader = new Reader(barrier);
+        reader.sequence.setRelease(minimumSequence(barrier, cursor.get()));
+        return reader;
+    }
+
+    /**
+     * Computes the oldest sequence a Reader may still read. The slot of anything older may
+     * already hold, or be receiving, a newer record.
+     *
+     * @return The oldest readable sequence.
+     */
+    private long oldestReadable() {
+        return cursor.get() - records.length + 2;
+    }
+
+    /**
+     * Finds the lowest of several sequences.
+     *
+     * @param sequences The sequences.
+     * @param maximum   The result if it is lower than all of them.
+     * @return The lowest sequence.
+     */
+    private static long minimumSequence(Sequence[] sequences, long maximum) {
+        long minimum = maximum;
+        for (Sequence sequence : sequences) {
+            minimum = Math.min(minimum, sequence.get());
+        }
+        return minimum;
+    }
+
+    /**
+     * Waits a little: spins first, then yields, then parks briefly.
+     *
+     * @param idleCount How many times the caller has already waited.
+     * @return The next idle count.
+     */
+    private static int idle(int idleCount) {
+        if (idleCount < 100) {
+            Thread.onSpinWait();
+        } else if (idleCount < 200) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(50_000);
+        }
+        return idleCount + 1;
+    }
+
+    /**
+     * Receives the records read by a Reader.
+     */
+    @FunctionalInterface
+    public interface Handler {
+        /**
+         * Called once per record, in sequence order.
+         *
+         * @param sequence The sequence of the record.
+         * @param record   The packed MoveRecord.
+         */
+        void onRecord(long sequence, long record);
+
+        /**
+         * Called when the Reader fell too far behind and records were overwritten before it
+         * read them. The handler should resync from the game, e.g. by sending a full board.
+         * Does nothing by default.
+         *
+         * @param firstMissed The sequence of the first missed record.
+         * @param missed      The number of missed records.
+         */
+        default void onOverrun(long firstMissed, long missed) {
+        }
+    }
+
+    /**
+     * One consumer of the ring, following it at its own pace.
+     */
+    public final class Reader implements AutoCloseable {
+        /**
+         * The highest sequence this Reader has finished with.
+         */
+        private final Sequence sequence = new Sequence(INITIAL_SEQUENCE);
+
+        /**
+         * The sequences this Reader may not pass: the cursor and any upstream Readers.
+         */
+        private final Sequence[] barrier;
+
+        /**
+         * Whether process should keep running.
+         */
+        private volatile boolean running = true;
+
+        /**
+         * The number of records this Reader missed by being overrun.
+         */
+        private volatile long missedRecords;
+
+        /**
+         * Constructs a new Reader.
+         *
+         * @param barrier The sequences this Reader may not pass.
+         */
+        private Reader(Sequence[] barrier) {
+            this.barrier = barrier;
+        }
+
+        /**
+         * Retrieves the highest sequence this Reader has finished with.
+         *
+         * @return The sequence.
+         */
+        public long getSequence() {
+            return sequence.get();
+        }
+
+        /**
+         * Retrieves the highest sequence this Reader may read.
+         *
+         * @return The lowest of the cursor and the upstream Readers' sequences.
+         */
+        public long getAvailableSequence() {
+            return minimumSequence(barrier, Long.MAX_VALUE);
+        }
+
+        /**
+         * Retrieves the number of records this Reader missed because the writer overran it.
+         *
+         * @return The missed record count.
+         */
+        public long getMissedRecords() {
+            return missedRecords;
+        }
+
+        /**
+         * Hands every available record to the handler without waiting. If the writer has
+         * overwritten records this Reader had not read, they are skipped and reported to the
+         * handler's onOverrun first.
+         *
+         * @param handler The handler.
+         * @return The number of records read.
+         */
+        public int drain(Handler handler) {
+            long current = sequence.get();
+            long available = getAvailableSequence();
+            int read = 0;
+            for (long next = current + 1; next <= available; next++) {
+                long record = (long) RECORD.getAcquire(records, (int) next & mask);
+                long oldest = oldestReadable(); // Checked after the read: was the slot overwritten?
+                if (next < oldest) {
+                    long resume = Math.min(oldest, available + 1); // Never skip past the barrier
+                    missedRecords += resume - next;
+                    handler.onOverrun(next, resume - next);
+                    next = resume - 1;
+                    continue;
+                }
+                handler.onRecord(next, record);
+                read++;
+            }
+            if (available > current) {
+                sequence.setRelease(available); // Publishes the whole batch to downstream Readers at once
+            }
+            return read;
+        }
+
+        /**
+         * Hands records to the handler as they are published until the Reader is closed.
+         * Meant to run on a thread dedicated to this Reader.
+         *
+         * @param handler The handler.
+         */
+        public void process(Handler handler) {
+            int idleCount = 0;
+            while (running) {
+                idleCount = drain(handler) > 0 ? 0 : idle(idleCount);
+            }
+        }
+
+        /**
+         * Stops process.
+         */
+        @Override
+        public void close() {
+            running = false;
+        }
+    }
+
+    /**
+     * Left padding that keeps a Sequence's value off the cache line of neighbouring objects.
+     */
+    @SuppressWarnings("unused")
+    private static class LeftPadding {
+        /**
+         * Padding.
+         */
+        protected long p1, p2, p3, p4, p5, p6, p7;
+    }
+
+    /**
+     * The value of a Sequence, between the paddings.
+     */
+    private static class SequenceValue extends LeftPadding {
+        /**
+         * The sequence value, accessed through VALUE.
+         */
+        protected volatile long value;
+    }
+
+    /**
+     * A sequence number padded to its own cache line, so the writer and the Readers
+     * do not slow each other down by updating neighbouring memory.
+     */
+    @SuppressWarnings("unused")
+    private static final class Sequence extends SequenceValue {
+        /**
+         * Handle for ordered access to value.
+         */
+        private static final VarHandle VALUE;
+
+        static {
+            try {
+                VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        /**
+         * Padding.
+         */
+        protected long p9, p10, p11, p12, p13, p14, p15;
+
+        /**
+         * Constructs a new Sequence.
+         *
+         * @param initial The initial value.
+         */
+        Sequence(long initial) {
+            VALUE.setRelease(this, initial);
+        }
+
+        /**
+         * Reads the value with acquire semantics.
+         *
+         * @return The value.
+         */
+        long get() {
+            return (long) VALUE.getAcquire(this);
+        }
+
+        /**
+         * Writes the value with release semantics; cheaper than a volatile write.
+         *
+         * @param newValue The new value.
+         */
+        void setRelease(long newValue) {
+            VALUE.setRelease(this, newValue);
+        }
+    }
+}
@@ -9,6 +9,7 @@ import java.util.List;
  *
  * Design Patterns:
  * - Strategy Pattern: Utilizes MovementStrategy to delegate movement logic.
+ * - Flyweight Pattern: Movement strategies are shared per piece type rather than stored per piece.
  * - Template Method Pattern: Provides a framework for piece behaviors like movement and transformation
  *
  * @author Tai Zhi Xuan, Tiffany Jong Shu Ting
@@ -24,11 +25,6 @@ public abstract class Piece {
      */
     protected Color color;
 
-    /**
-     * The movement strategy defining how this piece can move.
-     */
-    protected MovementStrategy movementStrategy;
-
     /**
      * The number of moves this piece has made.
      */
@@ -51,6 +47,19 @@ public abstract class Piece {
         this.id = id;
     }
 
+    /**
+     * Constructs a copy of another piece with the same color, ID, position and move count.
+     * Used by each subclass's copy method.
+     *
+     * @param source The piece to copy.
+     */
+    protected Piece(Piece source) {
+        this.color = source.color;
+        this.moveCount = source.moveCount;
+        this.id = source.id;
+        this.position = source.position;
+    }
+
     /**
      * Retrieves the color of the piece.
      *
@@ -111,12 +120,31 @@ public abstract class Piece {
      * @return True if the move is valid; false otherwise.
      */
     public boolean isValidMove(Position newPosition, Board board) {
-        if (movementStrategy == null || position == null) {
+        if (position == null) {
             return false;
         }
-        return movementStrategy.isValidMove(position, newPosition, board);
+        return getMovementStrategy().isValidMove(position, newPosition, board);
     }
 
+    /**
+     * Retrieves the shared movement strategy for this piece type.
+     *
+     * Design Pattern: Flyweight Pattern
+     * Role: Client - Each subclass returns the single stateless instance of its strategy.
+     *
+     * @return The movement strategy of the piece.
+     */
+    public abstract MovementStrategy getMovementStrategy();
+
+    /**
+     * Creates an independent copy of this piece with the same type, color, ID,
+     * position and move count. Used when copying a board for search or self-play.
+     * Each subclass calls its own copy constructor, so no type lookup is needed.
+     *
+     * @return A new Piece equal in state to this one.
+     */
+    public abstract Piece copy();
+
 
     /**
      * Handles the transformation of the piece.
@@ -161,7 +189,7 @@ public abstract class Piece {
         List<Position> validMoves = new ArrayList<>();
         for (int row = 0; row < board.getRows(); row++) {
             for (int col = 0; col < board.getColumns(); col++) {
-                Position target = new Position(row, col);
+                Position target = Position.of(row, col);
                 if (isValidMove(target, board)) {
                     validMoves.add(target);
                 }
@@ -55,13 +55,13 @@ public class PieceFactory {
      *
      * @param type  The type of the piece (e.g., "ram", "tor").
      * @param color The color of the piece (RED or BLUE).
+     * @param idGen The ID generator of the board the piece will be placed on.
      * @return The created Piece instance.
      * @throws IllegalArgumentException If the piece type is unknown or not registered.
      *
      * @author Tiffany Jong Shu Ting
      */
-    public static Piece createPiece(String type, Color color) {
-        IDGenerator idGen = IDGenerator.getInstance();
+    public static Piece createPiece(String type, Color color, IDGenerator idGen) {
         int id = switch (type.toLowerCase()) {
             case "ram" -> idGen.getNextRamId();
             case "tor" -> idGen.getTorId();
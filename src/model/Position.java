@@ -6,32 +6,83 @@ import java.io.Serializable;
  * The Position class represents a specific location on the Kwazam Chess board.
  * It encapsulates row and column indices and provides utility methods for position management.
  *
+ * Positions are immutable. The 40 squares of the board are interned in a static table,
+ * so {@link #of(int, int)} never allocates for an on-board square and positions can be
+ * compared by reference as well as with equals.
+ *
+ * Design Pattern: Flyweight Pattern
+ * Role: Flyweight - One canonical instance per board square is shared by the whole application.
+ *
  * @author Tai Zhi Xuan, Tiffany Jong Shu Ting, Joyce Ong Pay Teng
  */
-public class Position implements Serializable {
+public final class Position implements Serializable {
     private static final long serialVersionUID = 1L; // For serialization compatibility
 
+    /**
+     * The canonical instances for every square, indexed by {@link #getIndex()}.
+     */
+    private static final Position[] SQUARES = new Position[Board.ROWS * Board.COLUMNS];
+
+    static {
+        for (int row = 0; row < Board.ROWS; row++) {
+            for (int col = 0; col < Board.COLUMNS; col++) {
+                SQUARES[row * Board.COLUMNS + col] = new Position(row, col);
+            }
+        }
+    }
+
     /**
      * The row index of the position on the board.
      */
-    private int row; // X-coordinate (row)
+    private final int row; // X-coordinate (row)
 
     /**
      * The column index of the position on the board.
      */
-    private int column; // Y-coordinate (column)
+    private final int column; // Y-coordinate (column)
 
     /**
      * Constructs a new Position with the specified row and column.
+     * Use {@link #of(int, int)} to obtain instances.
      *
      * @param row    The row index.
      * @param column The column index.
      */
-    public Position(int row, int column) {
+    private Position(int row, int column) {
         this.row = row;
         this.column = column;
     }
 
+    /**
+     * Retrieves the Position for the specified row and column.
+     * On-board squares return the shared canonical instance; off-board coordinates
+     * return a fresh instance so that bounds checks still report them.
+     *
+     * @param row    The row index.
+     * @param column The column index.
+     * @return The Position for the given coordinates.
+     */
+    public static Position of(int row, int column) {
+        if (row >= 0 && row < Board.ROWS && column >= 0 && column < Board.COLUMNS) {
+            return SQUARES[row * Board.COLUMNS + column];
+        }
+        return new Position(row, column);
+    }
+
+    /**
+     * Retrieves the canonical Position for the specified square index.
+     *
+     * @param index The square index, from 0 to 39 (row * 5 + column).
+     * @return The Position for the given index.
+     * @throws IllegalArgumentException If the index is not on the board.
+     */
+    public static Position fromIndex(int index) {
+        if (index < 0 || index >= SQUARES.length) {
+            throw new IllegalArgumentException("Invalid square index: " + index);
+        }
+        return SQUARES[index];
+    }
+
     /**
      * Retrieves the row index of the position.
      *
@@ -47,18 +98,11 @@ public class Position implements Serializable {
     public int getColumn() { return column; }
 
     /**
-     * Sets the row index of the position.
-     *
-     * @param row The new row index.
-     */
-    public void setRow(int row) { this.row = row; }
-
-    /**
-     * Sets the column index of the position.
+     * Retrieves the square index of the position (row * 5 + column).
      *
-     * @param column The new column index.
+     * @return The square index.
      */
-    public void setColumn(int column) { this.column = column; }
+    public int getIndex() { return row * Board.COLUMNS + column; }
 
     /**
      * Checks if the position is within the bounds of the board.
@@ -104,4 +148,13 @@ public class Position implements Serializable {
     public String toString() {
         return "(" + row + ", " + column + ")";
     }
+
+    /**
+     * Keeps on-board positions canonical when deserialized.
+     *
+     * @return The canonical instance for this square.
+     */
+    private Object readResolve() {
+        return of(row, column);
+    }
 }
@@ -26,21 +26,27 @@ public class Ram extends Piece {
      */
     public Ram(Color color, int ramId) {
         super(color, ramId);
-        this.movementStrategy = new RamMovement(); // Assign RamMovement strategy
         this.goingForward = true; // Default direction based on color
     }
 
     /**
-     * Determines if moving to the specified position is valid.
-     * Delegates the validation to the RamMovement strategy.
+     * Constructs a copy of another Ram, including its moving direction.
      *
-     * @param newPosition The target position to move to.
-     * @param board       The current state of the game board.
-     * @return True if the move is valid; false otherwise.
+     * @param source The Ram to copy.
+     */
+    private Ram(Ram source) {
+        super(source);
+        this.goingForward = source.goingForward;
+    }
+
+    /**
+     * Retrieves the shared RamMovement strategy.
+     *
+     * @return The RamMovement flyweight.
      */
     @Override
-    public boolean isValidMove(Position newPosition, Board board) {
-        return movementStrategy.isValidMove(position, newPosition, board);
+    public MovementStrategy getMovementStrategy() {
+        return RamMovement.INSTANCE;
     }
 
     /**
@@ -69,6 +75,16 @@ public class Ram extends Piece {
         }
     }
 
+    /**
+     * Creates an independent copy of this Ram, including its moving direction.
+     *
+     * @return A new Ram equal in state to this one.
+     */
+    @Override
+    public Piece copy() {
+        return new Ram(this);
+    }
+
     /**
      * Ram does not transform into any other piece.
      * This method is overridden to provide no transformation behavior.
@@ -10,10 +10,25 @@ package model;
  *
  * Design Patterns:
  * - Strategy Pattern: Implements the MovementStrategy interface to encapsulate Ram's movement behavior.
+ * - Flyweight Pattern: One stateless instance is shared by every Ram on every board.
  *
  * @author Tai Zhi Xuan
  */
-public class RamMovement implements MovementStrategy {
+public final class RamMovement implements MovementStrategy {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The shared instance used by every Ram piece. The strategy holds no state,
+     * so a single flyweight is enough for all boards and all copies of a board.
+     */
+    public static final RamMovement INSTANCE = new RamMovement();
+
+    /**
+     * Private constructor; use {@link #INSTANCE}.
+     */
+    private RamMovement() {
+    }
+
     /**
      * Validates whether the Ram can move from the 'from' position to the 'to' position on the given board.
      *
@@ -49,4 +64,13 @@ public class RamMovement implements MovementStrategy {
         }
         return false; // Invalid move
     }
+
+    /**
+     * Keeps the flyweight unique when a strategy is deserialized.
+     *
+     * @return The shared instance.
+     */
+    private Object readResolve() {
+        return INSTANCE;
+    }
 }
@@ -21,20 +21,35 @@ public class Sau extends Piece {
      */
     public Sau(Color color, int sauId) {
         super(color, sauId);
-        this.movementStrategy = new SauMovement(); // Assign SauMovement strategy
     }
 
     /**
-     * Determines if moving to the specified position is valid.
-     * Delegates the validation to the SauMovement strategy.
+     * Constructs a copy of another Sau.
      *
-     * @param newPosition The target position to move to.
-     * @param board       The current state of the game board.
-     * @return True if the move is valid; false otherwise.
+     * @param source The Sau to copy.
+     */
+    private Sau(Sau source) {
+        super(source);
+    }
+
+    /**
+     * Creates an independent copy of this Sau.
+     *
+     * @return A new Sau equal in state to this one.
+     */
+    @Override
+    public Piece copy() {
+        return new Sau(this);
+    }
+
+    /**
+     * Retrieves the shared SauMovement strategy.
+     *
+     * @return The SauMovement flyweight.
      */
     @Override
-    public boolean isValidMove(Position newPosition, Board board) {
-        return movementStrategy.isValidMove(position, newPosition, board);
+    public MovementStrategy getMovementStrategy() {
+        return SauMovement.INSTANCE;
     }
 
     /**
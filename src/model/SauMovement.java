@@ -10,10 +10,25 @@ package model;
  *
  * Design Patterns:
  * - Strategy Pattern: Implements the MovementStrategy interface to encapsulate Sau's movement behavior.
+ * - Flyweight Pattern: One stateless instance is shared by every Sau on every board.
  *
  * @author Joyce Ong Pay Teng
  */
-public class SauMovement implements MovementStrategy {
+public final class SauMovement implements MovementStrategy {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The shared instance used by every Sau piece. The strategy holds no state,
+     * so a single flyweight is enough for all boards and all copies of a board.
+     */
+    public static final SauMovement INSTANCE = new SauMovement();
+
+    /**
+     * Private constructor; use {@link #INSTANCE}.
+     */
+    private SauMovement() {
+    }
+
     /**
      * Validates whether the Sau can move from the 'from' position to the 'to' position on the given board.
      *
@@ -36,4 +51,13 @@ public class SauMovement implements MovementStrategy {
         }
         return false;
     }
+
+    /**
+     * Keeps the flyweight unique when a strategy is deserialized.
+     *
+     * @return The shared instance.
+     */
+    private Object readResolve() {
+        return INSTANCE;
+    }
 }
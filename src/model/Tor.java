@@ -23,20 +23,35 @@ public class Tor extends Piece {
      */
     public Tor(Color color, int torId) {
         super(color, torId);
-        this.movementStrategy = new TorMovement(); // Assign TorMovement strategy
     }
 
     /**
-     * Determines if moving to the specified position is valid.
-     * Delegates the validation to the TorMovement strategy.
+     * Constructs a copy of another Tor.
      *
-     * @param newPosition The target position to move to.
-     * @param board       The current state of the game board.
-     * @return True if the move is valid; false otherwise.
+     * @param source The Tor to copy.
+     */
+    private Tor(Tor source) {
+        super(source);
+    }
+
+    /**
+     * Creates an independent copy of this Tor.
+     *
+     * @return A new Tor equal in state to this one.
+     */
+    @Override
+    public Piece copy() {
+        return new Tor(this);
+    }
+
+    /**
+     * Retrieves the shared TorMovement strategy.
+     *
+     * @return The TorMovement flyweight.
      */
     @Override
-    public boolean isValidMove(Position newPosition, Board board) {
-        return movementStrategy.isValidMove(position, newPosition, board);
+    public MovementStrategy getMovementStrategy() {
+        return TorMovement.INSTANCE;
     }
 
     /**
@@ -47,7 +62,7 @@ public class Tor extends Piece {
     @Override
     public void transform(Board board) {
         if (moveCount == 2) {
-            Piece newXor = PieceFactory.createPiece("xor", this.color, IDGenerator.getInstance().getXorId());
+            Piece newXor = PieceFactory.createPiece("xor", this.color, board.getIdGenerator().getXorId());
             newXor.setPosition(this.position);
             newXor.setMoveCount(0);
             board.setPieceAt(this.position, newXor);
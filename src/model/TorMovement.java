@@ -11,10 +11,25 @@ package model;
  *
  * Design Patterns:
  * - Strategy Pattern: Implements the MovementStrategy interface to encapsulate Tor's movement behavior.
+ * - Flyweight Pattern: One stateless instance is shared by every Tor on every board.
  *
  * @author Tai Zhi Xuan
  */
-public class TorMovement implements MovementStrategy {
+public final class TorMovement implements MovementStrategy {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The shared instance used by every Tor piece. The strategy holds no state,
+     * so a single flyweight is enough for all boards and all copies of a board.
+     */
+    public static final TorMovement INSTANCE = new TorMovement();
+
+    /**
+     * Private constructor; use {@link #INSTANCE}.
+     */
+    private TorMovement() {
+    }
+
     /**
      * Validates whether the Tor can move from the 'from' position to the 'to' position on the given board.
      *
@@ -40,7 +55,7 @@ public class TorMovement implements MovementStrategy {
         int curRow = from.getRow() + stepRow;
         int curCol = from.getColumn() + stepCol;
         while (curRow != to.getRow() || curCol != to.getColumn()) {
-            if (!board.isPositionEmpty(new Position(curRow, curCol))) {
+            if (!board.isPositionEmpty(Position.of(curRow, curCol))) {
                 return false;
             }
             curRow += stepRow;
@@ -52,4 +67,13 @@ public class TorMovement implements MovementStrategy {
         if (occupant == null) return true;
         return occupant.getColor() != mover.getColor();
     }
+
+    /**
+     * Keeps the flyweight unique when a strategy is deserialized.
+     *
+     * @return The shared instance.
+     */
+    private Object readResolve() {
+        return INSTANCE;
+    }
 }
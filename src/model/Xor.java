@@ -22,20 +22,35 @@ public class Xor extends Piece {
      */
     public Xor(Color color, int xorId) {
         super(color, xorId);
-        this.movementStrategy = new XorMovement(); // Assign XorMovement strategy
     }
 
     /**
-     * Determines if moving to the specified position is valid.
-     * Delegates the validation to the XorMovement strategy.
+     * Constructs a copy of another Xor.
      *
-     * @param newPosition The target position to move to.
-     * @param board       The current state of the game board.
-     * @return True if the move is valid; false otherwise.
+     * @param source The Xor to copy.
+     */
+    private Xor(Xor source) {
+        super(source);
+    }
+
+    /**
+     * Creates an independent copy of this Xor.
+     *
+     * @return A new Xor equal in state to this one.
+     */
+    @Override
+    public Piece copy() {
+        return new Xor(this);
+    }
+
+    /**
+     * Retrieves the shared XorMovement strategy.
+     *
+     * @return The XorMovement flyweight.
      */
     @Override
-    public boolean isValidMove(Position newPosition, Board board) {
-        return movementStrategy.isValidMove(position, newPosition, board);
+    public MovementStrategy getMovementStrategy() {
+        return XorMovement.INSTANCE;
     }
 
     /**
@@ -46,7 +61,7 @@ public class Xor extends Piece {
     @Override
     public void transform(Board board) {
         if (moveCount == 2) {
-            Piece newTor = PieceFactory.createPiece("tor", this.color, IDGenerator.getInstance().getTorId());
+            Piece newTor = PieceFactory.createPiece("tor", this.color, board.getIdGenerator().getTorId());
             newTor.setPosition(this.position);
             newTor.setMoveCount(0);
             board.setPieceAt(this.position, newTor);
@@ -10,10 +10,25 @@ package model;
  *
  * Design Patterns:
  * - Strategy Pattern: Implements the MovementStrategy interface to encapsulate Xor's movement behavior.
+ * - Flyweight Pattern: One stateless instance is shared by every Xor on every board.
  *
  * @author Tai Zhi Xuan
  */
-public class XorMovement implements MovementStrategy {
+public final class XorMovement implements MovementStrategy {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The shared instance used by every Xor piece. The strategy holds no state,
+     * so a single flyweight is enough for all boards and all copies of a board.
+     */
+    public static final XorMovement INSTANCE = new XorMovement();
+
+    /**
+     * Private constructor; use {@link #INSTANCE}.
+     */
+    private XorMovement() {
+    }
+
     /**
      * Validates whether the Xor can move from the 'from' position to the 'to' position on the given board.
      *
@@ -36,7 +51,7 @@ public class XorMovement implements MovementStrategy {
         int curRow = from.getRow() + stepRow;
         int curCol = from.getColumn() + stepCol;
         while (curRow != to.getRow() || curCol != to.getColumn()) {
-            if (!board.isPositionEmpty(new Position(curRow, curCol))) {
+            if (!board.isPositionEmpty(Position.of(curRow, curCol))) {
                 return false;
             }
             curRow += stepRow;
@@ -48,4 +63,13 @@ public class XorMovement implements MovementStrategy {
         if (occupant == null) return true;
         return occupant.getColor() != mover.getColor();
     }
+
+    /**
+     * Keeps the flyweight unique when a strategy is deserialized.
+     *
+     * @return The shared instance.
+     */
+    private Object readResolve() {
+        return INSTANCE;
+    }
 }
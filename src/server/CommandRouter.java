@@ -0,0 +1,312 @@
+package server;
+
+import model.Position;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * CommandRouter turns protocol lines from a client into commands on the SessionManager.
+ *
+ * Description:
+ * The router is shared by every server front end, so the selector server and the blocking
+ * server answer the same lines in the same way. It never blocks: every command is executed
+ * inside the target game's session and the reply is delivered through a future.
+ * After each move the new board is encoded once; the same read-only bytes are pushed to the
+ * game's players and published to its spectators through the SpectatorHub.
+ *
+ * Design Pattern: Command Pattern
+ * Role: Invoker - Parses each line into a command and dispatches it to the right game.
+ *
+ * @author Tai Zhi Xuan
+ */
+public class CommandRouter {
+    /**
+     * The value of gameId for a client that is not attached to a game.
+     */
+    public static final long NO_GAME = -1;
+
+    /**
+     * The sessions commands are routed to.
+     */
+    private final SessionManager sessions;
+
+    /**
+     * The hub delivering board snapshots to spectators.
+     */
+    private final SpectatorHub spectators;
+
+    /**
+     * Constructs a new CommandRouter for the given sessions with its own SpectatorHub.
+     *
+     * @param sessions The SessionManager hosting the games.
+     */
+    public CommandRouter(SessionManager sessions) {
+        this(sessions, new SpectatorHub());
+    }
+
+    /**
+     * Constructs a new CommandRouter for the given sessions and spectators.
+     *
+     * @param sessions   The SessionManager hosting the games.
+     * @param spectators The hub delivering board snapshots to spectators.
+     */
+    public CommandRouter(SessionManager sessions, SpectatorHub spectators) {
+        this.sessions = sessions;
+        this.spectators = spectators;
+    }
+
+    /**
+     * Retrieves the hub delivering board snapshots to spectators.
+     *
+     * @return The SpectatorHub.
+     */
+    public SpectatorHub getSpectators() {
+        return spectators;
+    }
+
+    /**
+     * Handles one line from a client.
+     *
+     * @param gameId The game the client is attached to, or NO_GAME.
+     * @param line   The line without its terminator.
+     * @return A future completed with the reply for the client.
+     */
+    public CompletableFuture<Reply> handle(long gameId, String line) {
+        String command = line.trim();
+        if (command.equals("NEW")) {
+            GameSession session = sessions.createGame();
+            long id = session.getId();
+            return session.execute(LineProtocol::formatBoard)
+                    .thenApply(board -> new Reply("GAME " + id + "\n" + board, id, null, false));
+        }
+        if (command.startsWith("JOIN ")) {
+            long id;
+            try {
+                id = Long.parseLong(command.substring(5).trim());
+            } catch (NumberFormatException e) {
+                return completed(error("Invalid game ID"), gameId);
+            }
+            return sessions.execute(id, LineProtocol::formatBoard)
+                    .thenApply(board -> new Reply(board, id, null, false))
+                    .exceptionally(e -> failure(e, command).withGameId(gameId));
+        }
+        if (command.startsWith("WATCH ")) {
+            long id;
+            try {
+                id = Long.parseLong(command.substring(6).trim());
+            } catch (NumberFormatException e) {
+                return completed(error("Invalid game ID"), gameId);
+            }
+            return sessions.execute(id, LineProtocol::formatBoard)
+                    .thenApply(board -> new Reply(board, gameId, null, false).withWatch(id))
+                    .exceptionally(e -> failure(e, command).withGameId(gameId));
+        }
+        if (command.equals("UNWATCH")) {
+            return CompletableFuture.completedFuture(new Reply("OK\n", gameId, null, false).withWatch(NO_GAME));
+        }
+        if (command.equals("BOARD")) {
+            if (gameId == NO_GAME) {
+                return completed(error("Not in a game"), gameId);
+            }
+            return sessions.execute(gameId, LineProtocol::formatBoard)
+                    .thenApply(board -> new Reply(board, gameId, null, false))
+                    .exceptionally(e -> failure(e, command).withGameId(gameId));
+        }
+        if (command.equals("QUIT")) {
+            return CompletableFuture.completedFuture(new Reply("BYE\n", gameId, null, true));
+        }
+
+        int[] move = LineProtocol.parseMove(command);
+        if (move == null) {
+            return completed(error("Unknown command"), gameId);
+        }
+        if (gameId == NO_GAME) {
+            return completed(error("Not in a game"), gameId);
+        }
+        Position from = Position.of(move[0], move[1]);
+        Position to = Position.of(move[2], move[3]);
+        return sessions.execute(gameId, session -> {
+            if (!session.movePiece(from, to)) {
+                return error("Illegal move").withGameId(gameId);
+            }
+            ByteBuffer board = ByteBuffer.wrap(LineProtocol.formatBoard(session).getBytes(StandardCharsets.US_ASCII))
+                    .asReadOnlyBuffer();
+            spectators.publish(gameId, board); // Only parks the snapshot; never waits for spectators
+            return new Reply("OK\n", gameId, board, false);
+        }).exceptionally(e -> failure(e, command).withGameId(gameId));
+    }
+
+    /**
+     * Builds the reply for a command that failed. Only a game that does not exist is the
+     * client's fault; anything else, such as a disk failure or a bug, is logged and reported
+     * as an internal error so it is never mistaken for a bad command.
+     *
+     * @param error   The failure, possibly wrapped in a CompletionException.
+     * @param command The command that failed.
+     * @return The error reply, not attached to any game.
+     */
+    private static Reply failure(Throwable error, String command) {
+        Throwable cause = (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+        if (cause instanceof SessionManager.UnknownGameException unknown) {
+            return error("Unknown game " + unknown.getGameId());
+        }
+        System.err.println("Command \"" + command + "\" failed: " + cause);
+        cause.printStackTrace();
+        return error("Internal error");
+    }
+
+    /**
+     * Builds an error reply.
+     *
+     * @param reason The reason shown to the client.
+     * @return The reply, not attached to any game.
+     */
+    private static Reply error(String reason) {
+        return new Reply("ERR " + reason + "\n", NO_GAME, null, false);
+    }
+
+    /**
+     * Wraps a reply in a completed future, keeping the client's current game.
+     *
+     * @param reply  The reply.
+     * @param gameId The game the client is attached to.
+     * @return The completed future.
+     */
+    private static CompletableFuture<Reply> completed(Reply reply, long gameId) {
+        return CompletableFuture.completedFuture(reply.withGameId(gameId));
+    }
+
+    /**
+     * The outcome of one client line.
+     */
+    public static final class Reply {
+        /**
+         * The value of watch for a reply that leaves the client's spectating unchanged.
+         */
+        public static final long KEEP_WATCH = -2;
+
+        /**
+         * The text sent back to the client.
+         */
+        private final String response;
+
+        /**
+         * The game the client is attached to after the command.
+         */
+        private final long gameId;
+
+        /**
+         * The encoded BOARD line to push to every client attached to the game, or null.
+         */
+        private final ByteBuffer broadcast;
+
+        /**
+         * Whether the connection should be closed after the response.
+         */
+        private final boolean close;
+
+        /**
+         * The game the client watches after the command, NO_GAME to stop watching,
+         * or KEEP_WATCH to leave it unchanged.
+         */
+        private final long watch;
+
+        /**
+         * Constructs a new Reply that leaves the client's spectating unchanged.
+         *
+         * @param response  The text sent back to the client.
+         * @param gameId    The game the client is attached to after the command.
+         * @param broadcast The read-only BOARD line to push to the game's clients, or null.
+         * @param close     Whether to close the connection.
+         */
+        Reply(String response, long gameId, ByteBuffer broadcast, boolean close) {
+            this(response, gameId, broadcast, close, KEEP_WATCH);
+        }
+
+        /**
+         * Constructs a new Reply.
+         *
+         * @param response  The text sent back to the client.
+         * @param gameId    The game the client is attached to after the command.
+         * @param broadcast The read-only BOARD line to push to the game's clients, or null.
+         * @param close     Whether to close the connection.
+         * @param watch     The game the client watches afterwards, NO_GAME or KEEP_WATCH.
+         */
+        private Reply(String response, long gameId, ByteBuffer broadcast, boolean close, long watch) {
+            this.response = response;
+            this.gameId = gameId;
+            this.broadcast = broadcast;
+            this.close = close;
+            this.watch = watch;
+        }
+
+        /**
+         * Creates a copy of this reply attached to another game.
+         *
+         * @param gameId The game ID.
+         * @return The new reply.
+         */
+        Reply withGameId(long gameId) {
+            return new Reply(response, gameId, broadcast, close, watch);
+        }
+
+        /**
+         * Creates a copy of this reply that changes the game the client watches.
+         *
+         * @param watch The game to watch, or NO_GAME to stop watching.
+         * @return The new reply.
+         */
+        Reply withWatch(long watch) {
+            return new Reply(response, gameId, broadcast, close, watch);
+        }
+
+        /**
+         * Retrieves the text sent back to the client.
+         *
+         * @return The response text.
+         */
+        public String getResponse() {
+            return response;
+        }
+
+        /**
+         * Retrieves the game the client is attached to after the command.
+         *
+         * @return The game ID, or NO_GAME.
+         */
+        public long getGameId() {
+            return gameId;
+        }
+
+        /**
+         * Retrieves the encoded BOARD line to push to every client attached to the game.
+         * The buffer is shared; callers send duplicates of it.
+         *
+         * @return The read-only BOARD line, or null if nothing changed.
+         */
+        public ByteBuffer getBroadcast() {
+            return broadcast;
+        }
+
+        /**
+         * Retrieves the game the client watches after the command.
+         *
+         * @return The game ID, NO_GAME to stop watching, or KEEP_WATCH if unchanged.
+         */
+        public long getWatch() {
+            return watch;
+        }
+
+        /**
+         * Checks whether the connection should be closed after the response.
+         *
+         * @return True to close the connection.
+         */
+        public boolean isClose() {
+            return close;
+        }
+    }
+}
@@ -0,0 +1,495 @@
+package server;
+
+import model.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * GameSession hosts a single headless Game inside the SessionManager.
+ *
+ * Description:
+ * Every command for the game is queued in the session's mailbox and executed one at a time
+ * on a shared executor, so the Game is only ever touched by one thread at a time without any
+ * locks. Sessions on different games run in parallel; a busy game never blocks another one.
+ * The session also keeps the move history and elapsed time that GameController keeps for the
+ * Swing window, so it can be saved and restored through the regular save format.
+ *
+ * Design Pattern: Active Object (Actor) Pattern
+ * Role: Servant with Activation Queue - Serializes all commands for one game.
+ *
+ * @author Tai Zhi Xuan
+ */
+public class GameSession {
+    /**
+     * The number of moves the move journal holds. A reader that falls further behind is
+     * overrun and loses the oldest moves; the game never waits for it.
+     */
+    public static final int MOVE_JOURNAL_CAPACITY = 64;
+
+    /**
+     * The identifier of this session within its SessionManager.
+     */
+    private final long id;
+
+    /**
+     * The game hosted by this session.
+     */
+    private final Game game;
+
+    /**
+     * The moves played in this game, in the same form GameController records them.
+     */
+    private final List<Move> moveHistory;
+
+    /**
+     * The journal the game publishes every accepted move to. The mailbox runs one command at a
+     * time, so whichever pool thread runs the game is its single writer.
+     */
+    private final MoveRingBuffer moveJournal = new MoveRingBuffer(MOVE_JOURNAL_CAPACITY);
+
+    /**
+     * The durable journal of this game, or null if the game is not journaled.
+     * Volatile so the journal flusher can check it from its own thread.
+     */
+    private volatile GameJournal journal;
+
+    /**
+     * The reader that feeds the move journal into the durable journal, or null.
+     */
+    private MoveRingBuffer.Reader journalReader;
+
+    /**
+     * Seconds of play accumulated before this session was (re)created.
+     */
+    private final int baseSecondsElapsed;
+
+    /**
+     * The time this session was created, used to compute the elapsed time.
+     */
+    private final long createdAtNanos;
+
+    /**
+     * The executor that drains the mailboxes of all sessions.
+     */
+    private final Executor executor;
+
+    /**
+     * Pending commands for this game, executed in arrival order.
+     */
+    private final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Whether a drain of the mailbox is scheduled or running.
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * The last time a command was executed, in milliseconds.
+     */
+    private volatile long lastActiveMillis;
+
+    /**
+     * Set once the session has been saved to disk and dropped from the registry.
+     * Only read and written from within the mailbox.
+     */
+    private boolean evicted;
+
+    /**
+     * Constructs a new GameSession around the given game.
+     *
+     * @param id                 The session identifier.
+     * @param game               The game to host.
+     * @param moveHistory        The moves already played in the game.
+     * @param baseSecondsElapsed The seconds already played in the game.
+     * @param executor           The executor used to run commands.
+     */
+    GameSession(long id, Game game, List<Move> moveHistory, int baseSecondsElapsed, Executor executor) {
+        this.id = id;
+        this.game = game;
+        this.moveHistory = new ArrayList<>(moveHistory);
+        this.baseSecondsElapsed = baseSecondsElapsed;
+        this.createdAtNanos = System.nanoTime();
+        this.executor = executor;
+        this.lastActiveMillis = System.currentTimeMillis();
+        game.setConsoleOutput(false); // Thousands of games must not write to the console
+        game.setMoveJournal(moveJournal);
+    }
+
+    /**
+     * Creates a session for a new game in its starting position.
+     *
+     * @param id       The session identifier.
+     * @param executor The executor used to run commands.
+     * @return The new session.
+     */
+    static GameSession newGame(long id, Executor executor) {
+        return new GameSession(id, new Game(new Board()), new ArrayList<>(), 0, executor);
+    }
+
+    /**
+     * Recreates a session from a saved game state.
+     *
+     * @param id        The session identifier.
+     * @param gameState The saved state of the game.
+     * @param executor  The executor used to run commands.
+     * @return The restored session.
+     */
+    static GameSession restore(long id, GameState gameState, Executor executor) {
+        Game game = new Game(gameState.getBoard());
+        game.setCurrentPlayer(gameState.getCurrentPlayer());
+        game.setTurnCounter(gameState.getTurn());
+        GameSession session = new GameSession(id, game, gameState.getMoveHistory(),
+                gameState.getSecondsElapsed(), executor);
+        game.checkGameOver(); // The save format has no game-over flag; derive it from the Sau pieces
+        return session;
+    }
+
+    /**
+     * Recreates a journaled session from a replayed journal and keeps appending to it.
+     *
+     * @param id       The session identifier.
+     * @param recovery The replayed journal.
+     * @param executor The executor used to run commands.
+     * @return The restored session.
+     * @throws IOException If the journal cannot be reopened.
+     */
+    static GameSession resume(long id, GameJournal.Recovery recovery, Executor executor) throws IOException {
+        GameSession session = new GameSession(id, recovery.getGame(), recovery.getMoves(), 0, executor);
+        session.attachJournal(recovery.resume());
+        return session;
+    }
+
+    /**
+     * Makes every move accepted from now on durable in the given journal.
+     * Must be called before the session is shared or from within a command.
+     *
+     * @param journal The journal, positioned after the moves already played.
+     */
+    void attachJournal(GameJournal journal) {
+        this.journal = journal;
+        this.journalReader = moveJournal.newReader();
+    }
+
+    /**
+     * Checks whether this game is journaled.
+     *
+     * @return True if accepted moves are appended to a journal.
+     */
+    boolean isJournaled() {
+        return journal != null;
+    }
+
+    /**
+     * Checks whether the journal holds a move that has waited too long to be forced to disk.
+     * Safe to call from any thread.
+     *
+     * @param nowNanos The current time, from System.nanoTime.
+     * @return True if syncJournalIfDue should be run.
+     */
+    boolean isJournalSyncDue(long nowNanos) {
+        GameJournal current = journal;
+        return current != null && current.isSyncDue(nowNanos);
+    }
+
+    /**
+     * Forces the journal to disk if a move has waited too long. If the disk fails the game goes
+     * on without a journal, as when appending. Must only be called from within a command.
+     *
+     * @return True if the journal is now forced up to the last move.
+     */
+    boolean syncJournalIfDue() {
+        if (journal == null) {
+            return false;
+        }
+        try {
+            journal.syncIfDue(System.nanoTime());
+            return true;
+        } catch (IOException e) {
+            System.err.println("Journaling stopped for game " + id + ": " + e.getMessage());
+            try {
+                closeJournal();
+            } catch (IOException closeError) {
+                // Already failing; the error above has been reported
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Forces the journal to disk and closes it. Must only be called from within a command.
+     *
+     * @throws IOException If the journal cannot be closed.
+     */
+    void closeJournal() throws IOException {
+        if (journal == null) {
+            return;
+        }
+        journalReader.close();
+        try {
+            journal.close();
+        } finally {
+            journal = null;
+            journalReader = null;
+        }
+    }
+
+    /**
+     * Retrieves the identifier of this session.
+     *
+     * @return The session ID.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Retrieves the journal of moves accepted by this game. Readers may be added from any
+     * thread and consume it at their own pace, e.g. for persistence or metrics.
+     *
+     * @return The move journal.
+     */
+    public MoveRingBuffer getMoveJournal() {
+        return moveJournal;
+    }
+
+    /**
+     * Retrieves the last time a command was executed on this session.
+     *
+     * @return The time in milliseconds since the epoch.
+     */
+    public long getLastActiveMillis() {
+        return lastActiveMillis;
+    }
+
+    /**
+     * Queues a command for execution against this session.
+     * Commands for the same session run one at a time in submission order.
+     *
+     * @param command The command to execute; it receives this session.
+     * @param <T>     The type of the command's result.
+     * @return A future completed with the command's result.
+     */
+    public <T> CompletableFuture<T> execute(Function<GameSession, T> command) {
+        return enqueue(command, true);
+    }
+
+    /**
+     * Queues a housekeeping command, such as an eviction, that does not count as activity.
+     *
+     * @param command The command to execute; it receives this session.
+     * @param <T>     The type of the command's result.
+     * @return A future completed with the command's result.
+     */
+    <T> CompletableFuture<T> executeMaintenance(Function<GameSession, T> command) {
+        return enqueue(command, false);
+    }
+
+    /**
+     * Adds a command to the mailbox and makes sure the mailbox is being drained.
+     *
+     * @param command The command to execute.
+     * @param touch   True if the command counts as activity for idle eviction.
+     * @param <T>     The type of the command's result.
+     * @return A future completed with the command's result, or exceptionally with a
+     * RejectedExecutionException if the executor no longer accepts work.
+     */
+    private <T> CompletableFuture<T> enqueue(Function<GameSession, T> command, boolean touch) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable task = () -> {
+            if (evicted) {
+                result.completeExceptionally(new SessionEvictedException(id));
+                return;
+            }
+            if (touch) {
+                lastActiveMillis = System.currentTimeMillis();
+            }
+            try {
+                result.complete(command.apply(this));
+            } catch (Throwable e) {
+                result.completeExceptionally(e); // Even an Error must not leave the caller waiting
+            }
+        };
+        mailbox.add(task);
+        try {
+            schedule();
+        } catch (RejectedExecutionException e) {
+            if (mailbox.remove(task)) { // Otherwise a running drain has already taken it
+                result.completeExceptionally(e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Queues a move for execution against this session.
+     *
+     * @param from The starting position.
+     * @param to   The target position.
+     * @return A future completed with true if the move was made; false if it was rejected.
+     */
+    public CompletableFuture<Boolean> submitMove(Position from, Position to) {
+        return execute(session -> session.movePiece(from, to));
+    }
+
+    /**
+     * Makes a move and records it in the move history.
+     * Must only be called from within a command.
+     *
+     * @param from The starting position.
+     * @param to   The target position.
+     * @return True if the move was made; false if it was rejected, including when either
+     * square is off the board.
+     */
+    public boolean movePiece(Position from, Position to) {
+        Board board = game.getBoard();
+        if (game.isGameOver() || !from.isWithinBounds(board.getRows(), board.getColumns())
+                || !to.isWithinBounds(board.getRows(), board.getColumns())) {
+            return false; // Off-board squares come from clients; they are bad moves, not errors
+        }
+        Piece piece = board.getPieceAt(from);
+        if (piece == null) {
+            return false;
+        }
+        String player = game.getCurrentPlayer().name();
+        String pieceType = piece.getType();
+        boolean success = game.movePiece(from, to);
+        if (success) {
+            moveHistory.add(new Move(player, pieceType, from, to));
+            if (journal != null) {
+                persistMoves();
+            }
+        }
+        return success;
+    }
+
+    /**
+     * Appends the moves published since the last call to the journal: one record per move.
+     * If the disk fails the game goes on without a journal rather than rejecting moves.
+     */
+    private void persistMoves() {
+        try {
+            journalReader.drain(journal);
+        } catch (UncheckedIOException e) {
+            System.err.println("Journaling stopped for game " + id + ": " + e.getCause().getMessage());
+            try {
+                closeJournal();
+            } catch (IOException closeError) {
+                // Already failing; the error above has been reported
+            }
+        }
+    }
+
+    /**
+     * Retrieves the hosted game. Must only be used from within a command.
+     *
+     * @return The game.
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * Retrieves the move history. Must only be used from within a command.
+     *
+     * @return The list of moves played so far.
+     */
+    public List<Move> getMoveHistory() {
+        return moveHistory;
+    }
+
+    /**
+     * Retrieves the seconds played in this game, including time before it was restored.
+     *
+     * @return The elapsed time in seconds.
+     */
+    public int getSecondsElapsed() {
+        return baseSecondsElapsed + (int) ((System.nanoTime() - createdAtNanos) / 1_000_000_000L);
+    }
+
+    /**
+     * Captures the current state of the game for saving. Must only be used from within a command.
+     *
+     * @return The GameState of this session.
+     */
+    public GameState toGameState() {
+        GameState gameState = new GameState(game.getBoard(), game.getCurrentPlayer(),
+                game.getTurnCounter(), new ArrayList<>(moveHistory));
+        gameState.setSecondsElapsed(getSecondsElapsed());
+        return gameState;
+    }
+
+    /**
+     * Marks the session as evicted. Commands that run afterwards fail with
+     * SessionEvictedException so the caller can retry against the restored session.
+     * Must only be called from within a command.
+     */
+    void markEvicted() {
+        evicted = true;
+    }
+
+    /**
+     * Schedules a drain of the mailbox unless one is already scheduled or running.
+     *
+     * @throws RejectedExecutionException If the executor no longer accepts work; the session
+     *                                    is left unscheduled so a later command can retry.
+     */
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Runs queued commands until the mailbox is empty, then releases the session.
+     * The session is released even if a command throws, and a command that arrives while
+     * releasing reschedules the drain.
+     */
+    private void drain() {
+        try {
+            Runnable command;
+            while ((command = mailbox.poll()) != null) {
+                command.run();
+            }
+        } finally {
+            scheduled.set(false);
+            if (!mailbox.isEmpty()) {
+                try {
+                    schedule();
+                } catch (RejectedExecutionException e) {
+                    System.err.println("Game " + id + " has commands left but its executor was shut down.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Thrown to a command that reached a session after it was evicted to disk.
+     */
+    public static class SessionEvictedException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Constructs a new SessionEvictedException for the given session.
+         *
+         * @param id The ID of the evicted session.
+         */
+        public SessionEvictedException(long id) {
+            super("Session " + id + " has been evicted.");
+        }
+    }
+}
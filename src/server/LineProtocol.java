@@ -0,0 +1,136 @@
+package server;
+
+import model.*;
+
+/**
+ * LineProtocol defines the text protocol spoken by the Kwazam Chess game servers.
+ *
+ * Description:
+ * Every message is one line of ASCII text terminated by '\n'.
+ * <br>Client to server:
+ * <ul>
+ *   <li>{@code NEW} - create a game and attach to it; answered with {@code GAME <id>} and a board.</li>
+ *   <li>{@code JOIN <id>} - attach to an existing game; answered with a board.</li>
+ *   <li>{@code <fromRow> <fromCol> <toRow> <toCol>} - move in the attached game, in the same format
+ *       GameView reads from the console; answered with {@code OK} or {@code ERR <reason>}.</li>
+ *   <li>{@code BOARD} - request the current board.</li>
+ *   <li>{@code WATCH <id>} - spectate a game without joining it; answered with a board, after which
+ *       the board is pushed after every move. A spectator that falls behind skips to newer boards.</li>
+ *   <li>{@code UNWATCH} - stop spectating.</li>
+ *   <li>{@code QUIT} - close the connection.</li>
+ * </ul>
+ * Server to client, pushed to every connection attached to or watching a game after each move:
+ * <br>{@code BOARD <id> <currentPlayer> <turnCounter> <squares> [OVER]}
+ * <br>where squares is 40 characters in row-major order: '.' for an empty square, the first
+ * letter of the piece type in upper case for Red and lower case for Blue.
+ *
+ * @author Tai Zhi Xuan
+ */
+public final class LineProtocol {
+    /**
+     * The longest line a client may send, in bytes, including the terminator.
+     */
+    public static final int MAX_LINE_LENGTH = 64;
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private LineProtocol() {
+    }
+
+    /**
+     * Encodes the board of a game as a BOARD line. Must be called from the game's session.
+     *
+     * @param session The session hosting the game.
+     * @return The BOARD line, including the terminator.
+     */
+    public static String formatBoard(GameSession session) {
+        Game game = session.getGame();
+        Board board = game.getBoard();
+        StringBuilder line = new StringBuilder(64);
+        line.append("BOARD ").append(session.getId())
+                .append(' ').append(game.getCurrentPlayer())
+                .append(' ').append(game.getTurnCounter())
+                .append(' ');
+        for (int row = 0; row < board.getRows(); row++) {
+            for (int col = 0; col < board.getColumns(); col++) {
+                line.append(squareCode(board.getPieceAt(Position.of(row, col))));
+            }
+        }
+        if (game.isGameOver()) {
+            line.append(" OVER");
+        }
+        return line.append('\n').toString();
+    }
+
+    /**
+     * Retrieves the character used for a piece in a BOARD line.
+     *
+     * @param piece The piece, or null for an empty square.
+     * @return The square character.
+     */
+    public static char squareCode(Piece piece) {
+        if (piece == null) {
+            return '.';
+        }
+        char code = piece.getType().charAt(0);
+        return piece.getColor() == Color.RED ? Character.toUpperCase(code) : Character.toLowerCase(code);
+    }
+
+    /**
+     * Rebuilds a board from the squares of a BOARD line.
+     * Move counts and Ram directions are not part of the line, so they take their defaults.
+     *
+     * @param squares The 40 square characters.
+     * @return A Board holding the decoded pieces.
+     * @throws IllegalArgumentException If the squares are malformed.
+     */
+    public static Board parseSquares(String squares) {
+        if (squares.length() != 40) {
+            throw new IllegalArgumentException("Expected 40 squares: " + squares);
+        }
+        Board board = new Board();
+        board.clearBoard();
+        for (int index = 0; index < squares.length(); index++) {
+            char code = squares.charAt(index);
+            if (code == '.') {
+                continue;
+            }
+            String type = switch (Character.toLowerCase(code)) {
+                case 'r' -> "ram";
+                case 't' -> "tor";
+                case 'x' -> "xor";
+                case 'b' -> "biz";
+                case 's' -> "sau";
+                default -> throw new IllegalArgumentException("Unknown square code: " + code);
+            };
+            Color color = Character.isUpperCase(code) ? Color.RED : Color.BLUE;
+            board.setPieceAt(Position.fromIndex(index),
+                    PieceFactory.createPiece(type, color, board.getIdGenerator()));
+        }
+        return board;
+    }
+
+    /**
+     * Parses a move line of the form "fromRow fromCol toRow toCol". Each coordinate is one
+     * ASCII digit; whether it is on the board is left to the game, which rejects the move.
+     *
+     * @param line The line without its terminator.
+     * @return The four coordinates, each from 0 to 9, or null if the line is not a move.
+     */
+    public static int[] parseMove(String line) {
+        String[] parts = line.trim().split("\\s+");
+        if (parts.length != 4) {
+            return null;
+        }
+        int[] coordinates = new int[4];
+        for (int i = 0; i < 4; i++) {
+            String part = parts[i];
+            if (part.length() != 1 || part.charAt(0) < '0' || part.charAt(0) > '9') {
+                return null;
+            }
+            coordinates[i] = part.charAt(0) - '0';
+        }
+        return coordinates;
+    }
+}
@@ -0,0 +1,416 @@
+package server;
+
+import model.Board;
+import model.Color;
+import model.Piece;
+import model.Position;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * LoadGenerator is a local client that puts a Kwazam Chess game server under load.
+ *
+ * Description:
+ * It opens many connections from a single selector thread. A configurable number of them are
+ * active players: each creates its own game and plays random legal moves for both sides as
+ * fast as the server answers, starting a new game whenever one ends. The rest stay connected
+ * and idle, which is how most casual players look to a server. At the end it reports the
+ * number of connections held, the move throughput and the move round-trip latency.
+ * It speaks only the LineProtocol, so it can drive any server front end.
+ *
+ * Usage: java -cp out server.LoadGenerator [host] [port] [connections] [active] [seconds]
+ *
+ * @author Tai Zhi Xuan
+ */
+public class LoadGenerator {
+    /**
+     * The width of one latency histogram bucket, in microseconds.
+     */
+    private static final int BUCKET_MICROS = 10;
+
+    /**
+     * The number of latency histogram buckets; slower round trips land in the last bucket.
+     */
+    private static final int BUCKETS = 100_000;
+
+    /**
+     * The address of the server under test.
+     */
+    private final InetSocketAddress address;
+
+    /**
+     * The total number of connections to open.
+     */
+    private final int connections;
+
+    /**
+     * The number of connections that play moves.
+     */
+    private final int active;
+
+    /**
+     * Round-trip latency histogram, in BUCKET_MICROS buckets.
+     */
+    private final long[] histogram = new long[BUCKETS];
+
+    /**
+     * The source of random move choices.
+     */
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    /**
+     * The number of completed move round trips.
+     */
+    private long completedMoves;
+
+    /**
+     * The number of connections that were established.
+     */
+    private int connected;
+
+    /**
+     * Constructs a new LoadGenerator.
+     *
+     * @param address     The address of the server under test.
+     * @param connections The total number of connections to open.
+     * @param active      The number of connections that play moves.
+     */
+    public LoadGenerator(InetSocketAddress address, int connections, int active) {
+        this.address = address;
+        this.connections = connections;
+        this.active = Math.min(active, connections);
+    }
+
+    /**
+     * Opens all connections, plays for the given duration and returns the measurements.
+     *
+     * @param durationMillis How long to play after all connections are open.
+     * @return The measurements of the run.
+     * @throws IOException If the selector cannot be opened.
+     */
+    public Result run(long durationMillis) throws IOException {
+        List<Client> clients = new ArrayList<>(connections);
+        try (Selector selector = Selector.open()) {
+            for (int i = 0; i < connections; i++) {
+                SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                Client client = new Client(channel, i < active);
+                clients.add(client);
+                channel.connect(address);
+                client.key = channel.register(selector, SelectionKey.OP_CONNECT, client);
+                if (i % 512 == 511) {
+                    selector.selectNow(); // Keep the accept backlog from overflowing
+                    processKeys(selector);
+                }
+            }
+
+            long start = System.nanoTime();
+            long deadline = start + durationMillis * 1_000_000L;
+            while (System.nanoTime() < deadline) {
+                selector.select(Math.max(1, (deadline - System.nanoTime()) / 1_000_000L));
+                processKeys(selector);
+            }
+            long elapsed = System.nanoTime() - start;
+
+            for (Client client : clients) {
+                client.channel.close();
+            }
+            return new Result(connected, completedMoves, elapsed, histogram);
+        }
+    }
+
+    /**
+     * Handles the ready keys of the selector.
+     *
+     * @param selector The client selector.
+     */
+    private void processKeys(Selector selector) {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            Client client = (Client) key.attachment();
+            try {
+                if (key.isConnectable()) {
+                    client.finishConnect();
+                } else if (key.isReadable()) {
+                    client.read();
+                }
+            } catch (IOException e) {
+                key.cancel();
+            }
+        }
+    }
+
+    /**
+     * Records one round trip in the latency histogram.
+     *
+     * @param nanos The round-trip time in nanoseconds.
+     */
+    private void record(long nanos) {
+        int bucket = (int) Math.min(BUCKETS - 1, nanos / 1000 / BUCKET_MICROS);
+        histogram[bucket]++;
+        completedMoves++;
+    }
+
+    /**
+     * One simulated client connection.
+     */
+    private final class Client {
+        /**
+         * The client channel.
+         */
+        private final SocketChannel channel;
+
+        /**
+         * Whether this client plays moves.
+         */
+        private final boolean playing;
+
+        /**
+         * Bytes received but not yet split into lines.
+         */
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(256);
+
+        /**
+         * The selection key of the channel.
+         */
+        private SelectionKey key;
+
+        /**
+         * The last board received, used to pick legal moves.
+         */
+        private Board board;
+
+        /**
+         * The player to move on the last board received.
+         */
+        private Color toMove;
+
+        /**
+         * When the outstanding move was sent, or 0 if none is outstanding.
+         */
+        private long sentAt;
+
+        /**
+         * Constructs a new Client.
+         *
+         * @param channel The client channel.
+         * @param playing Whether this client plays moves.
+         */
+        Client(SocketChannel channel, boolean playing) {
+            this.channel = channel;
+            this.playing = playing;
+        }
+
+        /**
+         * Completes the connection and, for players, starts a game.
+         *
+         * @throws IOException If the connection failed.
+         */
+        void finishConnect() throws IOException {
+            channel.finishConnect();
+            connected++;
+            key.interestOps(SelectionKey.OP_READ);
+            if (playing) {
+                send("NEW\n");
+            }
+        }
+
+        /**
+         * Reads available bytes and handles every complete line.
+         *
+         * @throws IOException If the channel cannot be read.
+         */
+        void read() throws IOException {
+            if (channel.read(readBuffer) < 0) {
+                throw new IOException("Server closed the connection");
+            }
+            readBuffer.flip();
+            int lineStart = 0;
+            for (int i = 0; i < readBuffer.limit(); i++) {
+                if (readBuffer.get(i) == '\n') {
+                    handle(new String(readBuffer.array(), lineStart, i - lineStart, StandardCharsets.US_ASCII));
+                    lineStart = i + 1;
+                }
+            }
+            readBuffer.position(lineStart);
+            readBuffer.compact();
+        }
+
+        /**
+         * Handles one line from the server.
+         *
+         * @param line The line without its terminator.
+         * @throws IOException If a reply cannot be sent.
+         */
+        private void handle(String line) throws IOException {
+            if (line.startsWith("OK") || line.startsWith("ERR")) {
+                if (sentAt != 0) {
+                    record(System.nanoTime() - sentAt);
+                    sentAt = 0;
+                }
+                if (line.startsWith("ERR") && playing) {
+                    playMove(); // Rejected move; try another one on the same board
+                }
+            } else if (line.startsWith("BOARD ") && playing) {
+                String[] parts = line.split(" ");
+                if (parts.length > 5) {
+                    send("NEW\n"); // Game over; start another one
+                    return;
+                }
+                toMove = Color.valueOf(parts[2]);
+                board = LineProtocol.parseSquares(parts[4]);
+                if (sentAt == 0) {
+                    playMove();
+                }
+            }
+        }
+
+        /**
+         * Sends a random legal move for the side to move on the last board received.
+         *
+         * @throws IOException If the move cannot be sent.
+         */
+        private void playMove() throws IOException {
+            List<Piece> pieces = board.getPieces();
+            for (int attempt = 0; attempt < pieces.size(); attempt++) {
+                Piece piece = pieces.get(random.nextInt(pieces.size()));
+                if (piece.getColor() != toMove) {
+                    continue;
+                }
+                List<Position> targets = piece.getValidMoves(board);
+                if (targets.isEmpty()) {
+                    continue;
+                }
+                Position from = piece.getPosition();
+                Position to = targets.get(random.nextInt(targets.size()));
+                sentAt = System.nanoTime();
+                send(from.getRow() + " " + from.getColumn() + " " + to.getRow() + " " + to.getColumn() + "\n");
+                return;
+            }
+            send("NEW\n"); // No move found; start over
+        }
+
+        /**
+         * Writes a line to the server. Lines are tiny, so they always fit the socket buffer.
+         *
+         * @param line The line, including the terminator.
+         * @throws IOException If the line cannot be written.
+         */
+        private void send(String line) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.US_ASCII));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * The measurements of one load run.
+     */
+    public static final class Result {
+        /**
+         * The number of connections that were established.
+         */
+        private final int connected;
+
+        /**
+         * The number of completed move round trips.
+         */
+        private final long moves;
+
+        /**
+         * The measured duration in nanoseconds.
+         */
+        private final long elapsedNanos;
+
+        /**
+         * The round-trip latency histogram.
+         */
+        private final long[] histogram;
+
+        /**
+         * Constructs a new Result.
+         *
+         * @param connected    The number of connections established.
+         * @param moves        The number of completed move round trips.
+         * @param elapsedNanos The measured duration in nanoseconds.
+         * @param histogram    The round-trip latency histogram.
+         */
+        Result(int connected, long moves, long elapsedNanos, long[] histogram) {
+            this.connected = connected;
+            this.moves = moves;
+            this.elapsedNanos = elapsedNanos;
+            this.histogram = histogram;
+        }
+
+        /**
+         * Retrieves the number of completed moves per second.
+         *
+         * @return The move throughput.
+         */
+        public double getMovesPerSecond() {
+            return moves * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * Retrieves a latency percentile.
+         *
+         * @param percentile The percentile, between 0 and 100.
+         * @return The round-trip latency in microseconds.
+         */
+        public long getLatencyMicros(double percentile) {
+            long target = (long) Math.ceil(moves * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                seen += histogram[i];
+                if (seen >= target && seen > 0) {
+                    return (long) (i + 1) * BUCKET_MICROS;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Returns a one-line summary of the run.
+         *
+         * @return The summary.
+         */
+        @Override
+        public String toString() {
+            return String.format("connections=%d moves=%d moves/s=%.0f p50=%dus p99=%dus p99.9=%dus",
+                    connected, moves, getMovesPerSecond(),
+                    getLatencyMicros(50), getLatencyMicros(99), getLatencyMicros(99.9));
+        }
+    }
+
+    /**
+     * Runs the load generator against a server.
+     *
+     * @param args Optional host, port, connection count, active player count and duration in seconds.
+     * @throws IOException If the load generator cannot run.
+     */
+    public static void main(String[] args) throws IOException {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : NioGameServer.DEFAULT_PORT;
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        int active = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+        int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+
+        LoadGenerator generator = new LoadGenerator(new InetSocketAddress(host, port), connections, active);
+        System.out.println(generator.run(seconds * 1000L));
+    }
+}
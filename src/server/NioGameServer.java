@@ -0,0 +1,551 @@
+package server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * NioGameServer is a non-blocking network front end for the SessionManager.
+ *
+ * Description:
+ * A single selector thread accepts connections, reads protocol lines (see LineProtocol) and
+ * writes replies. Commands are handed to the CommandRouter and executed inside the target
+ * game's session, so the selector thread never runs game logic and never blocks. After each
+ * move the new board is encoded once and pushed to every connection attached to that game.
+ * Spectators pull the same snapshots from their SpectatorHub subscription only when their
+ * write queue is empty, so a spectator with a slow socket holds at most one board in flight.
+ * Each connection only owns a small read buffer and a lazily used write queue, so one node
+ * can hold tens of thousands of idle connections.
+ *
+ * Design Pattern: Reactor Pattern
+ * Role: Reactor - Demultiplexes I/O readiness events and dispatches them to per-connection handlers.
+ *
+ * @author Tai Zhi Xuan
+ */
+public class NioGameServer implements Runnable, AutoCloseable {
+    /**
+     * The default port the server listens on.
+     */
+    public static final int DEFAULT_PORT = 7345;
+
+    /**
+     * The size of each connection's read buffer, in bytes.
+     */
+    private static final int READ_BUFFER_SIZE = 2 * LineProtocol.MAX_LINE_LENGTH;
+
+    /**
+     * The selector multiplexing all channels.
+     */
+    private final Selector selector;
+
+    /**
+     * The listening channel.
+     */
+    private final ServerSocketChannel serverChannel;
+
+    /**
+     * The router executing client commands.
+     */
+    private final CommandRouter router;
+
+    /**
+     * The connections attached to each game, keyed by game ID.
+     */
+    private final ConcurrentHashMap<Long, Set<Connection>> attached = new ConcurrentHashMap<>();
+
+    /**
+     * Connections with queued output that the selector thread still has to register for writing.
+     */
+    private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Whether the selector loop should keep running.
+     */
+    private volatile boolean running = true;
+
+    /**
+     * Whether the selector loop has been started.
+     */
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    /**
+     * Released when the selector loop has closed every channel.
+     */
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    /**
+     * Constructs a new NioGameServer bound to the given address.
+     *
+     * @param address The address to listen on; port 0 picks a free port.
+     * @param router  The router executing client commands.
+     * @throws IOException If the server socket cannot be opened.
+     */
+    public NioGameServer(InetSocketAddress address, CommandRouter router) throws IOException {
+        this.router = router;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.bind(address, 4096);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Retrieves the port the server is listening on.
+     *
+     * @return The local port.
+     * @throws IOException If the port cannot be determined.
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Runs the selector loop until the server is closed.
+     */
+    @Override
+    public void run() {
+        if (!started.compareAndSet(false, true)) {
+            throw new IllegalStateException("Server is already running.");
+        }
+        try {
+            while (running) {
+                selector.select();
+                registerPendingWrites();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            Connection connection = (Connection) key.attachment();
+                            if (key.isReadable()) {
+                                connection.read();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                connection.write();
+                            }
+                        }
+                    } catch (IOException e) {
+                        if (key.attachment() instanceof Connection) {
+                            ((Connection) key.attachment()).close();
+                        }
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) {
+                System.err.println("Game server stopped: " + e.getMessage());
+            }
+        } finally {
+            closeChannels();
+            stopped.countDown();
+        }
+    }
+
+    /**
+     * Stops the selector loop, closes the listening socket and all connections, and stops the
+     * router's SpectatorHub. Channels are closed by the selector thread itself, so they never
+     * change under its feet.
+     *
+     * @throws IOException If the server cannot be stopped.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            if (started.compareAndSet(false, true)) {
+                closeChannels(); // The loop never ran
+                return;
+            }
+            selector.wakeup();
+            try {
+                stopped.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while stopping the server", e);
+            }
+        } finally {
+            router.getSpectators().close();
+        }
+    }
+
+    /**
+     * Closes every registered channel, the listening socket and the selector.
+     */
+    private void closeChannels() {
+        try {
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+            serverChannel.close();
+            selector.close();
+        } catch (IOException | ClosedSelectorException e) {
+            System.err.println("Failed to close the game server cleanly: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Accepts all pending connections.
+     *
+     * @throws IOException If a connection cannot be registered.
+     */
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        }
+    }
+
+    /**
+     * Enables write interest for connections that received output from worker threads.
+     */
+    private void registerPendingWrites() {
+        Connection connection;
+        while ((connection = pendingWrites.poll()) != null) {
+            if (connection.key.isValid()) {
+                connection.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        }
+    }
+
+    /**
+     * Pushes a BOARD line to every connection attached to a game.
+     * The line was encoded once and every connection gets a view of the same bytes.
+     *
+     * @param gameId The game ID.
+     * @param shared The read-only BOARD line.
+     */
+    private void broadcast(long gameId, ByteBuffer shared) {
+        Set<Connection> connections = attached.get(gameId);
+        if (connections == null) {
+            return;
+        }
+        for (Connection connection : connections) {
+            if (connection.closed) {
+                connections.remove(connection); // Closed while a command was attaching it
+            } else {
+                connection.send(shared.duplicate());
+            }
+        }
+    }
+
+    /**
+     * The state of one client connection.
+     */
+    private final class Connection {
+        /**
+         * The client channel.
+         */
+        private final SocketChannel channel;
+
+        /**
+         * Bytes received but not yet split into lines.
+         */
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+        /**
+         * Output waiting to be written, in order.
+         */
+        private final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Whether the connection is queued in pendingWrites or registered for writing.
+         */
+        private final AtomicBoolean writeScheduled = new AtomicBoolean();
+
+        /**
+         * The selection key of the channel.
+         */
+        private SelectionKey key;
+
+        /**
+         * The game this connection is attached to, or NO_GAME.
+         * Only changed by the completion of the connection's command chain.
+         */
+        private volatile long gameId = CommandRouter.NO_GAME;
+
+        /**
+         * The subscription of the game this connection spectates, or null.
+         */
+        private volatile SpectatorHub.Subscription watching;
+
+        /**
+         * A spectated board that has been taken from the subscription but not fully written.
+         * Only used by the selector thread.
+         */
+        private ByteBuffer snapshotInFlight;
+
+        /**
+         * The completion of the connection's most recent command. Each command starts after
+         * the previous one, so replies keep the order of the client's lines.
+         */
+        private CompletableFuture<Void> lastCommand = CompletableFuture.completedFuture(null);
+
+        /**
+         * Set when the connection should be closed once its output has been written.
+         */
+        private volatile boolean closeAfterWrite;
+
+        /**
+         * Whether the connection has been closed.
+         */
+        private volatile boolean closed;
+
+        /**
+         * Constructs a new Connection for the given channel.
+         *
+         * @param channel The client channel.
+         */
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Reads available bytes and dispatches every complete line. Runs on the selector thread.
+         *
+         * @throws IOException If the channel cannot be read.
+         */
+        void read() throws IOException {
+            int count = channel.read(readBuffer);
+            if (count < 0) {
+                close();
+                return;
+            }
+            readBuffer.flip();
+            int lineStart = 0;
+            for (int i = readBuffer.position(); i < readBuffer.limit(); i++) {
+                if (readBuffer.get(i) == '\n') {
+                    String line = new String(readBuffer.array(), lineStart, i - lineStart, StandardCharsets.US_ASCII);
+                    lineStart = i + 1;
+                    dispatch(line);
+                }
+            }
+            readBuffer.position(lineStart);
+            readBuffer.compact();
+            if (!readBuffer.hasRemaining()) {
+                send(ByteBuffer.wrap("ERR Line too long\n".getBytes(StandardCharsets.US_ASCII)));
+                readBuffer.clear();
+            }
+        }
+
+        /**
+         * Sends one line to the router after the previous command has completed.
+         *
+         * @param line The line without its terminator.
+         */
+        private void dispatch(String line) {
+            if (line.isBlank()) {
+                return;
+            }
+            lastCommand = lastCommand
+                    .thenCompose(ignored -> router.handle(gameId, line))
+                    .thenAccept(this::apply)
+                    .exceptionally(error -> {
+                        send(ByteBuffer.wrap(("ERR " + error.getMessage() + "\n").getBytes(StandardCharsets.US_ASCII)));
+                        return null;
+                    });
+        }
+
+        /**
+         * Applies a reply: updates the game attachment, answers the client and pushes the new board.
+         *
+         * @param reply The reply from the router.
+         */
+        private void apply(CommandRouter.Reply reply) {
+            if (reply.getGameId() != gameId) {
+                detach();
+                gameId = reply.getGameId();
+                if (gameId != CommandRouter.NO_GAME && !closed) {
+                    attached.computeIfAbsent(gameId, id -> ConcurrentHashMap.newKeySet()).add(this);
+                }
+            }
+            send(ByteBuffer.wrap(reply.getResponse().getBytes(StandardCharsets.US_ASCII)));
+            if (reply.getWatch() != CommandRouter.Reply.KEEP_WATCH) {
+                watch(reply.getWatch());
+            }
+            if (reply.getBroadcast() != null) {
+                broadcast(reply.getGameId(), reply.getBroadcast());
+            }
+            if (reply.isClose()) {
+                closeAfterWrite = true;
+            }
+        }
+
+        /**
+         * Queues output for the client. May be called from any thread.
+         *
+         * @param buffer The bytes to send.
+         */
+        void send(ByteBuffer buffer) {
+            if (closed) {
+                return;
+            }
+            outbound.add(buffer);
+            scheduleWrite();
+        }
+
+        /**
+         * Asks the selector thread to write this connection. May be called from any thread.
+         */
+        private void scheduleWrite() {
+            if (!closed && writeScheduled.compareAndSet(false, true)) {
+                pendingWrites.add(this);
+                selector.wakeup();
+            }
+        }
+
+        /**
+         * Switches the game this connection spectates.
+         *
+         * @param watchGameId The game to watch, or NO_GAME to stop watching.
+         */
+        private void watch(long watchGameId) {
+            SpectatorHub.Subscription previous = watching;
+            if (previous != null) {
+                previous.close();
+            }
+            watching = watchGameId == CommandRouter.NO_GAME || closed
+                    ? null
+                    : router.getSpectators().subscribe(watchGameId, subscription -> scheduleWrite());
+        }
+
+        /**
+         * Writes queued output until the socket buffer is full, then spectated boards.
+         * Runs on the selector thread.
+         *
+         * @throws IOException If the channel cannot be written.
+         */
+        void write() throws IOException {
+            ByteBuffer head;
+            while ((head = nextOutput()) != null) {
+                channel.write(head);
+                if (head.hasRemaining()) {
+                    return; // Socket buffer full; keep write interest
+                }
+                if (head == snapshotInFlight) {
+                    snapshotInFlight = null;
+                } else {
+                    outbound.poll();
+                }
+            }
+            if (closeAfterWrite) {
+                close();
+                return;
+            }
+            key.interestOps(SelectionKey.OP_READ);
+            writeScheduled.set(false);
+            if (hasOutput() && writeScheduled.compareAndSet(false, true)) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        }
+
+        /**
+         * Picks the next buffer to write: a partly written board, then replies, then the next
+         * spectated board. Runs on the selector thread.
+         *
+         * @return The buffer, or null if there is nothing to write.
+         */
+        private ByteBuffer nextOutput() {
+            if (snapshotInFlight != null) {
+                return snapshotInFlight;
+            }
+            ByteBuffer head = outbound.peek();
+            if (head != null) {
+                return head;
+            }
+            SpectatorHub.Subscription subscription = watching;
+            if (subscription != null) {
+                snapshotInFlight = subscription.poll();
+            }
+            return snapshotInFlight;
+        }
+
+        /**
+         * Checks whether output arrived after the write queue was drained.
+         *
+         * @return True if replies or spectated boards are waiting.
+         */
+        private boolean hasOutput() {
+            SpectatorHub.Subscription subscription = watching;
+            return !outbound.isEmpty() || (subscription != null && subscription.hasPending());
+        }
+
+        /**
+         * Removes the connection from its game's attachment set.
+         */
+        private void detach() {
+            if (gameId == CommandRouter.NO_GAME) {
+                return;
+            }
+            Set<Connection> connections = attached.get(gameId);
+            if (connections != null) {
+                connections.remove(this);
+                if (connections.isEmpty()) {
+                    attached.remove(gameId, connections);
+                }
+            }
+        }
+
+        /**
+         * Closes the connection and forgets its game attachment.
+         */
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            detach();
+            SpectatorHub.Subscription subscription = watching;
+            if (subscription != null) {
+                subscription.close();
+            }
+            outbound.clear();
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // The connection is being dropped anyway
+            }
+        }
+    }
+
+    /**
+     * Starts a server with its own SessionManager.
+     * Usage: java -cp out server.NioGameServer [port]
+     *
+     * @param args Optional port to listen on.
+     * @throws IOException If the server cannot be started.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        SessionManager sessions = new SessionManager(64, Files.createTempDirectory("kwazam-sessions"), 600_000);
+        NioGameServer server = new NioGameServer(new InetSocketAddress(port), new CommandRouter(sessions));
+        System.out.println("Kwazam Chess server listening on port " + server.getPort());
+        server.run();
+    }
+}
@@ -0,0 +1,69 @@
+package server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+
+/**
+ * ServerComparison runs the same LoadGenerator workload against both server modes.
+ *
+ * Description:
+ * It starts an in-process NioGameServer, loads it, shuts it down, and then does the same with a
+ * VirtualThreadGameServer. Each mode gets a fresh SessionManager so neither inherits the other's
+ * games, and both results are printed side by side.
+ *
+ * Usage: java -cp out server.ServerComparison [connections] [active] [seconds]
+ *
+ * @author Tai Zhi Xuan
+ */
+public class ServerComparison {
+    /**
+     * Runs the comparison.
+     *
+     * @param args Optional connection count, active player count and duration in seconds.
+     * @throws Exception If a server cannot be started or loaded.
+     */
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int active = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        InetSocketAddress anyPort = new InetSocketAddress("localhost", 0);
+
+        try (SessionManager sessions = newSessions();
+             NioGameServer server = new NioGameServer(anyPort, new CommandRouter(sessions))) {
+            new Thread(server, "nio-server").start();
+            System.out.println("NIO selector:    " + load(server.getPort(), connections, active, seconds));
+        }
+
+        try (SessionManager sessions = newSessions();
+             VirtualThreadGameServer server = new VirtualThreadGameServer(anyPort, new CommandRouter(sessions))) {
+            new Thread(server, "virtual-thread-acceptor").start();
+            System.out.println("Virtual threads: " + load(server.getPort(), connections, active, seconds));
+        }
+    }
+
+    /**
+     * Creates a SessionManager for one run.
+     *
+     * @return The new SessionManager.
+     * @throws IOException If the eviction directory cannot be created.
+     */
+    private static SessionManager newSessions() throws IOException {
+        return new SessionManager(64, Files.createTempDirectory("kwazam-sessions"), 600_000);
+    }
+
+    /**
+     * Runs the load generator against a local server.
+     *
+     * @param port        The server port.
+     * @param connections The total number of connections.
+     * @param active      The number of active players.
+     * @param seconds     The duration in seconds.
+     * @return The measurements.
+     * @throws IOException If the load generator cannot run.
+     */
+    private static LoadGenerator.Result load(int port, int connections, int active, int seconds) throws IOException {
+        LoadGenerator generator = new LoadGenerator(new InetSocketAddress("localhost", port), connections, active);
+        return generator.run(seconds * 1000L);
+    }
+}
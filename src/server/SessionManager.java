@@ -0,0 +1,510 @@
+package server;
+
+import model.BinaryGameCodec;
+import model.GameJournal;
+import model.GameState;
+import model.Position;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * SessionManager is a headless service that hosts many Kwazam Chess games in one JVM.
+ *
+ * Description:
+ * Games are kept in a registry split into independent shards, so lookups, creations and idle
+ * sweeps on different games never contend with each other. Each game runs inside a GameSession
+ * that executes its commands one at a time on a shared worker pool; there is no global lock.
+ * Games that stay idle longer than the configured timeout are saved to disk with
+ * BinaryGameCodec and dropped from memory; the next command for such a game transparently
+ * loads it back. Saving and loading print nothing, so thousands of games do not flood the
+ * console. In journaled mode every game instead appends each move to its own GameJournal
+ * as it is played; eviction only closes the journal, and a game evicted or lost in a crash is
+ * rebuilt by replaying its journal, including after a restart.
+ *
+ * Design Pattern: Facade Pattern
+ * Role: Facade - Provides one entry point for creating, finding, commanding and expiring games.
+ *
+ * @author Tai Zhi Xuan
+ */
+public class SessionManager implements AutoCloseable {
+    /**
+     * The shards of the session registry. The length is always a power of two.
+     */
+    private final ConcurrentHashMap<Long, GameSession>[] shards;
+
+    /**
+     * The directory idle games are saved to.
+     */
+    private final Path evictionDirectory;
+
+    /**
+     * How long a game may stay idle before it is evicted, in milliseconds.
+     */
+    private final long idleTimeoutMillis;
+
+    /**
+     * The pool that executes the commands of all sessions.
+     */
+    private final ExecutorService workers;
+
+    /**
+     * The scheduler that runs the periodic idle sweep and, in journaled mode, the journal flush.
+     */
+    private final ScheduledExecutorService sweeper;
+
+    /**
+     * Whether games are journaled move by move instead of saved on eviction.
+     */
+    private final boolean journaled;
+
+    /**
+     * The source of new game IDs.
+     */
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    /**
+     * The number of games currently held in memory.
+     */
+    private final AtomicInteger residentCount = new AtomicInteger();
+
+    /**
+     * Constructs a new SessionManager with one worker per available processor.
+     *
+     * @param shardCount        The number of registry shards; rounded up to a power of two.
+     * @param evictionDirectory The directory idle games are saved to; created if missing.
+     * @param idleTimeoutMillis How long a game may stay idle before it is evicted.
+     * @throws IOException If the eviction directory cannot be created.
+     */
+    public SessionManager(int shardCount, Path evictionDirectory, long idleTimeoutMillis) throws IOException {
+        this(shardCount, evictionDirectory, idleTimeoutMillis,
+                Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Constructs a new SessionManager that runs game commands on the given pool.
+     *
+     * @param shardCount        The number of registry shards; rounded up to a power of two.
+     * @param evictionDirectory The directory idle games are saved to; created if missing.
+     * @param idleTimeoutMillis How long a game may stay idle before it is evicted.
+     * @param workers           The pool that executes game commands. It is shut down by close().
+     * @throws IOException If the eviction directory cannot be created.
+     */
+    public SessionManager(int shardCount, Path evictionDirectory, long idleTimeoutMillis,
+                          ExecutorService workers) throws IOException {
+        this(shardCount, evictionDirectory, idleTimeoutMillis, workers, false);
+    }
+
+    /**
+     * Constructs a new SessionManager that runs game commands on the given pool.
+     * In journaled mode, games journaled in the directory by an earlier run can be reached by
+     * their IDs again, and new games get IDs after them.
+     *
+     * @param shardCount        The number of registry shards; rounded up to a power of two.
+     * @param evictionDirectory The directory games are saved or journaled to; created if missing.
+     * @param idleTimeoutMillis How long a game may stay idle before it is evicted.
+     * @param workers           The pool that executes game commands. It is shut down by close().
+     * @param journaled         True to append every move to a per-game GameJournal.
+     * @throws IOException If the directory cannot be created or scanned.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public SessionManager(int shardCount, Path evictionDirectory, long idleTimeoutMillis,
+                          ExecutorService workers, boolean journaled) throws IOException {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+        }
+        int size = Integer.highestOneBit(shardCount - 1) << 1;
+        if (size == 0) {
+            size = 1;
+        }
+        this.shards = new ConcurrentHashMap[size];
+        for (int i = 0; i < size; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+        this.evictionDirectory = Files.createDirectories(evictionDirectory);
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.workers = workers;
+        this.journaled = journaled;
+        if (journaled) {
+            nextId.set(highestJournaledId() + 1);
+        }
+
+        long sweepInterval = Math.max(1, idleTimeoutMillis / 2);
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "session-idle-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::evictIdle, sweepInterval, sweepInterval, TimeUnit.MILLISECONDS);
+        if (journaled) {
+            long flushInterval = Math.max(1, GameJournal.DEFAULT_SYNC_INTERVAL_MILLIS / 2);
+            sweeper.scheduleWithFixedDelay(this::flushJournals, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Creates a new game in its starting position.
+     *
+     * @return The session hosting the new game.
+     */
+    public GameSession createGame() {
+        long id = nextId.getAndIncrement();
+        GameSession session = GameSession.newGame(id, workers);
+        if (journaled) {
+            try {
+                session.attachJournal(GameJournal.create(journalFor(id)));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to create the journal of game " + id, e);
+            }
+        }
+        shardFor(id).put(id, session);
+        residentCount.incrementAndGet();
+        return session;
+    }
+
+    /**
+     * Looks up a game, loading it back from disk if it was evicted. The disk is read outside
+     * the registry, so a slow load never blocks other games in the same shard. If two threads
+     * load the same game at once, the first to register it wins and the other copy is dropped.
+     *
+     * @param id The game ID.
+     * @return The session hosting the game, or null if no such game exists.
+     * @throws UncheckedIOException If an evicted game cannot be loaded.
+     */
+    public GameSession getSession(long id) {
+        ConcurrentHashMap<Long, GameSession> shard = shardFor(id);
+        GameSession session = shard.get(id);
+        if (session != null) {
+            return session;
+        }
+        GameSession restored;
+        try {
+            restored = restore(id);
+        } catch (UncheckedIOException e) {
+            session = shard.get(id); // Another thread may have loaded it and removed the save file
+            if (session != null) {
+                return session;
+            }
+            throw e;
+        }
+        if (restored == null) {
+            return shard.get(id);
+        }
+        session = shard.putIfAbsent(id, restored);
+        if (session != null) {
+            discard(restored);
+            return session;
+        }
+        residentCount.incrementAndGet();
+        try {
+            Files.deleteIfExists(fileFor(id)); // The game is resident again; its save is stale
+        } catch (IOException e) {
+            System.err.println("Failed to delete the save of game " + id + ": " + e.getMessage());
+        }
+        return restored;
+    }
+
+    /**
+     * Runs a command against a game. Commands for the same game run one at a time in submission order.
+     * A command that races with the game's eviction is retried against the reloaded game.
+     *
+     * @param id      The game ID.
+     * @param command The command to run.
+     * @param <T>     The type of the command's result.
+     * @return A future completed with the command's result, or exceptionally with an
+     * UnknownGameException if the game does not exist, or an UncheckedIOException if it cannot be loaded.
+     */
+    public <T> CompletableFuture<T> execute(long id, Function<GameSession, T> command) {
+        GameSession session;
+        try {
+            session = getSession(id);
+        } catch (UncheckedIOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (session == null) {
+            return CompletableFuture.failedFuture(new UnknownGameException(id));
+        }
+        return session.execute(command).exceptionallyCompose(error -> {
+            Throwable cause = (error instanceof CompletionException) ? error.getCause() : error;
+            if (cause instanceof GameSession.SessionEvictedException) {
+                return execute(id, command);
+            }
+            return CompletableFuture.failedFuture(cause);
+        });
+    }
+
+    /**
+     * Submits a move to a game.
+     *
+     * @param id   The game ID.
+     * @param from The starting position.
+     * @param to   The target position.
+     * @return A future completed with true if the move was made; false if it was rejected.
+     */
+    public CompletableFuture<Boolean> submitMove(long id, Position from, Position to) {
+        return execute(id, session -> session.movePiece(from, to));
+    }
+
+    /**
+     * Retrieves the number of games currently held in memory.
+     *
+     * @return The number of resident games.
+     */
+    public int getResidentCount() {
+        return residentCount.get();
+    }
+
+    /**
+     * Saves every game that has been idle longer than the timeout to disk and drops it from memory.
+     * Each eviction runs inside the game's own session, so it is ordered with the game's moves.
+     */
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        for (ConcurrentHashMap<Long, GameSession> shard : shards) {
+            for (GameSession session : shard.values()) {
+                if (session.getLastActiveMillis() < cutoff) {
+                    evict(shard, session, cutoff);
+                }
+            }
+        }
+    }
+
+    /**
+     * Forces every journal whose oldest unforced move has waited longer than the sync interval,
+     * so a move followed by a quiet spell still reaches the disk in time. Only games with such a
+     * move get a command, and it runs in the game's own session like its moves.
+     */
+    private void flushJournals() {
+        long now = System.nanoTime();
+        for (ConcurrentHashMap<Long, GameSession> shard : shards) {
+            for (GameSession session : shard.values()) {
+                if (session.isJournalSyncDue(now)) {
+                    session.executeMaintenance(GameSession::syncJournalIfDue);
+                }
+            }
+        }
+    }
+
+    /**
+     * Saves all resident games to disk and stops the worker threads.
+     */
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+        List<CompletableFuture<Boolean>> saves = new ArrayList<>();
+        for (ConcurrentHashMap<Long, GameSession> shard : shards) {
+            for (GameSession session : shard.values()) {
+                saves.add(evict(shard, session, Long.MAX_VALUE).exceptionally(error -> false));
+            }
+        }
+        CompletableFuture.allOf(saves.toArray(new CompletableFuture<?>[0])).join();
+        workers.shutdown();
+    }
+
+    /**
+     * Evicts a session if it is still idle when its eviction command runs.
+     *
+     * @param shard   The shard holding the session.
+     * @param session The session to evict.
+     * @param cutoff  The activity time before which the session counts as idle;
+     *                Long.MAX_VALUE evicts unconditionally.
+     * @return A future completed once the eviction has been attempted.
+     */
+    private CompletableFuture<Boolean> evict(ConcurrentHashMap<Long, GameSession> shard,
+                                             GameSession session, long cutoff) {
+        return session.executeMaintenance(s -> {
+            // A move may have arrived after the sweep decided to evict; keep the game if so
+            if (s.getLastActiveMillis() >= cutoff) {
+                return false;
+            }
+            try {
+                if (s.isJournaled()) {
+                    s.closeJournal(); // Every move is already on disk
+                } else {
+                    save(s.toGameState(), fileFor(s.getId()));
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to evict game " + s.getId() + ": " + e.getMessage());
+                return false;
+            }
+            s.markEvicted();
+            if (shard.remove(s.getId(), s)) {
+                residentCount.decrementAndGet();
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Loads an evicted game back from disk without registering it.
+     *
+     * @param id The game ID.
+     * @return The restored session, or null if the game was never saved.
+     */
+    private GameSession restore(long id) {
+        if (journaled && Files.exists(journalFor(id))) {
+            return resume(id);
+        }
+        Path file = fileFor(id);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            GameState gameState = BinaryGameCodec.decode(ByteBuffer.wrap(Files.readAllBytes(file)));
+            return GameSession.restore(id, gameState, workers);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to restore game " + id, e);
+        }
+    }
+
+    /**
+     * Drops a restored session that lost the race to be registered. It was never shared, so
+     * its journal can be closed directly.
+     *
+     * @param session The unregistered session.
+     */
+    private void discard(GameSession session) {
+        try {
+            session.closeJournal();
+        } catch (IOException e) {
+            System.err.println("Failed to close a duplicate journal of game " + session.getId() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes an evicted game to its save file without printing anything.
+     *
+     * @param gameState The game to save.
+     * @param file      The save file; replaced if it exists.
+     * @throws IOException If the file cannot be written.
+     */
+    private static void save(GameState gameState, Path file) throws IOException {
+        ByteBuffer encoded = BinaryGameCodec.encode(gameState);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (encoded.hasRemaining()) {
+                channel.write(encoded);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds a journaled game by replaying its journal.
+     *
+     * @param id The game ID.
+     * @return The restored session, appending to the same journal.
+     */
+    private GameSession resume(long id) {
+        try {
+            GameJournal.Recovery recovery = GameJournal.recover(journalFor(id));
+            if (recovery.isTruncated()) {
+                System.err.println("Recovered game " + id + " up to move " + recovery.getMoves().size()
+                        + "; dropped the rest of its journal: " + recovery.getStopReason());
+            }
+            return GameSession.resume(id, recovery, workers);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to recover game " + id, e);
+        }
+    }
+
+    /**
+     * Finds the highest game ID with a journal in the directory.
+     *
+     * @return The highest journaled ID, or 0 if there is none.
+     * @throws IOException If the directory cannot be listed.
+     */
+    private long highestJournaledId() throws IOException {
+        long highest = 0;
+        try (DirectoryStream<Path> journals = Files.newDirectoryStream(evictionDirectory, "game-*.journal")) {
+            for (Path journal : journals) {
+                String name = journal.getFileName().toString();
+                try {
+                    highest = Math.max(highest, Long.parseLong(name.substring(5, name.length() - 8)));
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+        return highest;
+    }
+
+    /**
+     * Retrieves the registry shard responsible for a game.
+     *
+     * @param id The game ID.
+     * @return The shard holding the game.
+     */
+    private ConcurrentHashMap<Long, GameSession> shardFor(long id) {
+        long mixed = id * 0x9E3779B97F4A7C15L; // Spread sequential IDs across shards
+        return shards[(int) (mixed >>> 40) & (shards.length - 1)];
+    }
+
+    /**
+     * Retrieves the save file used for an evicted game.
+     *
+     * @param id The game ID.
+     * @return The path of the game's save file.
+     */
+    private Path fileFor(long id) {
+        return evictionDirectory.resolve("game-" + id + ".kwz");
+    }
+
+    /**
+     * Retrieves the journal file of a journaled game.
+     *
+     * @param id The game ID.
+     * @return The path of the game's journal.
+     */
+    private Path journalFor(long id) {
+        return evictionDirectory.resolve("game-" + id + ".journal");
+    }
+
+    /**
+     * Thrown to a command for a game that was never created or whose save is gone.
+     */
+    public static class UnknownGameException extends IllegalArgumentException {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The ID of the unknown game.
+         */
+        private final long gameId;
+
+        /**
+         * Constructs a new UnknownGameException for the given game.
+         *
+         * @param id The ID of the unknown game.
+         */
+        public UnknownGameException(long id) {
+            super("Unknown game: " + id);
+            this.gameId = id;
+        }
+
+        /**
+         * Retrieves the ID of the unknown game.
+         *
+         * @return The game ID.
+         */
+        public long getGameId() {
+            return gameId;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package server;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * SpectatorHub fans board snapshots out to the spectators of each game.
+ *
+ * Description:
+ * After each move the board is encoded once into a read-only byte buffer and published here.
+ * Publishing only parks the snapshot in the game's audience and schedules a fan-out task, so
+ * the player's move costs the same whether a game has no spectators or thousands. The fan-out
+ * task offers the same snapshot to every subscriber; each subscriber gets its own view of the
+ * shared bytes, never a re-encoded copy. Every subscriber has a small bounded queue: when a
+ * spectator falls behind, its oldest snapshots are dropped. Snapshots are full boards, so a
+ * lagging spectator simply skips ahead to the latest position.
+ *
+ * Design Pattern: Publish-Subscribe Pattern
+ * Role: Broker - Decouples the game's move path from the delivery to each spectator.
+ *
+ * @author Tai Zhi Xuan
+ */
+public class SpectatorHub implements AutoCloseable {
+    /**
+     * The number of snapshots a subscriber may have waiting before old ones are dropped.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 8;
+
+    /**
+     * The audiences of all watched games, keyed by game ID.
+     */
+    private final ConcurrentHashMap<Long, Audience> audiences = new ConcurrentHashMap<>();
+
+    /**
+     * The pool running the fan-out tasks.
+     */
+    private final ExecutorService fanOutPool;
+
+    /**
+     * The queue capacity of new subscribers.
+     */
+    private final int queueCapacity;
+
+    /**
+     * The total number of snapshots dropped for slow subscribers.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Constructs a new SpectatorHub with the default queue capacity.
+     */
+    public SpectatorHub() {
+        this(DEFAULT_QUEUE_CAPACITY, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    /**
+     * Constructs a new SpectatorHub.
+     *
+     * @param queueCapacity The number of snapshots a subscriber may have waiting.
+     * @param threads       The number of fan-out threads.
+     */
+    public SpectatorHub(int queueCapacity, int threads) {
+        this.queueCapacity = queueCapacity;
+        this.fanOutPool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "spectator-fan-out");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Subscribes to the snapshots of a game.
+     *
+     * @param gameId  The game to watch.
+     * @param onReady Called when the subscription goes from empty to having snapshots to poll.
+     *                It must not block; transports use it to schedule a drain.
+     * @return The new subscription.
+     */
+    public Subscription subscribe(long gameId, Consumer<Subscription> onReady) {
+        Subscription subscription = new Subscription(gameId, onReady);
+        // Added under the map's lock, so a closing last subscriber cannot remove the audience in between
+        audiences.compute(gameId, (id, audience) -> {
+            Audience target = audience == null ? new Audience() : audience;
+            target.subscribers.add(subscription);
+            return target;
+        });
+        return subscription;
+    }
+
+    /**
+     * Publishes a board snapshot to the spectators of a game. Never blocks.
+     *
+     * @param gameId   The game ID.
+     * @param snapshot The encoded board; it is made read-only and shared by all subscribers.
+     */
+    public void publish(long gameId, ByteBuffer snapshot) {
+        Audience audience = audiences.get(gameId);
+        if (audience == null || audience.subscribers.isEmpty()) {
+            return;
+        }
+        audience.latest.set(snapshot.asReadOnlyBuffer());
+        if (audience.scheduled.compareAndSet(false, true)) {
+            fanOutPool.execute(audience::fanOut);
+        }
+    }
+
+    /**
+     * Retrieves the number of spectators of a game.
+     *
+     * @param gameId The game ID.
+     * @return The number of subscribers.
+     */
+    public int getSpectatorCount(long gameId) {
+        Audience audience = audiences.get(gameId);
+        return audience == null ? 0 : audience.subscribers.size();
+    }
+
+    /**
+     * Retrieves the total number of snapshots dropped because subscribers fell behind.
+     *
+     * @return The number of dropped snapshots.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Stops the fan-out threads.
+     */
+    @Override
+    public void close() {
+        fanOutPool.shutdownNow();
+    }
+
+    /**
+     * The spectators of one game.
+     */
+    private final class Audience {
+        /**
+         * The subscribers; iterated far more often than changed.
+         */
+        private final List<Subscription> subscribers = new CopyOnWriteArrayList<>();
+
+        /**
+         * The newest snapshot that has not been fanned out yet.
+         */
+        private final AtomicReference<ByteBuffer> latest = new AtomicReference<>();
+
+        /**
+         * Whether a fan-out task is scheduled or running.
+         */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /**
+         * Offers the newest snapshot to every subscriber until none is pending.
+         * Snapshots published while a fan-out runs are folded into the next pass.
+         */
+        void fanOut() {
+            ByteBuffer snapshot;
+            while ((snapshot = latest.getAndSet(null)) != null) {
+                for (Subscription subscription : subscribers) {
+                    subscription.offer(snapshot);
+                }
+            }
+            scheduled.set(false);
+            if (latest.get() != null && scheduled.compareAndSet(false, true)) {
+                fanOutPool.execute(this::fanOut);
+            }
+        }
+    }
+
+    /**
+     * One spectator's view of a game.
+     */
+    public final class Subscription implements AutoCloseable {
+        /**
+         * The watched game.
+         */
+        private final long gameId;
+
+        /**
+         * Snapshots waiting to be delivered, oldest first.
+         */
+        private final ArrayBlockingQueue<ByteBuffer> queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        /**
+         * The transport's drain trigger.
+         */
+        private final Consumer<Subscription> onReady;
+
+        /**
+         * Whether onReady has been signalled and the transport has not yet drained the queue.
+         */
+        private final AtomicBoolean ready = new AtomicBoolean();
+
+        /**
+         * Constructs a new Subscription.
+         *
+         * @param gameId  The watched game.
+         * @param onReady The transport's drain trigger.
+         */
+        Subscription(long gameId, Consumer<Subscription> onReady) {
+            this.gameId = gameId;
+            this.onReady = onReady;
+        }
+
+        /**
+         * Retrieves the watched game.
+         *
+         * @return The game ID.
+         */
+        public long getGameId() {
+            return gameId;
+        }
+
+        /**
+         * Queues a snapshot, dropping the oldest waiting one if the queue is full.
+         *
+         * @param snapshot The shared read-only snapshot.
+         */
+        void offer(ByteBuffer snapshot) {
+            while (!queue.offer(snapshot)) {
+                if (queue.poll() != null) {
+                    dropped.incrementAndGet();
+                }
+            }
+            if (ready.compareAndSet(false, true)) {
+                onReady.accept(this);
+            }
+        }
+
+        /**
+         * Takes the next snapshot to send. Transports call this until it returns null;
+         * onReady is then signalled again when the next snapshot arrives.
+         *
+         * @return A private view of the next snapshot, or null if none is waiting.
+         */
+        public ByteBuffer poll() {
+            ByteBuffer next = queue.poll();
+            if (next != null) {
+                return next.duplicate();
+            }
+            ready.set(false);
+            if (!queue.isEmpty() && ready.compareAndSet(false, true)) {
+                onReady.accept(this); // A snapshot slipped in while releasing
+            }
+            return null;
+        }
+
+        /**
+         * Checks whether snapshots are waiting. Lets a transport that has just released its
+         * drain close the race with an onReady signal it may have swallowed.
+         *
+         * @return True if poll would return a snapshot.
+         */
+        public boolean hasPending() {
+            return !queue.isEmpty();
+        }
+
+        /**
+         * Stops watching the game.
+         */
+        @Override
+        public void close() {
+            audiences.computeIfPresent(gameId, (id, audience) -> {
+                audience.subscribers.remove(this);
+                return audience.subscribers.isEmpty() ? null : audience; // Null drops the audience
+            });
+            queue.clear();
+        }
+    }
+}
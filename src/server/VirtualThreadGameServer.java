@@ -0,0 +1,402 @@
+package server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * VirtualThreadGameServer is a blocking network front end for the SessionManager.
+ *
+ * Description:
+ * Every client connection is served by its own virtual thread using plain blocking socket I/O,
+ * which is far easier to read and debug than a selector loop. It speaks the same LineProtocol
+ * and routes commands through the same CommandRouter as NioGameServer, waiting for each reply
+ * before reading the next line, so the two modes can be compared under the same LoadGenerator.
+ * Per-connection buffers are kept small so idle connections stay cheap. Spectated boards are
+ * written by a short-lived virtual thread started whenever the connection's SpectatorHub
+ * subscription has boards waiting, so a slow spectator only ever parks its own threads.
+ * Boards pushed to the players of a game work the same way: each connection keeps only the
+ * newest unsent board and writes it on its own virtual thread, so a player whose socket is
+ * full never holds up the player who moved.
+ *
+ * Design Pattern: Thread-per-Connection
+ * Role: Acceptor - Hands each accepted socket to a dedicated virtual thread.
+ *
+ * @author Tai Zhi Xuan
+ */
+public class VirtualThreadGameServer implements Runnable, AutoCloseable {
+    /**
+     * The listening socket.
+     */
+    private final ServerSocket serverSocket;
+
+    /**
+     * The router executing client commands.
+     */
+    private final CommandRouter router;
+
+    /**
+     * The connections attached to each game, keyed by game ID.
+     */
+    private final ConcurrentHashMap<Long, Set<Connection>> attached = new ConcurrentHashMap<>();
+
+    /**
+     * Every open connection, so they can be closed on shutdown.
+     */
+    private final Set<Connection> open = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructs a new VirtualThreadGameServer bound to the given address.
+     *
+     * @param address The address to listen on; port 0 picks a free port.
+     * @param router  The router executing client commands.
+     * @throws IOException If the server socket cannot be opened.
+     */
+    public VirtualThreadGameServer(InetSocketAddress address, CommandRouter router) throws IOException {
+        this.router = router;
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(address, 4096);
+    }
+
+    /**
+     * Retrieves the port the server is listening on.
+     *
+     * @return The local port.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections until the server is closed, starting a virtual thread for each.
+     */
+    @Override
+    public void run() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Connection connection = new Connection(socket);
+                open.add(connection);
+                Thread.ofVirtual().name("game-connection-", socket.getPort()).start(connection);
+            } catch (IOException e) {
+                if (serverSocket.isClosed()) {
+                    return;
+                }
+                // Usually out of file descriptors; back off instead of stopping the server
+                System.err.println("Failed to accept a connection: " + e.getMessage());
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes the listening socket and all connections, and stops the router's SpectatorHub.
+     *
+     * @throws IOException If the server socket cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            serverSocket.close();
+            for (Connection connection : open) {
+                connection.close();
+            }
+        } finally {
+            router.getSpectators().close();
+        }
+    }
+
+    /**
+     * Pushes a BOARD line to every connection attached to a game. Never blocks on a socket.
+     *
+     * @param gameId The game ID.
+     * @param shared The read-only BOARD line.
+     */
+    private void broadcast(long gameId, ByteBuffer shared) {
+        Set<Connection> connections = attached.get(gameId);
+        if (connections == null) {
+            return;
+        }
+        byte[] bytes = toBytes(shared);
+        for (Connection connection : connections) {
+            connection.pushBoard(bytes);
+        }
+    }
+
+    /**
+     * Copies the bytes of a shared buffer without moving its position.
+     *
+     * @param shared The read-only buffer.
+     * @return The bytes.
+     */
+    private static byte[] toBytes(ByteBuffer shared) {
+        byte[] bytes = new byte[shared.remaining()];
+        shared.duplicate().get(bytes);
+        return bytes;
+    }
+
+    /**
+     * One client connection, served by its own virtual thread.
+     */
+    private final class Connection implements Runnable {
+        /**
+         * The client socket.
+         */
+        private final Socket socket;
+
+        /**
+         * Guards the output stream, which is written by this connection and by broadcasts.
+         * A ReentrantLock rather than synchronized keeps blocked virtual threads unpinned.
+         */
+        private final ReentrantLock writeLock = new ReentrantLock();
+
+        /**
+         * The newest BOARD line not yet written, or null. An older unsent board is replaced,
+         * since every board holds the whole position.
+         */
+        private final AtomicReference<byte[]> pendingBoard = new AtomicReference<>();
+
+        /**
+         * Whether a virtual thread is writing pending boards.
+         */
+        private final AtomicBoolean writingBoards = new AtomicBoolean();
+
+        /**
+         * The game this connection is attached to, or NO_GAME.
+         */
+        private volatile long gameId = CommandRouter.NO_GAME;
+
+        /**
+         * The subscription of the game this connection spectates, or null.
+         * Only changed by the connection's own thread.
+         */
+        private volatile SpectatorHub.Subscription watching;
+
+        /**
+         * Constructs a new Connection for the given socket.
+         *
+         * @param socket The client socket.
+         */
+        Connection(Socket socket) {
+            this.socket = socket;
+        }
+
+        /**
+         * Reads lines and answers them until the client disconnects or quits.
+         */
+        @Override
+        public void run() {
+            byte[] buffer = new byte[2 * LineProtocol.MAX_LINE_LENGTH];
+            int filled = 0;
+            try {
+                InputStream in = socket.getInputStream();
+                while (true) {
+                    int count = in.read(buffer, filled, buffer.length - filled);
+                    if (count < 0) {
+                        return;
+                    }
+                    filled += count;
+                    int lineStart = 0;
+                    for (int i = 0; i < filled; i++) {
+                        if (buffer[i] == '\n') {
+                            String line = new String(buffer, lineStart, i - lineStart, StandardCharsets.US_ASCII);
+                            lineStart = i + 1;
+                            if (!line.isBlank() && !handle(line)) {
+                                return;
+                            }
+                        }
+                    }
+                    System.arraycopy(buffer, lineStart, buffer, 0, filled - lineStart);
+                    filled -= lineStart;
+                    if (filled == buffer.length) {
+                        send("ERR Line too long\n".getBytes(StandardCharsets.US_ASCII));
+                        filled = 0;
+                    }
+                }
+            } catch (IOException e) {
+                // Client went away; fall through to cleanup
+            } finally {
+                close();
+            }
+        }
+
+        /**
+         * Executes one line and blocks until its reply has been written.
+         *
+         * @param line The line without its terminator.
+         * @return False if the connection should be closed.
+         */
+        private boolean handle(String line) {
+            CommandRouter.Reply reply;
+            try {
+                reply = router.handle(gameId, line).join(); // Parks only this virtual thread
+            } catch (RuntimeException e) {
+                send(("ERR " + e.getMessage() + "\n").getBytes(StandardCharsets.US_ASCII));
+                return true;
+            }
+            if (reply.getGameId() != gameId) {
+                detach();
+                gameId = reply.getGameId();
+                if (gameId != CommandRouter.NO_GAME) {
+                    attached.computeIfAbsent(gameId, id -> ConcurrentHashMap.newKeySet()).add(this);
+                }
+            }
+            send(reply.getResponse().getBytes(StandardCharsets.US_ASCII));
+            if (reply.getWatch() != CommandRouter.Reply.KEEP_WATCH) {
+                watch(reply.getWatch());
+            }
+            if (reply.getBroadcast() != null) {
+                broadcast(reply.getGameId(), reply.getBroadcast());
+            }
+            return !reply.isClose();
+        }
+
+        /**
+         * Writes bytes to the client. May be called from any thread.
+         *
+         * @param bytes The bytes to send.
+         */
+        void send(byte[] bytes) {
+            writeLock.lock();
+            try {
+                OutputStream out = socket.getOutputStream();
+                out.write(bytes);
+                out.flush();
+            } catch (SocketException e) {
+                // Closed by the client; the reading thread cleans up
+            } catch (IOException e) {
+                close();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        /**
+         * Queues a BOARD line for this player without blocking the caller. The line is written
+         * by this connection's board writer, which is started if it is not running.
+         *
+         * @param board The BOARD line.
+         */
+        void pushBoard(byte[] board) {
+            pendingBoard.set(board);
+            if (writingBoards.compareAndSet(false, true)) {
+                Thread.ofVirtual().start(this::writeBoards);
+            }
+        }
+
+        /**
+         * Writes pending boards until none is left. Only one writer runs at a time, so boards
+         * are never written out of order.
+         */
+        private void writeBoards() {
+            while (true) {
+                byte[] board = pendingBoard.getAndSet(null);
+                if (board != null) {
+                    send(board);
+                    continue;
+                }
+                writingBoards.set(false);
+                // A board pushed after the last poll but before the flag was cleared is ours to write
+                if (pendingBoard.get() == null || !writingBoards.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Switches the game this connection spectates.
+         *
+         * @param watchGameId The game to watch, or NO_GAME to stop watching.
+         */
+        private void watch(long watchGameId) {
+            if (watching != null) {
+                watching.close();
+            }
+            watching = watchGameId == CommandRouter.NO_GAME
+                    ? null
+                    : router.getSpectators().subscribe(watchGameId,
+                            subscription -> Thread.ofVirtual().start(() -> drain(subscription)));
+        }
+
+        /**
+         * Writes waiting spectated boards until the subscription is empty. The subscription
+         * signals again only after poll has returned null, so one drain runs at a time.
+         *
+         * @param subscription The subscription with boards waiting.
+         */
+        private void drain(SpectatorHub.Subscription subscription) {
+            ByteBuffer snapshot;
+            while ((snapshot = subscription.poll()) != null) {
+                if (subscription == watching) {
+                    send(toBytes(snapshot));
+                }
+            }
+        }
+
+        /**
+         * Removes the connection from its game's attachment set.
+         */
+        private void detach() {
+            if (gameId == CommandRouter.NO_GAME) {
+                return;
+            }
+            Set<Connection> connections = attached.get(gameId);
+            if (connections != null) {
+                connections.remove(this);
+                if (connections.isEmpty()) {
+                    attached.remove(gameId, connections);
+                }
+            }
+        }
+
+        /**
+         * Closes the socket and forgets the connection.
+         */
+        void close() {
+            if (open.remove(this)) {
+                detach();
+                if (watching != null) {
+                    watching.close();
+                }
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // The connection is being dropped anyway
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts a blocking server with its own SessionManager.
+     * Usage: java -cp out server.VirtualThreadGameServer [port]
+     *
+     * @param args Optional port to listen on.
+     * @throws IOException If the server cannot be started.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : NioGameServer.DEFAULT_PORT;
+        SessionManager sessions = new SessionManager(64, Files.createTempDirectory("kwazam-sessions"), 600_000);
+        VirtualThreadGameServer server = new VirtualThreadGameServer(new InetSocketAddress(port),
+                new CommandRouter(sessions));
+        System.out.println("Kwazam Chess virtual-thread server listening on port " + server.getPort());
+        server.run();
+    }
+}
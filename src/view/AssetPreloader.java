@@ -0,0 +1,159 @@
+package view;
+
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * AssetPreloader warms up the game's assets on a background thread while the HomeScreen is shown,
+ * and logs how long startup takes.
+ *
+ * Description:
+ * Main starts the preloader before it builds the HomeScreen. A low-priority daemon thread
+ * then does three things. It loads the board and game classes. It decodes every piece image
+ * and renders the sprites through SpriteCache at the size the board is first drawn at. It
+ * renders a line of text with every font the screens use, which loads the font files and
+ * their glyph caches. SpriteCache is thread-safe, so if a game starts before preloading
+ * finishes, the Event Dispatch Thread shares the work instead of repeating it. If the window
+ * makes the board a different size, the first paint re-renders the sprites from images that
+ * are already decoded. All times are measured from JVM start and printed as startup
+ * milestones: home screen interactive, assets ready, and first board paint.
+ *
+ * @author Tai Zhi Xuan
+ */
+public final class AssetPreloader {
+    /**
+     * Classes the first game screen needs, loaded ahead of time.
+     */
+    private static final String[] CLASSES = {
+            "model.Board", "model.Game", "model.GameUpdate", "controller.GameController",
+            "view.GameScreen", "view.BoardCanvas", "view.MoveAnimator", "view.MoveListModel"
+    };
+
+    /**
+     * The text drawn with each font: every character the screens commonly show.
+     */
+    private static final String SAMPLE_TEXT = "Kwazam Chess 0123456789 (),.-> REDBLUE RamTorXorBizSau Time:s";
+
+    /**
+     * Completes when preloading has finished, or null before start.
+     */
+    private static volatile CompletableFuture<Void> ready;
+
+    /**
+     * Whether the first board paint has been logged.
+     */
+    private static final AtomicBoolean firstPaintLogged = new AtomicBoolean();
+
+    /**
+     * Prevents instantiation.
+     */
+    private AssetPreloader() {
+    }
+
+    /**
+     * Starts preloading on a background thread. Later calls return the same future.
+     *
+     * @return Completes when every asset is warm.
+     */
+    public static synchronized CompletableFuture<Void> start() {
+        if (ready != null) {
+            return ready;
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        ready = future;
+        Thread thread = new Thread(() -> {
+            try {
+                long start = System.nanoTime();
+                loadClasses();
+                long classesDone = System.nanoTime();
+                SpriteCache.getInstance().preload(BoardCanvas.spriteSizeFor(BoardView.BUTTON_SIZE));
+                long spritesDone = System.nanoTime();
+                warmFonts();
+                long fontsDone = System.nanoTime();
+                logMilestone(String.format("assets ready (classes %.0f ms, sprites %.0f ms, fonts %.0f ms)",
+                        (classesDone - start) / 1e6, (spritesDone - classesDone) / 1e6, (fontsDone - spritesDone) / 1e6));
+                future.complete(null);
+            } catch (RuntimeException e) {
+                System.err.println("Asset preloading failed, assets will load on first use: " + e);
+                future.completeExceptionally(e);
+            }
+        }, "kwazam-asset-preloader");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.NORM_PRIORITY - 1); // Stay out of the Event Dispatch Thread's way
+        thread.start();
+        return future;
+    }
+
+    /**
+     * Checks whether preloading has finished successfully.
+     *
+     * @return True if every asset is warm.
+     */
+    public static boolean isReady() {
+        CompletableFuture<Void> future = ready;
+        return future != null && future.isDone() && !future.isCompletedExceptionally();
+    }
+
+    /**
+     * Logs a startup milestone with the time since the JVM started.
+     *
+     * @param milestone What was reached, e.g. "home screen interactive".
+     */
+    public static void logMilestone(String milestone) {
+        long elapsed = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        System.out.println("Startup: " + milestone + " after " + elapsed + " ms");
+    }
+
+    /**
+     * Logs the first paint of a game board, once per application run.
+     *
+     * @param paintNanos How long the paint took, in nanoseconds.
+     */
+    static void logFirstBoardPaint(long paintNanos) {
+        if (firstPaintLogged.compareAndSet(false, true)) {
+            logMilestone(String.format("first board paint (%.1f ms, assets %s)",
+                    paintNanos / 1e6, isReady() ? "preloaded" : "not preloaded"));
+        }
+    }
+
+    /**
+     * Loads the classes the first game screen needs, without initializing them.
+     */
+    private static void loadClasses() {
+        ClassLoader loader = AssetPreloader.class.getClassLoader();
+        for (String name : CLASSES) {
+            try {
+                Class.forName(name, false, loader);
+            } catch (ClassNotFoundException e) {
+                System.err.println("Preloader could not find class " + name);
+            }
+        }
+    }
+
+    /**
+     * Draws the sample text with every font into a scratch image, loading the fonts and
+     * their glyph caches.
+     */
+    private static void warmFonts() {
+        BufferedImage scratch = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = scratch.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_DEFAULT);
+        Font[] fonts = { // The fonts used by the screens; created here so the caller's thread never loads them
+                new Font("Segoe UI", Font.BOLD, 48), new Font("Segoe UI", Font.PLAIN, 20),
+                new Font("Liberation Sans", Font.BOLD, 20), new Font("Arial", Font.BOLD, 16),
+                new Font("Arial", Font.PLAIN, 16), new Font("Monospaced", Font.PLAIN, 16),
+                new Font("Monospaced", Font.PLAIN, 12)
+        };
+        for (Font font : fonts) {
+            g2d.setFont(font);
+            g2d.getFontMetrics().stringWidth(SAMPLE_TEXT);
+            g2d.drawString(SAMPLE_TEXT, 0, 32);
+        }
+        g2d.dispose();
+    }
+}
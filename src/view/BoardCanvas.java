@@ -0,0 +1,516 @@
+package view;
+
+import ai.SearchBoard;
+import model.Board;
+import model.Piece;
+import model.Position;
+
+import javax.swing.ImageIcon;
+import javax.swing.JComponent;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Point2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * BoardCanvas paints the whole game board as one component.
+ *
+ * Description:
+ * The checkerboard is rendered once per size and perspective into a cached raster. Each
+ * paint copies that raster, fills the highlighted squares and draws the piece sprites from
+ * SpriteCache, so no Swing components are created, laid out or recolored when the board
+ * changes. Squares are placed through an AffineTransform from model coordinates
+ * (column, row) to the screen. When Red is to move it includes a 180 degree turn about the
+ * board center, and mouse clicks go through its inverse to find the clicked Position. The
+ * board stretches to fill the component, so it can be resized freely. Only the squares that
+ * changed are repainted, and Swing double buffers the component. Board changes are animated
+ * by a MoveAnimator, which draws the moving pieces over the static ones. In analysis mode a
+ * valid move square can be shaded by its score instead of the flat valid move color, and the
+ * first moves of the best line are drawn as fading arrows over the pieces.
+ *
+ * Design Pattern: Flyweight Pattern
+ * Role: Client - Draws the shared sprites of SpriteCache at many squares.
+ *
+ * @author Tai Zhi Xuan
+ */
+public class BoardCanvas extends JComponent {
+    /**
+     * The number of rows on the board.
+     */
+    private static final int ROWS = 8;
+
+    /**
+     * The number of columns on the board.
+     */
+    private static final int COLUMNS = 5;
+
+    /**
+     * The color of the selected piece's square.
+     */
+    private static final Color SELECTED_COLOR = Color.YELLOW;
+
+    /**
+     * The color of the squares the selected piece can move to.
+     */
+    private static final Color VALID_MOVE_COLOR = Color.GREEN;
+
+    /**
+     * The pieces shown, indexed by model square index.
+     */
+    private final Piece[] pieces = new Piece[ROWS * COLUMNS];
+
+    /**
+     * Whether the board is shown from Red's perspective (turned 180 degrees).
+     */
+    private boolean redPerspective;
+
+    /**
+     * The selected square, or null.
+     */
+    private Position selected;
+
+    /**
+     * The squares highlighted as valid moves, one bit per model square index.
+     */
+    private long validMoves;
+
+    /**
+     * The shade of each valid move square in analysis mode, or null for VALID_MOVE_COLOR.
+     */
+    private final Color[] moveShades = new Color[ROWS * COLUMNS];
+
+    /**
+     * The best line arrows shown, packed as in SearchBoard.
+     */
+    private int[] bestLine = new int[0];
+
+    /**
+     * The most arrows of the best line that are drawn.
+     */
+    private static final int MAX_ARROWS = 3;
+
+    /**
+     * The cached checkerboards for the Blue and Red perspectives; null until first painted
+     * at the current size.
+     */
+    private final BufferedImage[] backgrounds = new BufferedImage[2];
+
+    /**
+     * The transform from model coordinates (column, row) to component pixels.
+     */
+    private AffineTransform modelToScreen = new AffineTransform();
+
+    /**
+     * The size the transform and backgrounds were computed for.
+     */
+    private int layoutWidth = -1, layoutHeight = -1;
+
+    /**
+     * The action to run when a square is clicked, or null.
+     */
+    private Consumer<Position> onSquareClicked;
+
+    /**
+     * Animates the changes between boards.
+     */
+    private final MoveAnimator animator = new MoveAnimator(this);
+
+    /**
+     * Whether a board has been shown yet; the first one is never animated.
+     */
+    private boolean boardShown;
+
+    /**
+     * Constructs a new BoardCanvas.
+     *
+     * @param cellSize The preferred size of a square, in pixels.
+     */
+    public BoardCanvas(int cellSize) {
+        setPreferredSize(new Dimension(cellSize * COLUMNS, cellSize * ROWS));
+        setMinimumSize(new Dimension(COLUMNS * 8, ROWS * 8));
+        setOpaque(true);
+        setDoubleBuffered(true);
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                Position position = positionAt(e.getX(), e.getY());
+                if (position != null && onSquareClicked != null) {
+                    onSquareClicked.accept(position);
+                }
+            }
+        });
+    }
+
+    /**
+     * Sets the action to run when a square is clicked.
+     *
+     * @param onSquareClicked Receives the model position of the clicked square.
+     */
+    public void setOnSquareClicked(Consumer<Position> onSquareClicked) {
+        this.onSquareClicked = onSquareClicked;
+    }
+
+    /**
+     * Retrieves the animator, to turn animations or the frame statistics overlay on and off.
+     *
+     * @return The animator.
+     */
+    public MoveAnimator getAnimator() {
+        return animator;
+    }
+
+    /**
+     * Shows a board, repainting only the squares whose piece changed since the last call,
+     * or every square if the perspective flipped. The change is animated; the call itself
+     * returns at once.
+     *
+     * @param board          The board.
+     * @param redPerspective Whether Red is to move, which turns the board 180 degrees.
+     */
+    public void showBoard(Board board, boolean redPerspective) {
+        boolean flipped = redPerspective != this.redPerspective;
+        if (flipped) {
+            this.redPerspective = redPerspective;
+            buildTransform();
+        }
+        Piece[] before = null;
+        for (int index = 0; index < pieces.length; index++) {
+            Piece piece = board.getPieceAt(Position.fromIndex(index));
+            if (piece != pieces[index]) {
+                if (before == null) {
+                    before = pieces.clone();
+                }
+                pieces[index] = piece;
+                if (!flipped) {
+                    repaintSquare(index);
+                }
+            }
+        }
+        if (before != null && boardShown) {
+            animator.animate(before, pieces);
+        }
+        boardShown = true;
+        if (flipped) {
+            repaint();
+        }
+    }
+
+    /**
+     * Highlights the selected piece's square.
+     *
+     * @param position The position of the selected piece.
+     */
+    public void setSelected(Position position) {
+        if (selected != null) {
+            repaintSquare(selected.getIndex());
+        }
+        selected = position;
+        repaintSquare(position.getIndex());
+    }
+
+    /**
+     * Highlights squares the selected piece can move to.
+     *
+     * @param positions The positions to highlight.
+     */
+    public void addValidMoves(List<Position> positions) {
+        for (Position position : positions) {
+            validMoves |= 1L << position.getIndex();
+            repaintSquare(position.getIndex());
+        }
+    }
+
+    /**
+     * Removes every highlight.
+     */
+    public void clearHighlights() {
+        if (selected != null) {
+            repaintSquare(selected.getIndex());
+            selected = null;
+        }
+        for (long remaining = validMoves; remaining != 0; remaining &= remaining - 1) {
+            repaintSquare(Long.numberOfTrailingZeros(remaining));
+        }
+        validMoves = 0;
+        Arrays.fill(moveShades, null);
+    }
+
+    /**
+     * Shades a valid move square, e.g. by how good the move is.
+     *
+     * @param position The square.
+     * @param shade    The color, or null for the plain valid move color.
+     */
+    public void setMoveShade(Position position, Color shade) {
+        int index = position.getIndex();
+        if (shade == null ? moveShades[index] != null : !shade.equals(moveShades[index])) {
+            moveShades[index] = shade;
+            if ((validMoves & 1L << index) != 0) {
+                repaintSquare(index);
+            }
+        }
+    }
+
+    /**
+     * Shows the expected line of play as arrows, repainting only the area of the old and
+     * new arrows.
+     *
+     * @param line The moves, packed as in SearchBoard; empty to remove the arrows.
+     */
+    public void setBestLine(int[] line) {
+        int[] shown = line.length > MAX_ARROWS ? Arrays.copyOf(line, MAX_ARROWS) : line.clone();
+        if (Arrays.equals(shown, bestLine)) {
+            return;
+        }
+        Rectangle dirty = arrowBounds(bestLine);
+        bestLine = shown;
+        Rectangle added = arrowBounds(bestLine);
+        dirty = dirty == null ? added : added == null ? dirty : dirty.union(added);
+        if (dirty != null) {
+            repaint(dirty);
+        }
+    }
+
+    /**
+     * Finds the square under a point.
+     *
+     * @param x The x coordinate in the component.
+     * @param y The y coordinate in the component.
+     * @return The model position, or null outside the board.
+     */
+    public Position positionAt(int x, int y) {
+        updateLayout();
+        try {
+            Point2D model = modelToScreen.inverseTransform(new Point2D.Double(x, y), null);
+            int col = (int) Math.floor(model.getX());
+            int row = (int) Math.floor(model.getY());
+            if (row < 0 || row >= ROWS || col < 0 || col >= COLUMNS) {
+                return null;
+            }
+            return Position.of(row, col);
+        } catch (NoninvertibleTransformException e) {
+            return null; // Component has no size yet
+        }
+    }
+
+    /**
+     * Retrieves the pixel bounds of a square.
+     *
+     * @param position The model position.
+     * @return The bounds in component coordinates.
+     */
+    public Rectangle getSquareBounds(Position position) {
+        updateLayout();
+        return squareBounds(position.getIndex());
+    }
+
+    /**
+     * Paints the cached checkerboard, the highlights and the pieces that intersect the clip.
+     *
+     * @param g The graphics context.
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        long start = System.nanoTime();
+        updateLayout();
+        Graphics2D g2d = (Graphics2D) g;
+        g2d.setColor(getBackground());
+        g2d.fillRect(0, 0, getWidth(), getHeight());
+        Rectangle board = squareBounds(0).union(squareBounds(pieces.length - 1));
+        g2d.drawImage(getBackgroundImage(board.width, board.height), board.x, board.y, null);
+
+        Rectangle clip = g2d.getClipBounds();
+        int spriteSize = getSpriteSize();
+        SpriteCache sprites = SpriteCache.getInstance();
+        for (int index = 0; index < pieces.length; index++) {
+            Rectangle bounds = squareBounds(index);
+            if (clip != null && !clip.intersects(bounds)) {
+                continue;
+            }
+            Color highlight = selected != null && selected.getIndex() == index ? SELECTED_COLOR
+                    : (validMoves & 1L << index) == 0 ? null
+                    : moveShades[index] != null ? moveShades[index] : VALID_MOVE_COLOR;
+            if (highlight != null) {
+                g2d.setColor(highlight);
+                g2d.fill(bounds);
+            }
+            Piece piece = pieces[index];
+            if (piece != null && !animator.isHidden(index)) {
+                ImageIcon icon = sprites.getIcon(piece.getImagePath(), spriteSize, redPerspective);
+                icon.paintIcon(this, g2d, bounds.x + (bounds.width - spriteSize) / 2,
+                        bounds.y + (bounds.height - spriteSize) / 2);
+            }
+        }
+        animator.paint(g2d, spriteSize, redPerspective);
+        paintBestLine(g2d);
+        animator.paintStats(g2d, System.nanoTime() - start);
+        AssetPreloader.logFirstBoardPaint(System.nanoTime() - start);
+    }
+
+    /**
+     * Retrieves the size the piece sprites are drawn at: the smaller side of a square,
+     * less the same margin the button board used (15 pixels at the default 83).
+     *
+     * @return The sprite size in pixels.
+     */
+    protected int getSpriteSize() {
+        Rectangle square = squareBounds(0);
+        return spriteSizeFor(Math.min(square.width, square.height));
+    }
+
+    /**
+     * Computes the sprite size for a square of some size.
+     *
+     * @param side The smaller side of a square, in pixels.
+     * @return The sprite size in pixels.
+     */
+    static int spriteSizeFor(int side) {
+        return Math.max(1, side - side * 15 / 83);
+    }
+
+    /**
+     * Draws the best line arrows, each fainter than the one before.
+     *
+     * @param g2d The graphics context.
+     */
+    private void paintBestLine(Graphics2D g2d) {
+        if (bestLine.length == 0) {
+            return;
+        }
+        Graphics2D arrows = (Graphics2D) g2d.create();
+        arrows.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        Rectangle square = squareBounds(0);
+        float width = Math.max(2, Math.min(square.width, square.height) / 10f);
+        arrows.setStroke(new BasicStroke(width, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        for (int step = 0; step < bestLine.length; step++) {
+            Rectangle from = squareBounds(SearchBoard.from(bestLine[step]).getIndex());
+            Rectangle to = squareBounds(SearchBoard.to(bestLine[step]).getIndex());
+            double x1 = from.getCenterX(), y1 = from.getCenterY();
+            double x2 = to.getCenterX(), y2 = to.getCenterY();
+            double angle = Math.atan2(y2 - y1, x2 - x1);
+            double head = width * 3;
+            Path2D.Double arrowHead = new Path2D.Double();
+            arrowHead.moveTo(x2, y2);
+            arrowHead.lineTo(x2 - head * Math.cos(angle - Math.PI / 6), y2 - head * Math.sin(angle - Math.PI / 6));
+            arrowHead.lineTo(x2 - head * Math.cos(angle + Math.PI / 6), y2 - head * Math.sin(angle + Math.PI / 6));
+            arrowHead.closePath();
+
+            arrows.setColor(new Color(30, 90, 255, 200 - step * 60));
+            arrows.draw(new Line2D.Double(x1, y1, x2 - head * 0.8 * Math.cos(angle),
+                    y2 - head * 0.8 * Math.sin(angle)));
+            arrows.fill(arrowHead);
+        }
+        arrows.dispose();
+    }
+
+    /**
+     * Computes the area covered by a set of arrows.
+     *
+     * @param line The moves, packed as in SearchBoard.
+     * @return The union of the squares they join, or null if there are none.
+     */
+    private Rectangle arrowBounds(int[] line) {
+        updateLayout();
+        Rectangle bounds = null;
+        for (int move : line) {
+            Rectangle squares = squareBounds(SearchBoard.from(move).getIndex())
+                    .union(squareBounds(SearchBoard.to(move).getIndex()));
+            bounds = bounds == null ? squares : bounds.union(squares);
+        }
+        return bounds;
+    }
+
+    /**
+     * Rebuilds the transform and drops the cached backgrounds if the component was resized.
+     */
+    private void updateLayout() {
+        if (getWidth() == layoutWidth && getHeight() == layoutHeight) {
+            return;
+        }
+        layoutWidth = getWidth();
+        layoutHeight = getHeight();
+        buildTransform();
+        backgrounds[0] = null;
+        backgrounds[1] = null;
+    }
+
+    /**
+     * Builds the transform from model coordinates to pixels for the current size and perspective.
+     */
+    private void buildTransform() {
+        AffineTransform transform = new AffineTransform();
+        transform.scale((double) getWidth() / COLUMNS, (double) getHeight() / ROWS);
+        if (redPerspective) {
+            transform.quadrantRotate(2, COLUMNS / 2.0, ROWS / 2.0);
+        }
+        modelToScreen = transform;
+    }
+
+    /**
+     * Computes the pixel bounds of a square from the current transform.
+     *
+     * @param index The model square index.
+     * @return The bounds in component coordinates.
+     */
+    private Rectangle squareBounds(int index) {
+        double[] corners = {index % COLUMNS, index / COLUMNS, index % COLUMNS + 1, index / COLUMNS + 1};
+        modelToScreen.transform(corners, 0, corners, 0, 2);
+        int x = (int) Math.round(Math.min(corners[0], corners[2]));
+        int y = (int) Math.round(Math.min(corners[1], corners[3]));
+        return new Rectangle(x, y, (int) Math.round(Math.max(corners[0], corners[2])) - x,
+                (int) Math.round(Math.max(corners[1], corners[3])) - y);
+    }
+
+    /**
+     * Repaints one square.
+     *
+     * @param index The model square index.
+     */
+    private void repaintSquare(int index) {
+        updateLayout();
+        repaint(squareBounds(index));
+    }
+
+    /**
+     * Retrieves the cached checkerboard for the current perspective, rendering it if needed.
+     *
+     * @param width  The board width in pixels.
+     * @param height The board height in pixels.
+     * @return The checkerboard image.
+     */
+    private BufferedImage getBackgroundImage(int width, int height) {
+        int slot = redPerspective ? 1 : 0;
+        BufferedImage background = backgrounds[slot];
+        if (background == null) {
+            background = getGraphicsConfiguration() != null
+                    ? getGraphicsConfiguration().createCompatibleImage(width, height)
+                    : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g2d = background.createGraphics();
+            Rectangle origin = squareBounds(0).union(squareBounds(pieces.length - 1));
+            g2d.translate(-origin.x, -origin.y);
+            for (int index = 0; index < pieces.length; index++) {
+                int row = index / COLUMNS;
+                int col = index % COLUMNS;
+                g2d.setColor((row + col) % 2 == 0 ? Color.LIGHT_GRAY : Color.DARK_GRAY);
+                g2d.fill(squareBounds(index));
+            }
+            g2d.dispose();
+            backgrounds[slot] = background;
+        }
+        return background;
+    }
+}
@@ -0,0 +1,187 @@
+package view;
+
+import model.Board;
+import model.MoveRecord;
+import model.Piece;
+import model.Position;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * BoardRenderer draws a board position into an image without any Swing component, so it also
+ * runs with java.awt.headless=true.
+ *
+ * Description:
+ * The renderer has one square size. At construction it renders the checkerboard for both
+ * perspectives and every piece sprite in both orientations. The sprites come from the same
+ * piece images as the board on screen, decoded once by SpriteCache, and use the same margin.
+ * After that a render is two kinds of blit: the background, then one sprite per piece. The
+ * renderer never changes after construction, so any number of threads can share it, each
+ * drawing into its own image. Positions can be given as a Board or as square codes in the
+ * GameArchive format, which lets archived games be drawn without building their pieces.
+ *
+ * Design Pattern: Flyweight Pattern
+ * Role: Client - Draws shared, pre-rendered sprites at many squares.
+ *
+ * @author Tai Zhi Xuan
+ */
+public final class BoardRenderer {
+    /**
+     * The number of rows on the board.
+     */
+    private static final int ROWS = 8;
+
+    /**
+     * The number of columns on the board.
+     */
+    private static final int COLUMNS = 5;
+
+    /**
+     * The Blue bit of a square code.
+     */
+    private static final int BLUE = 1 << 3;
+
+    /**
+     * The size of a square, in pixels.
+     */
+    private final int squareSize;
+
+    /**
+     * The checkerboard for Blue's and for Red's perspective.
+     */
+    private final BufferedImage[] backgrounds = new BufferedImage[2];
+
+    /**
+     * The sprite of each square code (type and Blue bit), upright and rotated; null for none.
+     */
+    private final BufferedImage[][] sprites = new BufferedImage[2][16];
+
+    /**
+     * Constructs a new BoardRenderer, rendering the background and every sprite.
+     *
+     * @param squareSize The size of a square, in pixels; the image is 5 by 8 squares.
+     * @throws IllegalArgumentException If the size is less than 4 pixels.
+     */
+    public BoardRenderer(int squareSize) {
+        if (squareSize < 4) {
+            throw new IllegalArgumentException("Square size must be at least 4 pixels: " + squareSize);
+        }
+        this.squareSize = squareSize;
+        int spriteSize = BoardCanvas.spriteSizeFor(squareSize);
+        SpriteCache cache = SpriteCache.getInstance();
+        for (int code = 1; code < 16; code++) {
+            if ((code & 0x7) == MoveRecord.NONE || (code & 0x7) > 5) {
+                continue; // Not a piece type
+            }
+            String type = MoveRecord.typeName(code & 0x7);
+            String imagePath = "resources/images/" + type + ((code & BLUE) != 0 ? "_blue.png" : "_red.png");
+            sprites[0][code] = cache.renderSprite(imagePath, spriteSize, false);
+            sprites[1][code] = cache.renderSprite(imagePath, spriteSize, true);
+        }
+        backgrounds[0] = renderBackground(false);
+        backgrounds[1] = renderBackground(true);
+    }
+
+    /**
+     * Retrieves the width of a rendered board.
+     *
+     * @return The width in pixels.
+     */
+    public int getWidth() {
+        return COLUMNS * squareSize;
+    }
+
+    /**
+     * Retrieves the height of a rendered board.
+     *
+     * @return The height in pixels.
+     */
+    public int getHeight() {
+        return ROWS * squareSize;
+    }
+
+    /**
+     * Creates an image of the right size to render into; it can be reused for every render.
+     *
+     * @return A new RGB image.
+     */
+    public BufferedImage createImage() {
+        return new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * Reads a board into square codes, so it can be rendered on another thread.
+     *
+     * @param board   The board.
+     * @param squares Receives the code of each square, in the GameArchive format; 40 entries.
+     */
+    public static void readSquares(Board board, int[] squares) {
+        for (int index = 0; index < squares.length; index++) {
+            Piece piece = board.getPieceAt(Position.fromIndex(index));
+            squares[index] = piece == null ? MoveRecord.NONE
+                    : MoveRecord.typeCode(piece.getType()) | (piece.getColor() == model.Color.BLUE ? BLUE : 0);
+        }
+    }
+
+    /**
+     * Draws a board.
+     *
+     * @param board          The board.
+     * @param redPerspective Whether to turn the board 180 degrees, as when Red is to move.
+     * @param target         The image to draw into, from createImage.
+     */
+    public void render(Board board, boolean redPerspective, BufferedImage target) {
+        int[] squares = new int[ROWS * COLUMNS];
+        readSquares(board, squares);
+        render(squares, redPerspective, target);
+    }
+
+    /**
+     * Draws a position given as square codes.
+     *
+     * @param squares        The code of each square, in the GameArchive format (type code in
+     *                       bits 0-2, Blue in bit 3, other bits ignored); 40 entries.
+     * @param redPerspective Whether to turn the board 180 degrees, as when Red is to move.
+     * @param target         The image to draw into, from createImage.
+     * @throws IllegalArgumentException If the image has the wrong size.
+     */
+    public void render(int[] squares, boolean redPerspective, BufferedImage target) {
+        if (target.getWidth() != getWidth() || target.getHeight() != getHeight()) {
+            throw new IllegalArgumentException("Image must be " + getWidth() + "x" + getHeight() + " pixels");
+        }
+        int slot = redPerspective ? 1 : 0;
+        Graphics2D g2d = target.createGraphics();
+        g2d.drawImage(backgrounds[slot], 0, 0, null);
+        BufferedImage[] orientation = sprites[slot];
+        for (int index = 0; index < ROWS * COLUMNS; index++) {
+            BufferedImage sprite = orientation[squares[index] & 0xF];
+            if (sprite == null) {
+                continue;
+            }
+            int screen = redPerspective ? ROWS * COLUMNS - 1 - index : index;
+            int margin = (squareSize - sprite.getWidth()) / 2;
+            g2d.drawImage(sprite, screen % COLUMNS * squareSize + margin, screen / COLUMNS * squareSize + margin, null);
+        }
+        g2d.dispose();
+    }
+
+    /**
+     * Renders the checkerboard with the same colors as the board on screen.
+     *
+     * @param redPerspective Whether the board is turned 180 degrees.
+     * @return The image.
+     */
+    private BufferedImage renderBackground(boolean redPerspective) {
+        BufferedImage background = createImage();
+        Graphics2D g2d = background.createGraphics();
+        for (int index = 0; index < ROWS * COLUMNS; index++) {
+            int model = redPerspective ? ROWS * COLUMNS - 1 - index : index;
+            g2d.setColor((model / COLUMNS + model % COLUMNS) % 2 == 0 ? Color.LIGHT_GRAY : Color.DARK_GRAY);
+            g2d.fillRect(index % COLUMNS * squareSize, index / COLUMNS * squareSize, squareSize, squareSize);
+        }
+        g2d.dispose();
+        return background;
+    }
+}
@@ -1,15 +1,12 @@
 package view;
 
+import ai.SearchInfo;
 import controller.GameController;
-import model.Board;
-import model.Piece;
 import model.Position;
 
 import javax.swing.*;
 import java.awt.*;
-import java.awt.image.BufferedImage;
 import java.util.List;
-import java.util.Objects;
 
 /**
  * BoardView is the base graphical user interface (GUI) component for the Kwazam Chess game.
@@ -28,14 +25,9 @@ public class BoardView extends JFrame implements ViewInterface {
     protected GameController controller;
 
     /**
-     * The panel that contains all the board buttons.
+     * The component that paints the board and reports clicked squares.
      */
-    private JPanel boardPanel;
-
-    /**
-     * A 2D array of buttons representing each tile on the game board.
-     */
-    private JButton[][] buttons;
+    private BoardCanvas boardCanvas;
 
     /**
      * The main panel that holds all UI components.
@@ -43,9 +35,9 @@ public class BoardView extends JFrame implements ViewInterface {
     protected JPanel mainPanel;
 
     /**
-     * The size of each button on the board.
+     * The default size of each square on the board.
      */
-    private static final int BUTTON_SIZE = 83;
+    static final int BUTTON_SIZE = 83;
 
     /**
      * Constructs a new BoardView, initializing the GUI components.
@@ -79,7 +71,16 @@ public class BoardView extends JFrame implements ViewInterface {
     }
 
     /**
-     * Initializes the game board GUI components, including the grid of buttons
+     * Retrieves the canvas the board is painted on.
+     *
+     * @return The board canvas.
+     */
+    protected BoardCanvas getBoardCanvas() {
+        return boardCanvas;
+    }
+
+    /**
+     * Initializes the game board GUI components, including the board canvas
      * and the row and column labels.
      */
     private void initializeBoard() {
@@ -87,14 +88,9 @@ public class BoardView extends JFrame implements ViewInterface {
         this.mainPanel = new JPanel(new GridBagLayout());
         mainPanel.setBackground(getBackground());
 
-        // Create the board panel with GridLayout for buttons (8 rows x 5 columns)
-        boardPanel = new JPanel(new GridLayout(8, 5));
-        buttons = new JButton[8][5];
-
-        // Define the preferred and minimum size of the board panel
-        Dimension boardSize = new Dimension(BUTTON_SIZE * 5, BUTTON_SIZE * 8);
-        boardPanel.setPreferredSize(boardSize);
-        boardPanel.setMinimumSize(boardSize);
+        // Create the board component; it paints all 40 squares itself and can be resized
+        boardCanvas = new BoardCanvas(BUTTON_SIZE);
+        boardCanvas.setOnSquareClicked(position -> handleClick(position.getRow(), position.getColumn()));
 
         // Create labels for row numbers (0 to 7)
         JPanel rowLabels = new JPanel(new GridLayout(8, 1));
@@ -121,6 +117,7 @@ public class BoardView extends JFrame implements ViewInterface {
         gbc.gridheight = 8;
         gbc.fill = GridBagConstraints.VERTICAL;
         gbc.anchor = GridBagConstraints.CENTER;
+        gbc.weighty = 1;
         gbc.insets = new Insets(10, 0, 0, 0);
         mainPanel.add(rowLabels, gbc);
 
@@ -130,6 +127,8 @@ public class BoardView extends JFrame implements ViewInterface {
         gbc.gridwidth = 5;
         gbc.fill = GridBagConstraints.HORIZONTAL;
         gbc.anchor = GridBagConstraints.CENTER;
+        gbc.weighty = 0;
+        gbc.weightx = 1;
         gbc.insets = new Insets(0, 10, 10, 0);
         mainPanel.add(columnLabels, gbc);
 
@@ -138,9 +137,10 @@ public class BoardView extends JFrame implements ViewInterface {
         gbc.gridy = 1;
         gbc.gridwidth = 5;
         gbc.gridheight = 8;
-        gbc.fill = GridBagConstraints.NONE;
+        gbc.fill = GridBagConstraints.BOTH; // The board grows with the window
         gbc.anchor = GridBagConstraints.CENTER;
-        mainPanel.add(boardPanel, gbc);
+        gbc.weighty = 1;
+        mainPanel.add(boardCanvas, gbc);
 
         add(mainPanel);
     }
@@ -148,56 +148,37 @@ public class BoardView extends JFrame implements ViewInterface {
     /**
      * Refreshes the board display by updating piece positions and icons.
      * This method should be called whenever the game state changes.
+     * Only squares whose piece changed are repainted; highlights are cleared.
      */
     public void refreshBoard() {
-        boardPanel.removeAll();
-        Board board = controller.getBoard();
-
-        int buttonSize = boardPanel.getPreferredSize().width / 5;
-
-        boolean isCurrentPlayerRed = controller.getCurrentPlayer().equals("RED");
-
-        // Iterate through each position on the board
-        for (int row = isCurrentPlayerRed ? board.getRows() - 1 : 0;
-             isCurrentPlayerRed ? row >= 0 : row < board.getRows();
-             row += isCurrentPlayerRed ? -1 : 1) {
-            for (int col = isCurrentPlayerRed ? board.getColumns() - 1 : 0;
-                 isCurrentPlayerRed ? col >= 0 : col < board.getColumns();
-                 col += isCurrentPlayerRed ? -1 : 1) {
-
-                JButton button = new JButton();
-                button.setPreferredSize(new Dimension(buttonSize, buttonSize));
-                buttons[row][col] = button;
-
-                Position position = new Position(row, col);
-                Piece piece = board.getPieceAt(position);
-
-                if (piece != null) {
-                    ImageIcon icon = new ImageIcon(
-                            Objects.requireNonNull(getClass().getClassLoader().getResource(piece.getImagePath()))
-                    );
-                    Image originalImage = icon.getImage();
-                    Image displayedImage = isCurrentPlayerRed ? rotateImage(originalImage) : originalImage;
-                    Image scaledImage = displayedImage.getScaledInstance(buttonSize - 15, buttonSize - 15, Image.SCALE_SMOOTH);
-                    button.setIcon(new ImageIcon(scaledImage));
-                }
+        boardCanvas.clearHighlights();
+        boardCanvas.showBoard(controller.getBoard(), controller.isRedPerspective());
+    }
 
-                if ((row + col) % 2 == 0) {
-                    button.setBackground(Color.LIGHT_GRAY);
-                } else {
-                    button.setBackground(Color.DARK_GRAY);
-                }
-                button.setOpaque(true);
-                button.setBorderPainted(false);
+    /**
+     * Shows that the computer is thinking, in the window title.
+     *
+     * @param info The latest search progress, or null before the first report.
+     */
+    public void showComputerThinking(SearchInfo info) {
+        setTitle(info == null ? "Kwazam Chess - computer thinking"
+                : "Kwazam Chess - computer thinking: depth " + info.getDepth());
+    }
 
-                final int r = row, c = col;
-                button.addActionListener(e -> handleClick(r, c));
+    /**
+     * Removes the computer's thinking indicator.
+     */
+    public void hideComputerThinking() {
+        setTitle("Kwazam Chess");
+    }
 
-                boardPanel.add(button);
-            }
-        }
-        boardPanel.revalidate();
-        boardPanel.repaint();
+    /**
+     * Shows or hides the frame statistics overlay on the board.
+     *
+     * @param visible True to show frame rate, paint time and dropped frames.
+     */
+    public void setFrameStatsVisible(boolean visible) {
+        boardCanvas.getAnimator().setStatsVisible(visible);
     }
 
     /**
@@ -207,71 +188,33 @@ public class BoardView extends JFrame implements ViewInterface {
      * @param col The column index of the clicked tile.
      */
     private void handleClick(int row, int col) {
-        Position position = new Position(row, col);
+        Position position = Position.of(row, col);
         controller.handleTileClick(position, this);
     }
 
     /**
-     * Highlights the selected piece by changing its background color to yellow.
+     * Highlights the selected piece by painting its square yellow.
      *
      * @param position The position of the selected piece.
      */
     public void highlightSelectedPiece(Position position) {
-        int row = position.getRow();
-        int col = position.getColumn();
-
-        if (buttons[row][col] != null) {
-            buttons[row][col].setBackground(Color.YELLOW);  // Set yellow background
-        }
+        boardCanvas.setSelected(position);
     }
 
     /**
-     * Highlights all valid move positions by changing their background color to green.
+     * Highlights all valid move positions by painting their squares green.
      *
      * @param validMoves A list of valid positions to highlight.
      */
     public void highlightValidMoves(List<Position> validMoves) {
-        for (Position move : validMoves) {
-            buttons[move.getRow()][move.getColumn()].setBackground(Color.GREEN);
-        }
+        boardCanvas.addValidMoves(validMoves);
     }
 
     /**
-     * Clears all highlights on the board by resetting the background colors to the checkerboard pattern.
+     * Clears all highlights on the board, restoring the checkerboard pattern.
      */
     public void clearHighlights() {
-        for (int row = 0; row < buttons.length; row++) {
-            for (int col = 0; col < buttons[row].length; col++) {
-                if ((row + col) % 2 == 0) {
-                    buttons[row][col].setBackground(Color.LIGHT_GRAY);
-                } else {
-                    buttons[row][col].setBackground(Color.DARK_GRAY);
-                }
-            }
-        }
-    }
-
-    /**
-     * Rotates an image by 180 degrees.
-     *
-     * @param original The original Image to rotate.
-     * @return The rotated Image.
-     */
-    private Image rotateImage(Image original) {
-        int width = original.getWidth(null);
-        int height = original.getHeight(null);
-
-        BufferedImage rotatedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g2d = rotatedImage.createGraphics();
-
-        g2d.translate(width / 2, height / 2);
-        g2d.rotate(Math.toRadians(180));
-        g2d.translate(-width / 2, -height / 2);
-
-        g2d.drawImage(original, 0, 0, null);
-        g2d.dispose();
-
-        return rotatedImage;
+        boardCanvas.clearHighlights();
     }
 
     /**
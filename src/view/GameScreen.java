@@ -1,12 +1,17 @@
 package view;
 
+import ai.AnalysisSnapshot;
+import ai.SearchBoard;
+import ai.SearchEngine;
+import ai.SearchInfo;
 import controller.GameController;
-import model.Move;
+import model.Piece;
 import model.Position;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
+import java.util.ArrayList;
 import java.util.List;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
@@ -16,6 +21,12 @@ import java.awt.event.WindowEvent;
  * such as move history and a game timer. It enhances the base board view with
  * more interactive and informative elements.
  *
+ * In analysis mode a Swing timer polls the controller's analysis snapshot ten times a second.
+ * When the snapshot has changed, the selected piece's move squares are shaded from green for
+ * the best move to red for a loss of three Rams or more, and the best line is drawn as arrows.
+ * The background analysis never calls the view, so fast score updates cost at most one
+ * repaint per tick, and the Event Dispatch Thread never scans the board for it.
+ *
  * Design Pattern: Adapter Pattern
  * Role: Adapter - Extends BoardView to add new functionalities like sidebar and timer.
  *
@@ -43,15 +54,55 @@ public class GameScreen extends BoardView {
     private Timer gameTimer;
 
     /**
-     * Model for the move history list.
+     * Model for the move history list; formats moves only when they are shown.
      */
-    private DefaultListModel<String> moveListModel;
+    private MoveListModel moveListModel;
 
     /**
      * List component displaying the move history.
      */
     private JList<String> moveList;
 
+    /**
+     * Label showing the computer's search progress.
+     */
+    private JLabel thinkingLabel;
+
+    /**
+     * Bar that moves while the computer is thinking.
+     */
+    private JProgressBar thinkingBar;
+
+    /**
+     * How often the analysis is polled, in milliseconds.
+     */
+    private static final int ANALYSIS_POLL_MILLIS = 100;
+
+    /**
+     * The score loss, in hundredths of a Ram, shaded fully red in analysis mode.
+     */
+    private static final int ANALYSIS_SHADE_RANGE = 300;
+
+    /**
+     * Label showing the depth and score of the analysis.
+     */
+    private JLabel analysisLabel;
+
+    /**
+     * Timer that polls the analysis; runs only in analysis mode.
+     */
+    private Timer analysisTimer;
+
+    /**
+     * The analysis snapshot shown, or null.
+     */
+    private AnalysisSnapshot shownSnapshot;
+
+    /**
+     * The valid moves of the selected piece currently highlighted.
+     */
+    private final List<Position> shownMoves = new ArrayList<>();
+
     /**
      * Constructs a new GameScreen with the specified GameController.
      *
@@ -79,6 +130,7 @@ public class GameScreen extends BoardView {
             @Override
             public void windowClosing(WindowEvent e) {
                 stopGameTimer();
+                controller.dispose(); // Stop the computer's threads before the window goes
                 super.windowClosing(e);
             }
         });
@@ -128,10 +180,33 @@ public class GameScreen extends BoardView {
         // Add vertical spacing after the timer
         sidePanel.add(Box.createVerticalStrut(30));
 
+        // Computer search progress, hidden until the computer thinks
+        thinkingLabel = new JLabel(" ");
+        thinkingLabel.setFont(new Font("Arial", Font.PLAIN, 14));
+        thinkingLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        thinkingBar = new JProgressBar();
+        thinkingBar.setIndeterminate(true);
+        thinkingBar.setVisible(false);
+        thinkingBar.setMaximumSize(new Dimension(270, 12));
+        thinkingBar.setAlignmentX(Component.CENTER_ALIGNMENT);
+        sidePanel.add(thinkingLabel);
+        sidePanel.add(Box.createVerticalStrut(5));
+        sidePanel.add(thinkingBar);
+        sidePanel.add(Box.createVerticalStrut(5));
+
+        // Analysis depth and score, shown only in analysis mode
+        analysisLabel = new JLabel(" ");
+        analysisLabel.setFont(new Font("Arial", Font.PLAIN, 14));
+        analysisLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        sidePanel.add(analysisLabel);
+        sidePanel.add(Box.createVerticalStrut(20));
+
         // Initialize the move history list model and list
-        moveListModel = new DefaultListModel<>();
+        moveListModel = new MoveListModel();
         moveList = new JList<>(moveListModel);
         moveList.setFont(new Font("Monospaced", Font.PLAIN, 16));
+        // A prototype row gives every cell the same size, so the list only renders the visible rows
+        moveList.setPrototypeCellValue("10000. BLUE (Tor): (7,4) -> (7,4)");
 
         // Add a label for the move history section
         JLabel moveListLabel = new JLabel("Move History", SwingConstants.CENTER);
@@ -217,7 +292,11 @@ public class GameScreen extends BoardView {
             if (result == JFileChooser.APPROVE_OPTION) {
                 String filename = fileChooser.getSelectedFile().getAbsolutePath();
                 try {
-                    controller.saveGameAsText(filename);
+                    if (filename.toLowerCase().endsWith(".kwz")) {
+                        controller.saveGameAsBinary(filename); // Compact binary format
+                    } else {
+                        controller.saveGameAsText(filename);
+                    }
                     JOptionPane.showMessageDialog(this, "Game saved successfully to: " + filename);
                 } catch (Exception ex) {
                     JOptionPane.showMessageDialog(this,
@@ -249,8 +328,18 @@ public class GameScreen extends BoardView {
         });
         gameMenu.add(loadGame);
 
+        JCheckBoxMenuItem frameStats = new JCheckBoxMenuItem("Show Frame Stats");
+        frameStats.addActionListener(e -> setFrameStatsVisible(frameStats.isSelected()));
+        gameMenu.add(frameStats);
+
+        JCheckBoxMenuItem analysisMode = new JCheckBoxMenuItem("Analysis Mode");
+        analysisMode.addActionListener(e -> setAnalysisMode(analysisMode.isSelected()));
+        gameMenu.add(analysisMode);
+
         JMenuItem backHome = new JMenuItem("Back to Home");
         backHome.addActionListener(e -> {
+            setAnalysisMode(false);
+            controller.dispose();
             dispose();
             stopGameTimer();
             new HomeScreen();
@@ -275,47 +364,60 @@ public class GameScreen extends BoardView {
     public void refreshBoard() {
         super.refreshBoard();
         updateMoveList();
+        if (shownSnapshot != null) {
+            shownSnapshot = null; // Its scores are for the position before this change
+            getBoardCanvas().setBestLine(new int[0]);
+        }
     }
 
     /**
-     * Updates the move history display based on the controller's move history.
-     * This method formats each move and adds it to the moveListModel.
+     * Rebuilds the move history display after the history was replaced by a reset or a load.
      */
-    public void updateMoveList() {
+    public void resetMoveList() {
         moveListModel.clear();
+        updateMoveList();
+    }
 
-        List<Move> history = controller.getMoveHistory();
-        boolean isRedPerspective = controller.getCurrentPlayer().equals("BLUE");
-
-        int moveNumber = 1;
-
-        for (Move move : history) {
-            String player = move.getPlayer();
-            String pieceType = move.getPieceType();
-
-            boolean isRedPlayer = player.equalsIgnoreCase("RED");
-            boolean shouldInvert = isRedPlayer;
-
-            int displayFromRow = shouldInvert ? (7 - move.getFrom().getRow()) : move.getFrom().getRow();
-            int displayFromCol = shouldInvert ? (4 - move.getFrom().getColumn()) : move.getFrom().getColumn();
-            int displayToRow = shouldInvert ? (7 - move.getTo().getRow()) : move.getTo().getRow();
-            int displayToCol = shouldInvert ? (4 - move.getTo().getColumn()) : move.getTo().getColumn();
-
-            String formattedMove = String.format(
-                    "%d. %s (%s): (%d,%d) -> (%d,%d)",
-                    moveNumber++,
-                    player,
-                    pieceType,
-                    displayFromRow, displayFromCol,
-                    displayToRow, displayToCol
-            );
-
-            moveListModel.addElement(formattedMove);
+    /**
+     * Updates the move history display based on the controller's move history.
+     * Only moves made since the last update are added; the list formats rows as they are shown.
+     */
+    public void updateMoveList() {
+        int appended = moveListModel.sync(controller.getMoveHistory());
+        if (appended != 0 && moveListModel.getSize() > 0) {
+            moveList.ensureIndexIsVisible(moveListModel.getSize() - 1);
         }
+    }
 
-        if (!history.isEmpty()) {
-            moveList.ensureIndexIsVisible(history.size() - 1);
+    /**
+     * Shows the computer's search progress in the sidebar: depth, speed and current best move.
+     *
+     * @param info The latest search progress, or null before the first report.
+     */
+    @Override
+    public void showComputerThinking(SearchInfo info) {
+        thinkingBar.setVisible(true);
+        if (info == null || !info.hasBestMove()) {
+            thinkingLabel.setText("Computer thinking...");
+            return;
         }
+        Piece piece = controller.getBoard().getPieceAt(info.getBestFrom());
+        StringBuilder text = new StringBuilder("<html>Computer: depth ").append(info.getDepth())
+                .append(", ").append(info.getNodesPerSecond() / 1000).append("k nodes/s<br>Best: ");
+        if (piece != null) {
+            MoveListModel.appendMove(text, piece.getColor() == model.Color.BLUE, piece.getType(),
+                    info.getBestFrom().getIndex(), info.getBestTo().getIndex());
+        }
+        thinkingLabel.setText(text.append("</html>").toString());
+    }
+
+    /**
+     * Hides the computer's search progress.
+     */
+    @Override
+    public void hideComputerThinking() {
+        thinkingBar.setVisible(false);
+        thinkingLabel.setText(" ");
     }
 
     /**
@@ -326,6 +428,10 @@ public class GameScreen extends BoardView {
     @Override
     public void highlightValidMoves(List<Position> validMoves) {
         super.highlightValidMoves(validMoves);
+        shownMoves.addAll(validMoves);
+        if (shownSnapshot != null) {
+            shadeMoves(shownSnapshot); // Shade at once rather than on the next poll
+        }
     }
 
     /**
@@ -334,6 +440,91 @@ public class GameScreen extends BoardView {
     @Override
     public void clearHighlights() {
         super.clearHighlights();
+        shownMoves.clear();
+    }
+
+    /**
+     * Turns analysis mode on or off, starting or stopping the timer that polls it.
+     *
+     * @param enabled True to analyze.
+     */
+    private void setAnalysisMode(boolean enabled) {
+        controller.setAnalysisEnabled(enabled);
+        if (enabled) {
+            if (analysisTimer == null) {
+                analysisTimer = new Timer(ANALYSIS_POLL_MILLIS, e -> pollAnalysis());
+            }
+            analysisTimer.start();
+            return;
+        }
+        if (analysisTimer != null) {
+            analysisTimer.stop();
+        }
+        shownSnapshot = null;
+        for (Position position : shownMoves) {
+            getBoardCanvas().setMoveShade(position, null);
+        }
+        getBoardCanvas().setBestLine(new int[0]);
+        analysisLabel.setText(" ");
+    }
+
+    /**
+     * Shows the latest analysis if it changed since the last poll.
+     */
+    private void pollAnalysis() {
+        AnalysisSnapshot snapshot = controller.getAnalysisSnapshot();
+        if (snapshot == shownSnapshot) {
+            return; // Nothing new; nothing is repainted
+        }
+        shownSnapshot = snapshot;
+        if (snapshot == null || !snapshot.hasBestMove()) {
+            getBoardCanvas().setBestLine(new int[0]);
+            analysisLabel.setText(" ");
+            return;
+        }
+        shadeMoves(snapshot);
+        int[] line = snapshot.getBestLine();
+        getBoardCanvas().setBestLine(line);
+
+        Piece piece = controller.getBoard().getPieceAt(SearchBoard.from(line[0]));
+        StringBuilder text = new StringBuilder("<html>Analysis: depth ").append(snapshot.getCompletedDepth())
+                .append(", score ");
+        int score = snapshot.getBestScore();
+        if (Math.abs(score) > SearchEngine.WIN_THRESHOLD) {
+            text.append(score > 0 ? "forced win" : "forced loss");
+        } else {
+            text.append(String.format("%+.2f", score / 100.0));
+        }
+        text.append("<br>Best: ");
+        if (piece != null) {
+            MoveListModel.appendMove(text, piece.getColor() == model.Color.BLUE, piece.getType(),
+                    SearchBoard.from(line[0]).getIndex(), SearchBoard.to(line[0]).getIndex());
+        }
+        analysisLabel.setText(text.append("</html>").toString());
+    }
+
+    /**
+     * Shades the selected piece's move squares by score: green for the best move, through
+     * yellow, to red for ANALYSIS_SHADE_RANGE or more below it.
+     *
+     * @param snapshot The analysis to shade from.
+     */
+    private void shadeMoves(AnalysisSnapshot snapshot) {
+        Position selected = controller.getSelectedPiece();
+        if (selected == null || !snapshot.hasBestMove()) {
+            return;
+        }
+        int best = snapshot.getBestScore();
+        for (Position to : shownMoves) {
+            int index = snapshot.indexOf(selected, to);
+            Color shade = null;
+            if (index >= 0 && snapshot.isScored(index)) {
+                int loss = Math.min(Math.max(best - snapshot.getScore(index), 0), ANALYSIS_SHADE_RANGE);
+                float grade = 1f - (float) loss / ANALYSIS_SHADE_RANGE;
+                shade = Color.getHSBColor(grade / 3f, 0.75f, 0.95f);
+            }
+            getBoardCanvas().setMoveShade(to, shade);
+        }
     }
 
     /**
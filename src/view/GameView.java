@@ -48,8 +48,8 @@ public class GameView {
                 int toRow   = scanner.nextInt();
                 int toCol   = scanner.nextInt();
 
-                Position from = new Position(fromRow, fromCol);
-                Position to   = new Position(toRow, toCol);
+                Position from = Position.of(fromRow, fromCol);
+                Position to   = Position.of(toRow, toCol);
 
                 // Attempt the move
                 if (controller.movePiece(from, to)) {
@@ -77,7 +77,7 @@ public class GameView {
         Board board = controller.getBoard();
         for (int r = 0; r < board.getRows(); r++) {
             for (int c = 0; c < board.getColumns(); c++) {
-                Piece piece = board.getPieceAt(new Position(r, c));
+                Piece piece = board.getPieceAt(Position.of(r, c));
                 if (piece == null) {
                     System.out.print(" . ");
                 } else {
@@ -9,8 +9,8 @@ import java.net.URL;
 
 /**
  * HomeScreen provides the main menu interface for the Kwazam Chess application.
- * It allows users to start a new game, resume a previous game, load a game from a file,
- * view instructions, or exit the application.
+ * It allows users to start a new game, play against the computer, resume a previous game,
+ * load a game from a file, view instructions, or exit the application.
  *
  * @author Tai Zhi Xuan, Tiffany Jong Shu Ting, Joyce Ong Pay Teng
  */
@@ -44,12 +44,13 @@ public class HomeScreen extends JFrame {
 
         // Buttons Panel
         JPanel buttonPanel = new JPanel();
-        buttonPanel.setLayout(new GridLayout(5, 1, 20, 20));
-        buttonPanel.setBorder(BorderFactory.createEmptyBorder(50, 150, 50, 150));
+        buttonPanel.setLayout(new GridLayout(6, 1, 20, 15));
+        buttonPanel.setBorder(BorderFactory.createEmptyBorder(40, 150, 40, 150));
         buttonPanel.setBackground(new Color(230, 230, 230));
 
         // Create Buttons
         CustomButton newGameButton = createGradientButton("Create New Game");
+        CustomButton computerGameButton = createGradientButton("Play vs Computer");
         CustomButton resumeGameButton = createGradientButton("Resume Game");
         CustomButton loadGameButton = createGradientButton("Load Game");
         CustomButton instructionsButton = createGradientButton("Instructions");
@@ -57,6 +58,7 @@ public class HomeScreen extends JFrame {
 
         // Add Buttons to Panel
         buttonPanel.add(newGameButton);
+        buttonPanel.add(computerGameButton);
         buttonPanel.add(resumeGameButton);
         buttonPanel.add(loadGameButton);
         buttonPanel.add(instructionsButton);
@@ -68,6 +70,7 @@ public class HomeScreen extends JFrame {
 
         // Button Actions
         newGameButton.addActionListener(e -> startNewGame());
+        computerGameButton.addActionListener(e -> startComputerGame());
         resumeGameButton.addActionListener(e -> resumeGame());
         loadGameButton.addActionListener(e -> loadGame());
         instructionsButton.addActionListener(e -> showInstructions());
@@ -118,6 +121,18 @@ public class HomeScreen extends JFrame {
         controller.getView().setVisible(true); // Open the game screen
     }
 
+    /**
+     * Creates a new game against the computer. The player moves first as Red and the
+     * computer plays Blue.
+     */
+    private void startComputerGame() {
+        dispose();
+        GameController controller = new GameController(new Board());
+        controller.setComputerOpponent(model.Color.BLUE);
+        savedController = controller;
+        controller.getView().setVisible(true);
+    }
+
     /**
      * Resumes a previously created game if a saved controller exists.
      * Displays an error message if no saved game is available.
@@ -0,0 +1,494 @@
+package view;
+
+import model.Piece;
+import model.Position;
+
+import javax.swing.ImageIcon;
+import javax.swing.Timer;
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MoveAnimator animates board changes on a BoardCanvas: pieces slide to their new square,
+ * captured pieces fade out and transformed Tor and Xor pieces cross-fade into their new type.
+ *
+ * Description:
+ * The animations only change what is drawn. The model has already moved when they start, so
+ * they never delay Game.movePiece, and clicks are handled as usual while they run. A new board
+ * change finishes the running animations at once. A single javax.swing.Timer ticks at 60 frames
+ * per second on the Event Dispatch Thread, and only while something is moving. Each tick
+ * repaints only the rectangles the animated sprites covered in the last frame and cover in
+ * this one. Sprites come from SpriteCache. The timer also keeps frame statistics (frame rate,
+ * paint time and dropped frames), which the canvas can draw as an overlay.
+ *
+ * Design Pattern: Observer Pattern
+ * Role: Observer - Reacts to the timer's ticks by advancing and repainting the animations.
+ *
+ * @author Tai Zhi Xuan
+ */
+public final class MoveAnimator {
+    /**
+     * The target time between frames, in milliseconds (60 frames per second).
+     */
+    public static final int FRAME_MILLIS = 16;
+
+    /**
+     * How long a piece takes to slide to its new square, in milliseconds.
+     */
+    private static final long SLIDE_MILLIS = 180;
+
+    /**
+     * How long a captured piece takes to fade out, in milliseconds.
+     */
+    private static final long FADE_MILLIS = 220;
+
+    /**
+     * How long a transformation cross-fade takes, in milliseconds.
+     */
+    private static final long TRANSFORM_MILLIS = 260;
+
+    /**
+     * The target time between frames, in nanoseconds.
+     */
+    private static final long FRAME_NANOS = 1_000_000_000L / 60;
+
+    /**
+     * The area of the frame statistics overlay.
+     */
+    private static final Rectangle STATS_AREA = new Rectangle(4, 4, 250, 22);
+
+    /**
+     * The canvas being animated.
+     */
+    private final BoardCanvas canvas;
+
+    /**
+     * The frame clock.
+     */
+    private final Timer timer;
+
+    /**
+     * The running animations.
+     */
+    private final List<Animation> animations = new ArrayList<>();
+
+    /**
+     * The squares whose piece is drawn by an animation instead of by the canvas, one bit per
+     * model square index.
+     */
+    private long hiddenSquares;
+
+    /**
+     * Whether board changes are animated.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Whether the frame statistics overlay is shown.
+     */
+    private boolean statsVisible;
+
+    /**
+     * When the previous tick ran, or 0 if the clock was stopped.
+     */
+    private long lastTickNanos;
+
+    /**
+     * The number of frames animated since the statistics were shown.
+     */
+    private long frames;
+
+    /**
+     * The number of frames missed because a tick came late.
+     */
+    private long droppedFrames;
+
+    /**
+     * The time between the last two ticks, in nanoseconds.
+     */
+    private long lastFrameNanos;
+
+    /**
+     * How long the last paint of the canvas took, in nanoseconds.
+     */
+    private long lastPaintNanos;
+
+    /**
+     * Constructs a new MoveAnimator.
+     *
+     * @param canvas The canvas to animate.
+     */
+    public MoveAnimator(BoardCanvas canvas) {
+        this.canvas = canvas;
+        this.timer = new Timer(FRAME_MILLIS, e -> tick());
+        this.timer.setCoalesce(true); // Skip late ticks instead of bunching them up
+    }
+
+    /**
+     * Turns animations on or off. Turning them off finishes any running animation.
+     *
+     * @param enabled True to animate board changes.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            finish();
+        }
+    }
+
+    /**
+     * Checks whether board changes are animated.
+     *
+     * @return True if animations are on.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Shows or hides the frame statistics overlay and resets the statistics.
+     *
+     * @param visible True to show the overlay.
+     */
+    public void setStatsVisible(boolean visible) {
+        statsVisible = visible;
+        frames = 0;
+        droppedFrames = 0;
+        lastFrameNanos = 0;
+        canvas.repaint(STATS_AREA);
+    }
+
+    /**
+     * Checks whether the frame statistics overlay is shown.
+     *
+     * @return True if the overlay is shown.
+     */
+    public boolean isStatsVisible() {
+        return statsVisible;
+    }
+
+    /**
+     * Starts animating a board change found by the canvas. Running animations are finished first.
+     *
+     * @param before The pieces shown before the change, indexed by model square index.
+     * @param after  The pieces shown after the change.
+     */
+    void animate(Piece[] before, Piece[] after) {
+        finish();
+        if (!enabled) {
+            return;
+        }
+        boolean related = false; // A new game or a loaded save shares no piece with the old board
+        for (int index = 0; index < after.length && !related; index++) {
+            related = after[index] != null && indexOf(before, after[index]) >= 0;
+        }
+        if (!related) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        for (int index = 0; index < after.length; index++) {
+            Piece piece = after[index];
+            Piece previous = before[index];
+            if (piece == previous) {
+                continue;
+            }
+            if (previous != null && indexOf(after, previous) < 0) {
+                boolean transformed = piece != null && indexOf(before, piece) < 0
+                        && piece.getColor() == previous.getColor();
+                if (transformed) {
+                    add(new Animation(Kind.TRANSFORM, piece, previous, index, index, now, TRANSFORM_MILLIS));
+                    continue;
+                }
+                add(new Animation(Kind.FADE, previous, null, index, index, now, FADE_MILLIS));
+            }
+            int from = piece == null ? -1 : indexOf(before, piece);
+            if (from >= 0) {
+                add(new Animation(Kind.SLIDE, piece, null, from, index, now, SLIDE_MILLIS));
+            }
+        }
+        if (!animations.isEmpty() && !timer.isRunning()) {
+            lastTickNanos = 0;
+            timer.start();
+        }
+    }
+
+    /**
+     * Checks whether the canvas should leave a square's piece to the animations.
+     *
+     * @param index The model square index.
+     * @return True if an animation draws the piece on that square.
+     */
+    boolean isHidden(int index) {
+        return (hiddenSquares & 1L << index) != 0;
+    }
+
+    /**
+     * Draws the running animations: fading captures first, then transformations, then slides.
+     *
+     * @param g2d        The graphics context of the canvas.
+     * @param spriteSize The sprite size.
+     * @param rotate     Whether sprites are turned 180 degrees.
+     */
+    void paint(Graphics2D g2d, int spriteSize, boolean rotate) {
+        if (animations.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        Composite original = g2d.getComposite();
+        for (Kind kind : Kind.values()) {
+            for (Animation animation : animations) {
+                if (animation.kind != kind) {
+                    continue;
+                }
+                float progress = animation.progress(now);
+                Rectangle bounds = animation.spriteBounds(progress, spriteSize);
+                if (kind == Kind.TRANSFORM) {
+                    drawSprite(g2d, animation.previous, bounds, rotate, 1f - progress);
+                    drawSprite(g2d, animation.piece, bounds, rotate, progress);
+                } else {
+                    drawSprite(g2d, animation.piece, bounds, rotate, kind == Kind.FADE ? 1f - progress : 1f);
+                }
+            }
+        }
+        g2d.setComposite(original);
+    }
+
+    /**
+     * Draws the frame statistics overlay if it is shown.
+     *
+     * @param g2d        The graphics context of the canvas.
+     * @param paintNanos How long this paint took so far, in nanoseconds.
+     */
+    void paintStats(Graphics2D g2d, long paintNanos) {
+        lastPaintNanos = paintNanos;
+        if (!statsVisible) {
+            return;
+        }
+        g2d.setColor(new Color(0, 0, 0, 160));
+        g2d.fill(STATS_AREA);
+        g2d.setColor(droppedFrames > 0 ? Color.ORANGE : Color.WHITE);
+        g2d.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        double fps = lastFrameNanos > 0 ? 1e9 / lastFrameNanos : 0;
+        g2d.drawString(String.format("%3.0f fps  paint %4.1f ms  dropped %d/%d", fps, lastPaintNanos / 1e6,
+                droppedFrames, frames),
+                STATS_AREA.x + 6, STATS_AREA.y + 15);
+    }
+
+    /**
+     * Ends every running animation at once and stops the clock.
+     */
+    public void finish() {
+        for (Animation animation : animations) {
+            canvas.repaint(animation.lastBounds);
+            canvas.repaint(animation.squareBounds(animation.to));
+        }
+        animations.clear();
+        hiddenSquares = 0;
+        timer.stop();
+    }
+
+    /**
+     * Advances the animations by one frame, repainting only what they cover, and updates the
+     * frame statistics.
+     */
+    private void tick() {
+        long now = System.nanoTime();
+        if (lastTickNanos != 0) {
+            lastFrameNanos = now - lastTickNanos;
+            long missed = (lastFrameNanos + FRAME_NANOS / 2) / FRAME_NANOS - 1;
+            if (missed > 0) {
+                droppedFrames += missed;
+            }
+        }
+        lastTickNanos = now;
+        frames++;
+
+        int spriteSize = canvas.getSpriteSize();
+        boolean running = false;
+        for (Animation animation : animations) {
+            float progress = animation.progress(now);
+            Rectangle bounds = animation.spriteBounds(progress, spriteSize);
+            canvas.repaint(bounds.union(animation.lastBounds));
+            animation.lastBounds = bounds;
+            running |= progress < 1f;
+        }
+        if (statsVisible) {
+            canvas.repaint(STATS_AREA);
+        }
+        if (!running) {
+            finish();
+        }
+    }
+
+    /**
+     * Adds an animation and hides the piece the canvas would otherwise draw on its target square.
+     *
+     * @param animation The animation.
+     */
+    private void add(Animation animation) {
+        animation.lastBounds = animation.spriteBounds(0f, canvas.getSpriteSize());
+        animations.add(animation);
+        if (animation.kind != Kind.FADE) {
+            hiddenSquares |= 1L << animation.to;
+        }
+    }
+
+    /**
+     * Draws a sprite with some transparency.
+     *
+     * @param g2d    The graphics context.
+     * @param piece  The piece.
+     * @param bounds Where to draw the sprite.
+     * @param rotate Whether the sprite is turned 180 degrees.
+     * @param alpha  The opacity, from 0 to 1.
+     */
+    private void drawSprite(Graphics2D g2d, Piece piece, Rectangle bounds, boolean rotate, float alpha) {
+        ImageIcon icon = SpriteCache.getInstance().getIcon(piece.getImagePath(), bounds.width, rotate);
+        g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, Math.max(0f, Math.min(1f, alpha))));
+        icon.paintIcon(canvas, g2d, bounds.x, bounds.y);
+    }
+
+    /**
+     * Finds a piece by identity.
+     *
+     * @param pieces The pieces, indexed by model square index.
+     * @param piece  The piece to find.
+     * @return Its index, or -1.
+     */
+    private static int indexOf(Piece[] pieces, Piece piece) {
+        for (int index = 0; index < pieces.length; index++) {
+            if (pieces[index] == piece) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The kinds of animation, in drawing order.
+     */
+    private enum Kind {
+        /**
+         * A captured piece fading out.
+         */
+        FADE,
+        /**
+         * A transformed piece cross-fading into its new type.
+         */
+        TRANSFORM,
+        /**
+         * A piece sliding to its new square.
+         */
+        SLIDE
+    }
+
+    /**
+     * One running animation.
+     */
+    private final class Animation {
+        /**
+         * What the animation does.
+         */
+        private final Kind kind;
+
+        /**
+         * The animated piece.
+         */
+        private final Piece piece;
+
+        /**
+         * The piece before a transformation, or null.
+         */
+        private final Piece previous;
+
+        /**
+         * The square the piece starts on.
+         */
+        private final int from;
+
+        /**
+         * The square the piece ends on.
+         */
+        private final int to;
+
+        /**
+         * When the animation started, from System.nanoTime.
+         */
+        private final long start;
+
+        /**
+         * How long the animation lasts, in nanoseconds.
+         */
+        private final long duration;
+
+        /**
+         * The sprite bounds drawn in the last frame.
+         */
+        private Rectangle lastBounds;
+
+        /**
+         * Constructs a new Animation.
+         *
+         * @param kind     What the animation does.
+         * @param piece    The animated piece.
+         * @param previous The piece before a transformation, or null.
+         * @param from     The square the piece starts on.
+         * @param to       The square the piece ends on.
+         * @param start    When the animation started.
+         * @param millis   How long it lasts, in milliseconds.
+         */
+        private Animation(Kind kind, Piece piece, Piece previous, int from, int to, long start, long millis) {
+            this.kind = kind;
+            this.piece = piece;
+            this.previous = previous;
+            this.from = from;
+            this.to = to;
+            this.start = start;
+            this.duration = millis * 1_000_000L;
+        }
+
+        /**
+         * Computes how far along the animation is, eased out so pieces settle gently.
+         *
+         * @param now The current time, from System.nanoTime.
+         * @return The progress from 0 to 1.
+         */
+        private float progress(long now) {
+            float linear = Math.min(1f, (float) (now - start) / duration);
+            return 1f - (1f - linear) * (1f - linear);
+        }
+
+        /**
+         * Computes where the sprite is drawn at some progress.
+         *
+         * @param progress   The progress from 0 to 1.
+         * @param spriteSize The sprite size.
+         * @return The sprite bounds in canvas coordinates.
+         */
+        private Rectangle spriteBounds(float progress, int spriteSize) {
+            Rectangle source = squareBounds(from);
+            Rectangle target = squareBounds(to);
+            int x = Math.round(source.x + (target.x - source.x) * progress);
+            int y = Math.round(source.y + (target.y - source.y) * progress);
+            return new Rectangle(x + (source.width - spriteSize) / 2, y + (source.height - spriteSize) / 2,
+                    spriteSize, spriteSize);
+        }
+
+        /**
+         * Retrieves the bounds of a square on the canvas.
+         *
+         * @param index The model square index.
+         * @return The bounds.
+         */
+        private Rectangle squareBounds(int index) {
+            return canvas.getSquareBounds(Position.fromIndex(index));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package view;
+
+import model.BinaryGameCodec;
+import model.Move;
+import model.MoveRecord;
+
+import javax.swing.AbstractListModel;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * MoveListModel is the list model behind GameScreen's move history.
+ *
+ * Description:
+ * The model keeps the history packed, one int per move in the BinaryGameCodec.packMove layout,
+ * and turns a move into text only when the list asks for it. A JList with a fixed cell height
+ * asks only for the rows it shows, so a 10,000-move game costs no more to draw than a short one.
+ * sync compares the controller's history with what the model holds. Moves added since the
+ * last call are appended and reported as one added interval, which makes a refresh after a
+ * move O(1) instead of O(history). sync only compares the first and last moves it holds, so a
+ * replaced history with the same ends would look like it grew. A reset or a load must
+ * therefore call clear first, and the next sync packs the new history from scratch.
+ *
+ * Design Pattern: Observer Pattern
+ * Role: Subject - Tells the JList which rows were added or removed.
+ *
+ * @author Tai Zhi Xuan
+ */
+public class MoveListModel extends AbstractListModel<String> {
+    /**
+     * The moves in the BinaryGameCodec.packMove layout.
+     */
+    private int[] packed = new int[64];
+
+    /**
+     * The number of moves held.
+     */
+    private int size;
+
+    /**
+     * Brings the model up to date with a move history, appending only the new moves when the
+     * history only grew.
+     *
+     * @param history The move history, oldest first.
+     * @return The number of moves appended, or -1 if the history was rebuilt.
+     */
+    public int sync(List<Move> history) {
+        int count = history.size();
+        boolean grew = count >= size
+                && (size == 0 || packed[0] == BinaryGameCodec.packMove(history.get(0))
+                && packed[size - 1] == BinaryGameCodec.packMove(history.get(size - 1)));
+        if (!grew) {
+            clear();
+        } else if (count == size) {
+            return 0;
+        }
+
+        int first = size;
+        if (count > packed.length) {
+            packed = Arrays.copyOf(packed, Math.max(count, packed.length * 2));
+        }
+        for (int index = first; index < count; index++) {
+            packed[index] = BinaryGameCodec.packMove(history.get(index));
+        }
+        size = count;
+        if (count > first) {
+            fireIntervalAdded(this, first, count - 1);
+        }
+        return grew ? count - first : -1;
+    }
+
+    /**
+     * Removes every move, e.g. because the game was reset or another game was loaded.
+     */
+    public void clear() {
+        int removed = size;
+        size = 0;
+        if (removed > 0) {
+            fireIntervalRemoved(this, 0, removed - 1);
+        }
+    }
+
+    /**
+     * Retrieves the number of moves in the list.
+     *
+     * @return The number of moves.
+     */
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Formats a move for display, e.g. "3. RED (Tor): (7,4) -> (5,4)". Red's squares are shown
+     * from Red's side of the board, as Red sees them while moving.
+     *
+     * @param index The index of the move, oldest first.
+     * @return The formatted move.
+     */
+    @Override
+    public String getElementAt(int index) {
+        int move = packed[index];
+        StringBuilder text = new StringBuilder(40).append(index + 1).append(". ");
+        return appendMove(text, (move & 1 << 15) != 0, MoveRecord.typeName(move >>> 12 & 0x7),
+                move & 0x3F, move >>> 6 & 0x3F).toString();
+    }
+
+    /**
+     * Formats a move the way the move history shows it, e.g. "RED (Tor): (7,4) -> (5,4)".
+     *
+     * @param text The builder to append to.
+     * @param blue Whether Blue made the move.
+     * @param type The piece type.
+     * @param from The model index of the from square.
+     * @param to   The model index of the to square.
+     * @return The builder.
+     */
+    static StringBuilder appendMove(StringBuilder text, boolean blue, String type, int from, int to) {
+        if (!blue) {
+            from = 39 - from; // Same as (7 - row, 4 - column)
+            to = 39 - to;
+        }
+        return text.append(blue ? "BLUE" : "RED")
+                .append(" (").append(type).append("): (")
+                .append(from / 5).append(',').append(from % 5).append(") -> (")
+                .append(to / 5).append(',').append(to % 5).append(')');
+    }
+}
@@ -0,0 +1,156 @@
+package view;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * PngEncoder writes RGB images as PNG files, much faster than ImageIO for small images.
+ *
+ * Description:
+ * ImageIO's PNG writer has a fixed cost of about half a millisecond per image, which is more
+ * than ten times the cost of drawing a thumbnail. This encoder writes only what a thumbnail
+ * needs: an IHDR chunk for 8-bit RGB, one IDAT chunk and an IEND chunk. Each row uses the Up
+ * filter, which suits the board's large flat squares, and is compressed at the fastest
+ * Deflater level. The pixels are read straight from the image's int raster. The Deflater,
+ * CRC and row buffers are kept between images, so an encoder must not be shared between
+ * threads; ThumbnailExporter keeps one per thread.
+ *
+ * @author Tai Zhi Xuan
+ */
+final class PngEncoder {
+    /**
+     * The eight bytes every PNG file starts with.
+     */
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    /**
+     * The Up filter: each byte is stored as its difference from the byte above.
+     */
+    private static final int FILTER_UP = 2;
+
+    /**
+     * The compressor, reset for every image.
+     */
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+    /**
+     * The checksum of each chunk.
+     */
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * The filtered rows, grown as needed.
+     */
+    private byte[] filtered = new byte[0];
+
+    /**
+     * The compressed image data, grown as needed.
+     */
+    private byte[] compressed = new byte[8192];
+
+    /**
+     * Encodes an image.
+     *
+     * @param image An image of type TYPE_INT_RGB.
+     * @param out   Receives the PNG file.
+     * @throws IllegalArgumentException If the image is not TYPE_INT_RGB.
+     */
+    void encode(BufferedImage image, ByteArrayOutputStream out) {
+        if (image.getType() != BufferedImage.TYPE_INT_RGB) {
+            throw new IllegalArgumentException("Only TYPE_INT_RGB images can be encoded: type " + image.getType());
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        int length = filter(pixels, width, height);
+
+        deflater.reset();
+        deflater.setInput(filtered, 0, length);
+        deflater.finish();
+        int size = 0;
+        while (!deflater.finished()) {
+            if (size == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            size += deflater.deflate(compressed, size, compressed.length - size);
+        }
+
+        out.write(SIGNATURE, 0, SIGNATURE.length);
+        byte[] header = new byte[13];
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = 8; // Bits per channel
+        header[9] = 2; // RGB
+        writeChunk(out, "IHDR", header, header.length);
+        writeChunk(out, "IDAT", compressed, size);
+        writeChunk(out, "IEND", compressed, 0);
+    }
+
+    /**
+     * Converts the pixels to filtered RGB rows, each starting with its filter byte.
+     *
+     * @param pixels The pixels, 0xRRGGBB, row by row.
+     * @param width  The image width.
+     * @param height The image height.
+     * @return The number of filtered bytes.
+     */
+    private int filter(int[] pixels, int width, int height) {
+        int length = height * (1 + width * 3);
+        if (filtered.length < length) {
+            filtered = new byte[length];
+        }
+        int at = 0;
+        for (int y = 0; y < height; y++) {
+            filtered[at++] = FILTER_UP;
+            int row = y * width;
+            for (int x = 0; x < width; x++) {
+                int pixel = pixels[row + x];
+                int above = y == 0 ? 0 : pixels[row - width + x];
+                filtered[at++] = (byte) ((pixel >> 16) - (above >> 16));
+                filtered[at++] = (byte) ((pixel >> 8) - (above >> 8));
+                filtered[at++] = (byte) (pixel - above);
+            }
+        }
+        return at;
+    }
+
+    /**
+     * Writes one chunk: its length, type, data and checksum.
+     *
+     * @param out    The PNG file.
+     * @param type   The four-letter chunk type.
+     * @param data   The chunk data.
+     * @param length The number of data bytes.
+     */
+    private void writeChunk(ByteArrayOutputStream out, String type, byte[] data, int length) {
+        byte[] field = new byte[4];
+        putInt(field, 0, length);
+        out.write(field, 0, 4);
+        byte[] typeBytes = {(byte) type.charAt(0), (byte) type.charAt(1), (byte) type.charAt(2), (byte) type.charAt(3)};
+        out.write(typeBytes, 0, 4);
+        out.write(data, 0, length);
+        crc.reset();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        putInt(field, 0, (int) crc.getValue());
+        out.write(field, 0, 4);
+    }
+
+    /**
+     * Stores an int in big-endian order.
+     *
+     * @param bytes  The array.
+     * @param offset Where to store it.
+     * @param value  The value.
+     */
+    private static void putInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+}
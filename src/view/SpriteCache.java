@@ -0,0 +1,226 @@
+package view;
+
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SpriteCache keeps the piece images ready to draw, so refreshing the board does no image work.
+ *
+ * Description:
+ * Each of the ten piece PNGs is decoded once, the first time it is needed, and kept for the
+ * life of the application. From those originals the cache renders the icons the board shows:
+ * one per image, size and orientation (upright, or rotated 180 degrees when Red is to move).
+ * Rendered icons are reused until the board asks for a different size, which only happens on
+ * a resize; then every rendered icon is dropped and re-rendered on demand, while the decoded
+ * originals are kept. The icons of one size live in their own IconSet, which is swapped as a
+ * whole on a resize, so an icon rendered for the old size can never be handed out for the new
+ * one. The cache is shared by every board and is safe to fill from a background thread while
+ * the Event Dispatch Thread reads it.
+ *
+ * Design Pattern: Singleton Pattern, Flyweight Pattern
+ * Role: Flyweight Factory - Hands out shared, immutable piece icons.
+ *
+ * @author Tai Zhi Xuan
+ */
+public final class SpriteCache {
+    /**
+     * The class-loader paths of the ten piece images, as returned by Piece.getImagePath.
+     */
+    public static final String[] IMAGE_PATHS = {
+            "resources/images/Ram_red.png", "resources/images/Ram_blue.png",
+            "resources/images/Biz_red.png", "resources/images/Biz_blue.png",
+            "resources/images/Tor_red.png", "resources/images/Tor_blue.png",
+            "resources/images/Xor_red.png", "resources/images/Xor_blue.png",
+            "resources/images/Sau_red.png", "resources/images/Sau_blue.png"
+    };
+
+    /**
+     * The shared instance.
+     */
+    private static final SpriteCache INSTANCE = new SpriteCache();
+
+    /**
+     * The decoded images, by path.
+     */
+    private final Map<String, BufferedImage> originals = new ConcurrentHashMap<>();
+
+    /**
+     * The rendered icons of the current size; replaced as a whole on a resize.
+     */
+    private volatile IconSet icons = new IconSet(-1);
+
+    /**
+     * Prevents instantiation outside getInstance.
+     */
+    private SpriteCache() {
+    }
+
+    /**
+     * Retrieves the shared cache.
+     *
+     * @return The cache.
+     */
+    public static SpriteCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Retrieves the icon of a piece image, rendering it on first use at this size.
+     *
+     * @param imagePath The class-loader path of the image.
+     * @param size      The width and height of the icon, in pixels.
+     * @param rotate    Whether the image is turned 180 degrees.
+     * @return The icon; shared, so callers must not modify it.
+     */
+    public ImageIcon getIcon(String imagePath, int size, boolean rotate) {
+        IconSet current = icons;
+        IconSet set = current.size == size ? current : resize(size);
+        Map<String, ImageIcon> byPath = rotate ? set.rotated : set.upright;
+        ImageIcon icon = byPath.get(imagePath);
+        if (icon == null) {
+            // Rendered at the set's own size, which is the requested size
+            icon = byPath.computeIfAbsent(imagePath, path -> new ImageIcon(render(getOriginal(path), set.size, rotate)));
+        }
+        return icon;
+    }
+
+    /**
+     * Decodes every piece image and renders both orientations at a size, so the first
+     * refresh finds everything ready.
+     *
+     * @param size The width and height of the icons, in pixels.
+     */
+    public void preload(int size) {
+        for (String imagePath : IMAGE_PATHS) {
+            getIcon(imagePath, size, false);
+            getIcon(imagePath, size, true);
+        }
+    }
+
+    /**
+     * Renders a piece image at a size outside the shared icons, e.g. for thumbnails, so a
+     * different size does not make the board's icons render again. The decoded original is
+     * still shared.
+     *
+     * @param imagePath The class-loader path of the image.
+     * @param size      The width and height of the sprite, in pixels.
+     * @param rotate    Whether the image is turned 180 degrees.
+     * @return A new ARGB image owned by the caller.
+     */
+    BufferedImage renderSprite(String imagePath, int size, boolean rotate) {
+        return render(getOriginal(imagePath), size, rotate);
+    }
+
+    /**
+     * Drops every rendered icon because the board now wants a different size.
+     * The decoded originals are kept.
+     *
+     * @param newSize The new icon size.
+     * @return The icons of the new size.
+     */
+    private synchronized IconSet resize(int newSize) {
+        if (icons.size != newSize) {
+            icons = new IconSet(newSize);
+        }
+        return icons;
+    }
+
+    /**
+     * Retrieves a decoded image, decoding it on first use.
+     *
+     * @param imagePath The class-loader path of the image.
+     * @return The decoded image.
+     */
+    private BufferedImage getOriginal(String imagePath) {
+        return originals.computeIfAbsent(imagePath, path -> {
+            try (InputStream in = SpriteCache.class.getClassLoader().getResourceAsStream(path)) {
+                if (in == null) {
+                    throw new IllegalArgumentException("Missing piece image: " + path);
+                }
+                return ImageIO.read(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to decode piece image: " + path, e);
+            }
+        });
+    }
+
+    /**
+     * Scales an image to a square icon, halving it step by step first so the result is as
+     * smooth as Image.SCALE_SMOOTH, and turns it 180 degrees if asked.
+     *
+     * @param original The decoded image.
+     * @param size     The width and height of the icon.
+     * @param rotate   Whether to turn the image 180 degrees.
+     * @return The rendered icon image.
+     */
+    private static BufferedImage render(BufferedImage original, int size, boolean rotate) {
+        BufferedImage current = original;
+        int width = original.getWidth();
+        int height = original.getHeight();
+        while (width / 2 >= size && height / 2 >= size) {
+            width /= 2;
+            height /= 2;
+            current = draw(current, width, height, false);
+        }
+        return draw(current, size, size, rotate);
+    }
+
+    /**
+     * Draws an image into a new ARGB image of the given size with bilinear filtering.
+     *
+     * @param source The image to draw.
+     * @param width  The width of the result.
+     * @param height The height of the result.
+     * @param rotate Whether to turn the image 180 degrees.
+     * @return The new image.
+     */
+    private static BufferedImage draw(BufferedImage source, int width, int height, boolean rotate) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = target.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        if (rotate) {
+            g2d.rotate(Math.PI, width / 2.0, height / 2.0);
+        }
+        g2d.drawImage(source, 0, 0, width, height, null);
+        g2d.dispose();
+        return target;
+    }
+
+    /**
+     * The rendered icons of one size. Only filled, never cleared or resized.
+     */
+    private static final class IconSet {
+        /**
+         * The size of every icon in this set, or -1 for the empty set before the first icon.
+         */
+        private final int size;
+
+        /**
+         * The upright icons, by path.
+         */
+        private final Map<String, ImageIcon> upright = new ConcurrentHashMap<>();
+
+        /**
+         * The rotated icons, by path.
+         */
+        private final Map<String, ImageIcon> rotated = new ConcurrentHashMap<>();
+
+        /**
+         * Constructs a new, empty IconSet.
+         *
+         * @param size The size of the icons it will hold.
+         */
+        private IconSet(int size) {
+            this.size = size;
+        }
+    }
+}
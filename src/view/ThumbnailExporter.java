@@ -0,0 +1,244 @@
+package view;
+
+import model.Board;
+import model.Color;
+import model.GameArchive;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * ThumbnailExporter writes board positions to PNG thumbnails on a pool of threads, e.g. for
+ * the game archive web pages.
+ *
+ * Description:
+ * Positions are drawn by one shared BoardRenderer. Each worker thread keeps its own image,
+ * PngEncoder and output buffer in ThreadLocals and reuses them for every thumbnail, so a
+ * thumbnail costs one render and one PNG encode with no per-image setup. Each PNG is encoded
+ * in memory, then written to its file in one go.
+ * Boards are read into square codes on the calling thread before they are queued, so callers
+ * may go on changing them. Archives are exported from their square codes without building any
+ * pieces. No Swing component is created, so the exporter runs with java.awt.headless=true.
+ *
+ * Usage: java -Djava.awt.headless=true -cp out view.ThumbnailExporter archive directory
+ * [square size] [threads]
+ *
+ * @author Tai Zhi Xuan
+ */
+public final class ThumbnailExporter implements AutoCloseable {
+    /**
+     * The number of squares on the board.
+     */
+    private static final int SQUARES = 40;
+
+    /**
+     * The renderer shared by every thread.
+     */
+    private final BoardRenderer renderer;
+
+    /**
+     * The number of worker threads.
+     */
+    private final int threads;
+
+    /**
+     * The worker threads.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The image each thread renders into.
+     */
+    private final ThreadLocal<BufferedImage> images;
+
+    /**
+     * The PNG encoder of each thread.
+     */
+    private final ThreadLocal<PngEncoder> encoders = ThreadLocal.withInitial(PngEncoder::new);
+
+    /**
+     * The buffer each thread encodes into.
+     */
+    private final ThreadLocal<ByteArrayOutputStream> buffers = ThreadLocal.withInitial(
+            () -> new ByteArrayOutputStream(16 * 1024));
+
+    /**
+     * Constructs a new ThumbnailExporter.
+     *
+     * @param squareSize The size of a board square in pixels; thumbnails are 5 by 8 squares.
+     * @param threads    The number of worker threads, at least 1.
+     * @throws IllegalArgumentException If the size or thread count is out of range.
+     */
+    public ThumbnailExporter(int squareSize, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one export thread is needed: " + threads);
+        }
+        this.renderer = new BoardRenderer(squareSize);
+        this.threads = threads;
+        this.images = ThreadLocal.withInitial(renderer::createImage);
+        this.executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "kwazam-thumbnail");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Retrieves the renderer.
+     *
+     * @return The shared renderer.
+     */
+    public BoardRenderer getRenderer() {
+        return renderer;
+    }
+
+    /**
+     * Encodes a board as a PNG on the calling thread.
+     *
+     * @param board          The board.
+     * @param redPerspective Whether to turn the board 180 degrees.
+     * @return The PNG bytes.
+     */
+    public byte[] toPng(Board board, boolean redPerspective) {
+        int[] squares = new int[SQUARES];
+        BoardRenderer.readSquares(board, squares);
+        return encode(squares, redPerspective).toByteArray();
+    }
+
+    /**
+     * Writes a board to a PNG file on a worker thread. The board is read before this returns.
+     *
+     * @param board          The board.
+     * @param redPerspective Whether to turn the board 180 degrees.
+     * @param file           The PNG file to write.
+     * @return Completes when the file is written, or exceptionally with an UncheckedIOException.
+     */
+    public CompletableFuture<Void> export(Board board, boolean redPerspective, Path file) {
+        int[] squares = new int[SQUARES];
+        BoardRenderer.readSquares(board, squares);
+        return CompletableFuture.runAsync(() -> write(squares, redPerspective, file), executor);
+    }
+
+    /**
+     * Writes the final position of every game in an archive to directory/gameId.png. The
+     * board is shown from the side of the player to move. At most a few positions per thread
+     * are queued at a time, so memory stays flat however large the archive is. Queueing stops
+     * at the first failure.
+     *
+     * @param reader    The archive.
+     * @param directory The directory to write to; created if missing.
+     * @return The number of thumbnails written.
+     * @throws IOException If the directory cannot be created or a thumbnail cannot be written.
+     */
+    public int exportArchive(GameArchive.Reader reader, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        int maxQueued = threads * 4;
+        Semaphore queued = new Semaphore(maxQueued);
+        AtomicReference<UncheckedIOException> failure = new AtomicReference<>();
+        int[] count = new int[1];
+        reader.forEach(game -> {
+            if (failure.get() != null) {
+                return; // Stop queueing after the first failure
+            }
+            int[] squares = new int[SQUARES];
+            for (int index = 0; index < SQUARES; index++) {
+                squares[index] = game.getSquare(index);
+            }
+            boolean redPerspective = game.getCurrentPlayer() == Color.RED;
+            Path file = directory.resolve(game.getId() + ".png");
+            queued.acquireUninterruptibly();
+            count[0]++;
+            executor.execute(() -> {
+                try {
+                    write(squares, redPerspective, file);
+                } catch (UncheckedIOException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    queued.release();
+                }
+            });
+        });
+        queued.acquireUninterruptibly(maxQueued); // Wait for the last thumbnails
+        queued.release(maxQueued);
+        if (failure.get() != null) {
+            throw failure.get().getCause();
+        }
+        return count[0];
+    }
+
+    /**
+     * Shuts the worker threads down once the queued thumbnails are written.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Renders and writes one thumbnail on the current thread.
+     *
+     * @param squares        The square codes of the position.
+     * @param redPerspective Whether to turn the board 180 degrees.
+     * @param file           The PNG file to write.
+     * @throws UncheckedIOException If the file cannot be written.
+     */
+    private void write(int[] squares, boolean redPerspective, Path file) {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            encode(squares, redPerspective).writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write thumbnail " + file, e);
+        }
+    }
+
+    /**
+     * Renders a position into this thread's image and encodes it into this thread's buffer.
+     *
+     * @param squares        The square codes of the position.
+     * @param redPerspective Whether to turn the board 180 degrees.
+     * @return This thread's buffer, holding the PNG until the next call on this thread.
+     */
+    private ByteArrayOutputStream encode(int[] squares, boolean redPerspective) {
+        BufferedImage image = images.get();
+        renderer.render(squares, redPerspective, image);
+        ByteArrayOutputStream buffer = buffers.get();
+        buffer.reset();
+        encoders.get().encode(image, buffer);
+        return buffer;
+    }
+
+    /**
+     * Exports every game of an archive and prints the throughput.
+     *
+     * @param args The archive, the output directory, and optionally the square size and thread count.
+     * @throws IOException If the archive cannot be read or a thumbnail cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java -Djava.awt.headless=true -cp out view.ThumbnailExporter"
+                    + " archive directory [square size] [threads]");
+            return;
+        }
+        System.setProperty("java.awt.headless", "true");
+        int squareSize = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        try (GameArchive.Reader reader = GameArchive.openReader(Path.of(args[0]));
+             ThumbnailExporter exporter = new ThumbnailExporter(squareSize, threads)) {
+            long start = System.nanoTime();
+            int count = exporter.exportArchive(reader, Path.of(args[1]));
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Exported %d thumbnails of %dx%d in %.2f s (%.0f per second) on %d threads%n",
+                    count, exporter.getRenderer().getWidth(), exporter.getRenderer().getHeight(),
+                    seconds, count / seconds, threads);
+        }
+    }
+}